@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.benchmarks;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+
+import static java.lang.foreign.ValueLayout.ADDRESS;
+
+/**
+ * A synthetic {@code RENDERDOC_API_1_6_0} structure for benchmarking.
+ *
+ * The benchmarks cannot assume that they are running inside RenderDoc, so
+ * every function pointer in the structure is populated with a trivial C
+ * library function that has a compatible signature. This measures the cost
+ * of the Java side of each downcall without measuring RenderDoc itself.
+ *
+ * None of the generated classes are used here, because initializing them
+ * requires that {@code librenderdoc} can be loaded.
+ */
+
+public final class RenderDocBenchmarkAPI
+{
+  /**
+   * The number of function pointers in {@code RENDERDOC_API_1_6_0}.
+   */
+
+  public static final int SLOT_COUNT = 27;
+
+  /**
+   * The index of {@code GetCaptureOptionU32} in {@code RENDERDOC_API_1_6_0}.
+   */
+
+  public static final int SLOT_GET_CAPTURE_OPTION_U32 = 3;
+
+  /**
+   * The index of {@code GetNumCaptures} in {@code RENDERDOC_API_1_6_0}.
+   */
+
+  public static final int SLOT_GET_NUM_CAPTURES = 13;
+
+  private RenderDocBenchmarkAPI()
+  {
+
+  }
+
+  /**
+   * @param name The C library function
+   *
+   * @return The address of the given C library function
+   */
+
+  public static MemorySegment libc(
+    final String name)
+  {
+    return Linker.nativeLinker()
+      .defaultLookup()
+      .find(name)
+      .orElseThrow(() -> {
+        return new IllegalStateException(
+          "No C library function named %s".formatted(name)
+        );
+      });
+  }
+
+  /**
+   * @param api  The API structure
+   * @param slot The slot index
+   *
+   * @return The function pointer at the given slot
+   */
+
+  public static MemorySegment function(
+    final MemorySegment api,
+    final int slot)
+  {
+    return api.getAtIndex(ADDRESS, slot);
+  }
+
+  /**
+   * Create a synthetic API structure. Functions that take no arguments
+   * are populated with {@code getpagesize()}, and functions that take an integer
+   * are populated with {@code abs()}.
+   *
+   * @param arena The arena
+   *
+   * @return An API structure
+   */
+
+  public static MemorySegment create(
+    final Arena arena)
+  {
+    final var api =
+      arena.allocate(ADDRESS, SLOT_COUNT);
+
+    final var getpagesize =
+      libc("getpagesize");
+    final var abs =
+      libc("abs");
+
+    for (int slot = 0; slot < SLOT_COUNT; ++slot) {
+      api.setAtIndex(ADDRESS, slot, getpagesize);
+    }
+
+    api.setAtIndex(ADDRESS, SLOT_GET_CAPTURE_OPTION_U32, abs);
+    return api;
+  }
+}
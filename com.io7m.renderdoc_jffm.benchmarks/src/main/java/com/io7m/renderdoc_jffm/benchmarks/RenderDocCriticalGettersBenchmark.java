@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.benchmarks;
+
+import com.io7m.renderdoc_jffm.core.internal.RenderDocNativeFunctions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.foreign.Arena;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare standard and critical downcalls for the trivial getters that a
+ * render loop typically polls once per frame.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+@State(Scope.Thread)
+public class RenderDocCriticalGettersBenchmark
+{
+  private Arena arena;
+  private RenderDocNativeFunctions standard;
+  private RenderDocNativeFunctions critical;
+  private int option;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public RenderDocCriticalGettersBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the synthetic API.
+   */
+
+  @Setup(Level.Trial)
+  public void setup()
+  {
+    this.arena =
+      Arena.ofConfined();
+
+    final var api =
+      RenderDocBenchmarkAPI.create(this.arena);
+
+    this.standard =
+      RenderDocNativeFunctions.create(api, false);
+    this.critical =
+      RenderDocNativeFunctions.create(api, true);
+    this.option = -3;
+  }
+
+  /**
+   * Release the synthetic API.
+   */
+
+  @TearDown(Level.Trial)
+  public void tearDown()
+  {
+    this.arena.close();
+  }
+
+  private static int poll(
+    final RenderDocNativeFunctions functions,
+    final int option)
+  {
+    return functions.getNumCaptures()
+           + functions.isFrameCapturing()
+           + functions.getCaptureOptionU32(option);
+  }
+
+  /**
+   * @return The result of the call
+   */
+
+  @Benchmark
+  public int getNumCapturesStandard()
+  {
+    return this.standard.getNumCaptures();
+  }
+
+  /**
+   * @return The result of the call
+   */
+
+  @Benchmark
+  public int getNumCapturesCritical()
+  {
+    return this.critical.getNumCaptures();
+  }
+
+  /**
+   * Poll the capture state as a render loop would once per frame.
+   *
+   * @return The result of the calls
+   */
+
+  @Benchmark
+  public int framePollStandard()
+  {
+    return poll(this.standard, this.option);
+  }
+
+  /**
+   * Poll the capture state as a render loop would once per frame.
+   *
+   * @return The result of the calls
+   */
+
+  @Benchmark
+  public int framePollCritical()
+  {
+    return poll(this.critical, this.option);
+  }
+}
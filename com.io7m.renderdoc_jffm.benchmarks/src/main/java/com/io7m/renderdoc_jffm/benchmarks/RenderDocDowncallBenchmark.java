@@ -0,0 +1,257 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.benchmarks;
+
+import com.io7m.renderdoc_jffm.core.internal.RenderDocNativeFunctions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import static com.io7m.renderdoc_jffm.benchmarks.RenderDocBenchmarkAPI.SLOT_GET_CAPTURE_OPTION_U32;
+import static com.io7m.renderdoc_jffm.benchmarks.RenderDocBenchmarkAPI.SLOT_GET_NUM_CAPTURES;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+
+/**
+ * Compare the generated {@code pRENDERDOC_*.invoke(funcPtr, ...)} path
+ * against the pre-bound downcall handles used by {@code RenderDoc}.
+ *
+ * The generated classes cannot be initialized outside of RenderDoc, so the
+ * {@code *Generated} benchmarks reproduce the body of the generated
+ * {@code invoke} methods exactly: a single shared, unbound downcall handle
+ * that takes the function pointer as its first argument. The
+ * {@code *Field} benchmarks call a bound handle held in an instance field,
+ * which the JIT cannot treat as a constant. The {@code *Bound} benchmarks
+ * call {@code RenderDocNativeFunctions}, whose bound handles are held in
+ * {@code static final} fields.
+ *
+ * The {@code *Critical} variants link the same functions as critical
+ * downcalls. Without the thread state transition, the cost of the call
+ * path itself is a much larger fraction of each call.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+@State(Scope.Thread)
+public class RenderDocDowncallBenchmark
+{
+  private static final MethodHandle GET_NUM_CAPTURES_DOWN$MH =
+    Linker.nativeLinker()
+      .downcallHandle(FunctionDescriptor.of(JAVA_INT));
+
+  private static final MethodHandle GET_NUM_CAPTURES_CRITICAL_DOWN$MH =
+    Linker.nativeLinker()
+      .downcallHandle(
+        FunctionDescriptor.of(JAVA_INT),
+        Linker.Option.critical(false)
+      );
+
+  private static final MethodHandle GET_CAPTURE_OPTION_U32_DOWN$MH =
+    Linker.nativeLinker()
+      .downcallHandle(FunctionDescriptor.of(JAVA_INT, JAVA_INT));
+
+  private Arena arena;
+  private MemorySegment getNumCapturesPtr;
+  private MemorySegment getCaptureOptionU32Ptr;
+  private MethodHandle getNumCapturesField;
+  private MethodHandle getNumCapturesCriticalField;
+  private RenderDocNativeFunctions functions;
+  private RenderDocNativeFunctions functionsCritical;
+  private int option;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public RenderDocDowncallBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the synthetic API.
+   */
+
+  @Setup(Level.Trial)
+  public void setup()
+  {
+    this.arena =
+      Arena.ofConfined();
+
+    final var api =
+      RenderDocBenchmarkAPI.create(this.arena);
+
+    this.getNumCapturesPtr =
+      RenderDocBenchmarkAPI.function(api, SLOT_GET_NUM_CAPTURES);
+    this.getCaptureOptionU32Ptr =
+      RenderDocBenchmarkAPI.function(api, SLOT_GET_CAPTURE_OPTION_U32);
+    this.getNumCapturesField =
+      Linker.nativeLinker()
+        .downcallHandle(
+          this.getNumCapturesPtr,
+          FunctionDescriptor.of(JAVA_INT)
+        );
+    this.getNumCapturesCriticalField =
+      Linker.nativeLinker()
+        .downcallHandle(
+          this.getNumCapturesPtr,
+          FunctionDescriptor.of(JAVA_INT),
+          Linker.Option.critical(false)
+        );
+    this.functions =
+      RenderDocNativeFunctions.create(api, false);
+    this.functionsCritical =
+      RenderDocNativeFunctions.create(api, true);
+    this.option = -3;
+  }
+
+  /**
+   * Release the synthetic API.
+   */
+
+  @TearDown(Level.Trial)
+  public void tearDown()
+  {
+    this.arena.close();
+  }
+
+  /**
+   * @return The result of the call
+   */
+
+  @Benchmark
+  public int getNumCapturesGenerated()
+  {
+    try {
+      return (int) GET_NUM_CAPTURES_DOWN$MH.invokeExact(
+        this.getNumCapturesPtr
+      );
+    } catch (final Throwable ex) {
+      throw new AssertionError("should not reach here", ex);
+    }
+  }
+
+  /**
+   * @return The result of the call
+   */
+
+  @Benchmark
+  public int getNumCapturesField()
+  {
+    try {
+      return (int) this.getNumCapturesField.invokeExact();
+    } catch (final Throwable ex) {
+      throw new AssertionError("should not reach here", ex);
+    }
+  }
+
+  /**
+   * @return The result of the call
+   */
+
+  @Benchmark
+  public int getNumCapturesBound()
+  {
+    return this.functions.getNumCaptures();
+  }
+
+  /**
+   * @return The result of the call
+   */
+
+  @Benchmark
+  public int getNumCapturesCriticalGenerated()
+  {
+    try {
+      return (int) GET_NUM_CAPTURES_CRITICAL_DOWN$MH.invokeExact(
+        this.getNumCapturesPtr
+      );
+    } catch (final Throwable ex) {
+      throw new AssertionError("should not reach here", ex);
+    }
+  }
+
+  /**
+   * @return The result of the call
+   */
+
+  @Benchmark
+  public int getNumCapturesCriticalField()
+  {
+    try {
+      return (int) this.getNumCapturesCriticalField.invokeExact();
+    } catch (final Throwable ex) {
+      throw new AssertionError("should not reach here", ex);
+    }
+  }
+
+  /**
+   * @return The result of the call
+   */
+
+  @Benchmark
+  public int getNumCapturesCriticalBound()
+  {
+    return this.functionsCritical.getNumCaptures();
+  }
+
+  /**
+   * @return The result of the call
+   */
+
+  @Benchmark
+  public int getCaptureOptionU32Generated()
+  {
+    try {
+      return (int) GET_CAPTURE_OPTION_U32_DOWN$MH.invokeExact(
+        this.getCaptureOptionU32Ptr,
+        this.option
+      );
+    } catch (final Throwable ex) {
+      throw new AssertionError("should not reach here", ex);
+    }
+  }
+
+  /**
+   * @return The result of the call
+   */
+
+  @Benchmark
+  public int getCaptureOptionU32Bound()
+  {
+    return this.functions.getCaptureOptionU32(this.option);
+  }
+}
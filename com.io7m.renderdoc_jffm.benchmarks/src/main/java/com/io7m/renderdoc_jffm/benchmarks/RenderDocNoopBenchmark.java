@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.benchmarks;
+
+import com.io7m.renderdoc_jffm.core.RenderDoc;
+import com.io7m.renderdoc_jffm.core.RenderDocType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Show that a render loop calling the no-op implementation costs the same
+ * as the same loop without the call.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+@State(Scope.Thread)
+public class RenderDocNoopBenchmark
+{
+  private static final int FRAMES = 1000;
+
+  private RenderDocType renderDoc;
+  private long frameWork;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public RenderDocNoopBenchmark()
+  {
+
+  }
+
+  /**
+   * Obtain the no-op implementation.
+   */
+
+  @Setup(Level.Trial)
+  public void setup()
+  {
+    this.renderDoc = RenderDoc.noop();
+    this.frameWork = 17L;
+  }
+
+  /**
+   * A loop of frames that does not call RenderDoc.
+   *
+   * @return The result of the frames
+   */
+
+  @Benchmark
+  @OperationsPerInvocation(FRAMES)
+  public long emptyLoop()
+  {
+    long sum = 0L;
+    for (int frame = 0; frame < FRAMES; ++frame) {
+      sum += frame * this.frameWork;
+    }
+    return sum;
+  }
+
+  /**
+   * A loop of frames that calls {@code triggerCapture()} on the no-op
+   * implementation once per frame.
+   *
+   * @return The result of the frames
+   */
+
+  @Benchmark
+  @OperationsPerInvocation(FRAMES)
+  public long noopLoop()
+  {
+    final var doc = this.renderDoc;
+    long sum = 0L;
+    for (int frame = 0; frame < FRAMES; ++frame) {
+      sum += frame * this.frameWork;
+      doc.triggerCapture();
+    }
+    return sum;
+  }
+}
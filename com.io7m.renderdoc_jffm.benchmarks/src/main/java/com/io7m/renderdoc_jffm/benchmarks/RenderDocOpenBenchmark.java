@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.benchmarks;
+
+import com.io7m.renderdoc_jffm.core.RenderDoc;
+import com.io7m.renderdoc_jffm.core.internal.RenderDocNativeFunctions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the cost of opening RenderDoc, and of creating the bound
+ * functions with lazy and eager linking.
+ *
+ * Functions are linked at most once per process, so the cost of linking
+ * is only visible in a fresh JVM. Each of the single-shot benchmarks is
+ * therefore measured once per fork, with no warmup, and the score is the
+ * cold cost of the first call. The {@code openAgain} benchmark measures
+ * the steady-state cost of opening RenderDoc in a process that has already
+ * opened it.
+ *
+ * The {@code open} benchmarks require {@code librenderdoc} to be loadable
+ * (for example, by running the benchmarks under {@code renderdoccmd} or
+ * with the library on {@code LD_LIBRARY_PATH}). The other benchmarks use
+ * a synthetic API structure and have no such requirement.
+ */
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 10, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+@State(Scope.Thread)
+public class RenderDocOpenBenchmark
+{
+  private Arena arena;
+  private MemorySegment api;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public RenderDocOpenBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the synthetic API.
+   */
+
+  @Setup(Level.Trial)
+  public void setup()
+  {
+    this.arena =
+      Arena.ofConfined();
+    this.api =
+      RenderDocBenchmarkAPI.create(this.arena);
+  }
+
+  /**
+   * Release the synthetic API.
+   */
+
+  @TearDown(Level.Trial)
+  public void tearDown()
+  {
+    this.arena.close();
+  }
+
+  /**
+   * Open and close RenderDoc in a fresh process.
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public void open()
+    throws IOException
+  {
+    RenderDoc.open().close();
+  }
+
+  /**
+   * Open and close RenderDoc in a process that has already opened it.
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Warmup(iterations = 5, time = 1)
+  @Measurement(iterations = 5, time = 1)
+  @Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+  public void openAgain()
+    throws IOException
+  {
+    RenderDoc.open().close();
+  }
+
+  /**
+   * Create functions, linking each function only when it is first used,
+   * and then use the functions needed for a typical frame poll.
+   *
+   * @return The result of the calls
+   */
+
+  @Benchmark
+  public int createLazy()
+  {
+    final var functions =
+      RenderDocNativeFunctions.create(this.api, false);
+
+    return functions.getNumCaptures() + functions.isFrameCapturing();
+  }
+
+  /**
+   * Create functions, linking every function up front, and then use the
+   * functions needed for a typical frame poll.
+   *
+   * @return The result of the calls
+   */
+
+  @Benchmark
+  public int createEager()
+  {
+    final var functions =
+      RenderDocNativeFunctions.create(this.api, false);
+
+    functions.bindAll();
+    return functions.getNumCaptures() + functions.isFrameCapturing();
+  }
+}
@@ -19,30 +19,12 @@ package com.io7m.renderdoc_jffm.core;
 
 import com.io7m.jmulticlose.core.CloseableCollection;
 import com.io7m.jmulticlose.core.CloseableCollectionType;
-import com.io7m.renderdoc_jffm.core.RenderDocOptionType.APIValidation;
-import com.io7m.renderdoc_jffm.core.RenderDocOptionType.AllowFullscreen;
-import com.io7m.renderdoc_jffm.core.RenderDocOptionType.AllowVSync;
-import com.io7m.renderdoc_jffm.core.RenderDocOptionType.CaptureAllCmdLists;
-import com.io7m.renderdoc_jffm.core.RenderDocOptionType.CaptureCallstacks;
-import com.io7m.renderdoc_jffm.core.RenderDocOptionType.CaptureCallstacksOnlyActions;
-import com.io7m.renderdoc_jffm.core.RenderDocOptionType.DebugOutputMute;
-import com.io7m.renderdoc_jffm.core.RenderDocOptionType.DelayForDebugger;
-import com.io7m.renderdoc_jffm.core.RenderDocOptionType.HookIntoChildren;
-import com.io7m.renderdoc_jffm.core.RenderDocOptionType.RefAllResources;
-import com.io7m.renderdoc_jffm.core.RenderDocOptionType.SoftMemoryLimit;
-import com.io7m.renderdoc_jffm.core.RenderDocOptionType.VerifyBufferAccess;
 import com.io7m.renderdoc_jffm.core.generated.RENDERDOC_API_1_6_0;
 import com.io7m.renderdoc_jffm.core.generated.RenderDocEntrypoints;
 import com.io7m.renderdoc_jffm.core.generated.pRENDERDOC_GetAPI;
 import com.io7m.renderdoc_jffm.core.generated.pRENDERDOC_GetAPIVersion;
-import com.io7m.renderdoc_jffm.core.generated.pRENDERDOC_GetCaptureFilePathTemplate;
-import com.io7m.renderdoc_jffm.core.generated.pRENDERDOC_GetCaptureOptionF32;
-import com.io7m.renderdoc_jffm.core.generated.pRENDERDOC_GetCaptureOptionU32;
-import com.io7m.renderdoc_jffm.core.generated.pRENDERDOC_GetNumCaptures;
-import com.io7m.renderdoc_jffm.core.generated.pRENDERDOC_SetCaptureFilePathTemplate;
-import com.io7m.renderdoc_jffm.core.generated.pRENDERDOC_SetCaptureOptionF32;
-import com.io7m.renderdoc_jffm.core.generated.pRENDERDOC_SetCaptureOptionU32;
-import com.io7m.renderdoc_jffm.core.generated.pRENDERDOC_TriggerCapture;
+import com.io7m.renderdoc_jffm.core.internal.RenderDocLibraryProbe;
+import com.io7m.renderdoc_jffm.core.internal.RenderDocNativeFunctions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,23 +33,15 @@ import java.lang.foreign.Arena;
 import java.lang.foreign.MemorySegment;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 import static com.io7m.renderdoc_jffm.core.generated.renderdoc_app_h.eRENDERDOC_API_Version_1_6_0;
-import static com.io7m.renderdoc_jffm.core.generated.renderdoc_app_h.eRENDERDOC_Option_APIValidation;
-import static com.io7m.renderdoc_jffm.core.generated.renderdoc_app_h.eRENDERDOC_Option_AllowFullscreen;
-import static com.io7m.renderdoc_jffm.core.generated.renderdoc_app_h.eRENDERDOC_Option_AllowVSync;
-import static com.io7m.renderdoc_jffm.core.generated.renderdoc_app_h.eRENDERDOC_Option_CaptureAllCmdLists;
-import static com.io7m.renderdoc_jffm.core.generated.renderdoc_app_h.eRENDERDOC_Option_CaptureCallstacks;
-import static com.io7m.renderdoc_jffm.core.generated.renderdoc_app_h.eRENDERDOC_Option_CaptureCallstacksOnlyActions;
-import static com.io7m.renderdoc_jffm.core.generated.renderdoc_app_h.eRENDERDOC_Option_DebugOutputMute;
-import static com.io7m.renderdoc_jffm.core.generated.renderdoc_app_h.eRENDERDOC_Option_DelayForDebugger;
-import static com.io7m.renderdoc_jffm.core.generated.renderdoc_app_h.eRENDERDOC_Option_HookIntoChildren;
-import static com.io7m.renderdoc_jffm.core.generated.renderdoc_app_h.eRENDERDOC_Option_RefAllResources;
-import static com.io7m.renderdoc_jffm.core.generated.renderdoc_app_h.eRENDERDOC_Option_SoftMemoryLimit;
-import static com.io7m.renderdoc_jffm.core.generated.renderdoc_app_h.eRENDERDOC_Option_VerifyBufferAccess;
 import static java.lang.foreign.ValueLayout.ADDRESS;
 import static java.lang.foreign.ValueLayout.JAVA_INT;
 import static java.lang.foreign.ValueLayout.JAVA_LONG;
@@ -82,58 +56,196 @@ public final class RenderDoc implements RenderDocType
     LoggerFactory.getLogger(RenderDoc.class);
 
   private final CloseableCollectionType<IOException> resources;
-  private final TriggerCapture triggerCapture;
-  private final SetCaptureOptionU32 setCaptureOptionU32;
-  private final SetCaptureOptionF32 setCaptureOptionF32;
-  private final GetCaptureOptionU32 getCaptureOptionU32;
-  private final GetCaptureOptionF32 getCaptureOptionF32;
-  private final SetCaptureFilePathTemplate setCaptureFilePathTemplate;
-  private final GetCaptureFilePathTemplate getCaptureFilePathTemplate;
-  private final GetNumCaptures getNumCaptures;
+  private final Supplier<RenderDocArgumentsType> arguments;
+  private final RenderDocFunctionsType functions;
   private final AtomicBoolean closed;
+  private final int[] optionsU32;
+  private final float[] optionsF32;
+  private final int[] optionsSaved;
+  private long optionsCached;
+  private final RenderDocFrameCaptureScope frameCaptureScope;
+  private final RenderDocCaptureBuffer captureBuffer;
+  private final Duration captureTimeout;
 
   private RenderDoc(
     final CloseableCollectionType<IOException> inResources,
-    final TriggerCapture inTriggerCapture,
-    final SetCaptureOptionU32 inSetCaptureOptionU32,
-    final SetCaptureOptionF32 inSetCaptureOptionF32,
-    final GetCaptureOptionU32 inGetCaptureOptionU32,
-    final GetCaptureOptionF32 inGetCaptureOptionF32,
-    final SetCaptureFilePathTemplate inSetCaptureFilePathTemplate,
-    final GetCaptureFilePathTemplate inGetCaptureFilePathTemplate,
-    final GetNumCaptures inGetNumCaptures)
+    final RenderDocConfiguration inConfiguration,
+    final Supplier<RenderDocArgumentsType> inArguments,
+    final RenderDocFunctionsType inFunctions)
   {
     this.resources =
       Objects.requireNonNull(inResources, "resources");
-    this.triggerCapture =
-      Objects.requireNonNull(inTriggerCapture, "triggerCapture");
-    this.setCaptureOptionU32 =
-      Objects.requireNonNull(inSetCaptureOptionU32, "setCaptureOptionU32");
-    this.setCaptureOptionF32 =
-      Objects.requireNonNull(inSetCaptureOptionF32, "setCaptureOptionF32");
-    this.getCaptureOptionU32 =
-      Objects.requireNonNull(inGetCaptureOptionU32, "getCaptureOptionU32");
-    this.getCaptureOptionF32 =
-      Objects.requireNonNull(inGetCaptureOptionF32, "getCaptureOptionF32");
-    this.setCaptureFilePathTemplate =
-      Objects.requireNonNull(
-        inSetCaptureFilePathTemplate,
-        "setCaptureFilePathTemplate"
-      );
-    this.getCaptureFilePathTemplate =
-      Objects.requireNonNull(
-        inGetCaptureFilePathTemplate,
-        "getCaptureFilePathTemplate"
-      );
-    this.getNumCaptures =
-      Objects.requireNonNull(inGetNumCaptures, "inGetNumCaptures");
-
+    this.arguments =
+      Objects.requireNonNull(inArguments, "arguments");
+    this.functions =
+      Objects.requireNonNull(inFunctions, "functions");
     this.closed =
       new AtomicBoolean(false);
+    this.captureTimeout =
+      inConfiguration.captureTimeout();
+
+    final var keyCount = RenderDocOptionKey.values().length;
+    this.optionsU32 =
+      new int[keyCount];
+    this.optionsF32 =
+      new float[keyCount];
+    this.optionsSaved =
+      new int[keyCount];
+    this.frameCaptureScope =
+      new RenderDocFrameCaptureScope(
+        this.functions,
+        inConfiguration.threadingModel()
+      );
+    this.captureBuffer =
+      this.resources.add(new RenderDocCaptureBuffer(this.functions));
+  }
+
+  private static CloseableCollectionType<IOException> createResources()
+  {
+    return CloseableCollection.create(() -> {
+      return new IOException(
+        "One or more resources could not be closed."
+      );
+    });
+  }
+
+  private static Arena createArena(
+    final RenderDocConfiguration configuration)
+  {
+    return switch (configuration.threadingModel()) {
+      case CONFINED -> Arena.ofConfined();
+      case SHARED -> Arena.ofShared();
+    };
+  }
+
+  private static Supplier<RenderDocArgumentsType> createArguments(
+    final Arena arena,
+    final RenderDocConfiguration configuration)
+  {
+    return switch (configuration.threadingModel()) {
+      case CONFINED -> {
+        final var scratch =
+          new RenderDocScratchAllocator(
+            arena.allocate(configuration.scratchSize(), 8L)
+          );
+        yield () -> scratch;
+      }
+      case SHARED -> RenderDocArgumentsPerCall::new;
+    };
+  }
+
+  private static RenderDocType withThreadingModel(
+    final RenderDoc renderDoc,
+    final RenderDocConfiguration configuration)
+  {
+    return switch (configuration.threadingModel()) {
+      case CONFINED -> renderDoc;
+      case SHARED -> new RenderDocThreadSafe(renderDoc);
+    };
   }
 
   /**
-   * Try to open RenderDoc.
+   * Create a RenderDoc instance that calls the given functions instead of
+   * the RenderDoc native library.
+   *
+   * @param configuration The configuration
+   * @param functions     The functions
+   *
+   * @return The RenderDoc API
+   */
+
+  public static RenderDocType create(
+    final RenderDocConfiguration configuration,
+    final RenderDocFunctionsType functions)
+  {
+    Objects.requireNonNull(configuration, "configuration");
+    Objects.requireNonNull(functions, "functions");
+
+    final var resources =
+      createResources();
+    final var arena =
+      resources.add(createArena(configuration));
+
+    return withThreadingModel(
+      new RenderDoc(
+        resources,
+        configuration,
+        createArguments(arena, configuration),
+        functions
+      ),
+      configuration
+    );
+  }
+
+  /**
+   * Determine whether RenderDoc is injected into the current process. The
+   * check does not attempt to load the RenderDoc library, and does not
+   * initialize any of the generated bindings, so it is cheap enough to call
+   * unconditionally in processes that are not running under RenderDoc.
+   *
+   * @return {@code true} if the RenderDoc library is already loaded
+   */
+
+  public static boolean isInjected()
+  {
+    return RenderDocLibraryProbe.isRenderDocLoaded();
+  }
+
+  /**
+   * @return A RenderDoc implementation that does nothing
+   */
+
+  public static RenderDocType noop()
+  {
+    return RenderDocNoop.get();
+  }
+
+  /**
+   * Open RenderDoc using the default configuration if RenderDoc is injected
+   * into the current process, or return a no-op implementation otherwise.
+   *
+   * @return The RenderDoc API
+   *
+   * @see #openOrNoop(RenderDocConfiguration)
+   */
+
+  public static RenderDocType openOrNoop()
+  {
+    return openOrNoop(RenderDocConfiguration.defaults());
+  }
+
+  /**
+   * Open RenderDoc if RenderDoc is injected into the current process, or
+   * return a no-op implementation otherwise. The no-op implementation is
+   * also returned if RenderDoc is present but cannot be opened. When
+   * RenderDoc is absent, this method does not attempt to load the library
+   * or initialize the generated bindings.
+   *
+   * @param configuration The configuration
+   *
+   * @return The RenderDoc API
+   */
+
+  public static RenderDocType openOrNoop(
+    final RenderDocConfiguration configuration)
+  {
+    Objects.requireNonNull(configuration, "configuration");
+
+    if (!isInjected()) {
+      LOG.debug("RenderDoc is not injected; using a no-op implementation.");
+      return RenderDocNoop.get();
+    }
+
+    try {
+      return open(configuration);
+    } catch (final IOException e) {
+      LOG.debug("Unable to open RenderDoc; using a no-op implementation: ", e);
+      return RenderDocNoop.get();
+    }
+  }
+
+  /**
+   * Try to open RenderDoc using the default configuration.
    *
    * @return The RenderDoc API
    *
@@ -143,16 +255,31 @@ public final class RenderDoc implements RenderDocType
   public static RenderDocType open()
     throws IOException
   {
+    return open(RenderDocConfiguration.defaults());
+  }
+
+  /**
+   * Try to open RenderDoc.
+   *
+   * @param configuration The configuration
+   *
+   * @return The RenderDoc API
+   *
+   * @throws IOException If RenderDoc cannot be loaded
+   */
+
+  public static RenderDocType open(
+    final RenderDocConfiguration configuration)
+    throws IOException
+  {
+    Objects.requireNonNull(configuration, "configuration");
+
     final var resources =
-      CloseableCollection.create(() -> {
-        return new IOException(
-          "One or more resources could not be closed."
-        );
-      });
+      createResources();
 
     try {
       final var arena =
-        resources.add(Arena.ofConfined());
+        resources.add(createArena(configuration));
 
       LOG.trace("Looking up renderdoc library…");
       final var library =
@@ -165,10 +292,12 @@ public final class RenderDoc implements RenderDocType
             return new IOException("No RENDERDOC_GetAPI symbol found.");
           });
 
-      LOG.trace(
-        "RENDERDOC_GetAPI: 0x{}",
-        Long.toUnsignedString(getAPI.address(), 16)
-      );
+      if (LOG.isTraceEnabled()) {
+        LOG.trace(
+          "RENDERDOC_GetAPI: 0x{}",
+          Long.toUnsignedString(getAPI.address(), 16)
+        );
+      }
 
       /*
        * Allocate space for the struct that contains the API's function
@@ -211,10 +340,12 @@ public final class RenderDoc implements RenderDocType
       final var apiAddress =
         apiPtrPtr.get(JAVA_LONG, 0L);
 
-      LOG.trace(
-        "RENDERDOC_API_1_6_0: 0x{}",
-        Long.toUnsignedString(apiAddress, 16)
-      );
+      if (LOG.isTraceEnabled()) {
+        LOG.trace(
+          "RENDERDOC_API_1_6_0: 0x{}",
+          Long.toUnsignedString(apiAddress, 16)
+        );
+      }
 
       final var apiPtr =
         RENDERDOC_API_1_6_0.reinterpret(
@@ -223,10 +354,12 @@ public final class RenderDoc implements RenderDocType
           null
         );
 
-      LOG.trace(
-        "RENDERDOC_API_1_6_0: size {}",
-        Long.toUnsignedString(apiPtr.byteSize())
-      );
+      if (LOG.isTraceEnabled()) {
+        LOG.trace(
+          "RENDERDOC_API_1_6_0: size {}",
+          Long.toUnsignedString(apiPtr.byteSize())
+        );
+      }
 
       /*
        * Look up and call GetAPIVersion as a sanity check.
@@ -235,10 +368,12 @@ public final class RenderDoc implements RenderDocType
       final var getAPIVersionPtr =
         RENDERDOC_API_1_6_0.GetAPIVersion(apiPtr);
 
-      LOG.trace(
-        "RENDERDOC_GetAPIVersion: 0x{}",
-        Long.toUnsignedString(getAPIVersionPtr.address(), 16)
-      );
+      if (LOG.isTraceEnabled()) {
+        LOG.trace(
+          "RENDERDOC_GetAPIVersion: 0x{}",
+          Long.toUnsignedString(getAPIVersionPtr.address(), 16)
+        );
+      }
 
       final var majorBuf =
         arena.allocate(JAVA_INT);
@@ -258,7 +393,10 @@ public final class RenderDoc implements RenderDocType
       final var major = majorBuf.get(JAVA_INT, 0);
       final var minor = minorBuf.get(JAVA_INT, 0);
       final var patch = patchBuf.get(JAVA_INT, 0);
-      LOG.trace("Version: {}.{}.{}", major, minor, patch);
+
+      if (LOG.isTraceEnabled()) {
+        LOG.trace("Version: {}.{}.{}", major, minor, patch);
+      }
 
       if (major != 1 || minor != 6 || patch != 0) {
         throw new IOException(
@@ -268,86 +406,21 @@ public final class RenderDoc implements RenderDocType
       }
 
       /*
-       * Obtain the rest of the API.
+       * Obtain the rest of the API. Each function is linked on first use,
+       * with the function address bound into the resulting method handle.
        */
 
-      final var triggerCapturePtr =
-        RENDERDOC_API_1_6_0.TriggerCapture(apiPtr);
-      final var setCaptureOptionU32Ptr =
-        RENDERDOC_API_1_6_0.SetCaptureOptionU32(apiPtr);
-      final var setCaptureOptionF32Ptr =
-        RENDERDOC_API_1_6_0.SetCaptureOptionF32(apiPtr);
-      final var getCaptureOptionU32Ptr =
-        RENDERDOC_API_1_6_0.GetCaptureOptionU32(apiPtr);
-      final var getCaptureOptionF32Ptr =
-        RENDERDOC_API_1_6_0.GetCaptureOptionF32(apiPtr);
-      final var setCaptureFilePathTemplatePtr =
-        RENDERDOC_API_1_6_0.SetCaptureFilePathTemplate(apiPtr);
-      final var getCaptureFilePathTemplatePtr =
-        RENDERDOC_API_1_6_0.GetCaptureFilePathTemplate(apiPtr);
-      final var getNumCapturesPtr =
-        RENDERDOC_API_1_6_0.GetNumCaptures(apiPtr);
-
-      LOG.trace(
-        "RENDERDOC_TriggerCapture: 0x{}",
-        Long.toUnsignedString(triggerCapturePtr.address(), 16)
-      );
-      LOG.trace(
-        "RENDERDOC_SetCaptureOptionU32: 0x{}",
-        Long.toUnsignedString(setCaptureOptionU32Ptr.address(), 16)
-      );
-      LOG.trace(
-        "RENDERDOC_SetCaptureOptionF32: 0x{}",
-        Long.toUnsignedString(setCaptureOptionF32Ptr.address(), 16)
-      );
-      LOG.trace(
-        "RENDERDOC_GetCaptureOptionU32: 0x{}",
-        Long.toUnsignedString(getCaptureOptionU32Ptr.address(), 16)
-      );
-      LOG.trace(
-        "RENDERDOC_GetCaptureOptionF32: 0x{}",
-        Long.toUnsignedString(getCaptureOptionF32Ptr.address(), 16)
-      );
-      LOG.trace(
-        "RENDERDOC_SetCaptureFilePathTemplate: 0x{}",
-        Long.toUnsignedString(setCaptureFilePathTemplatePtr.address(), 16)
-      );
-      LOG.trace(
-        "RENDERDOC_GetCaptureFilePathTemplate: 0x{}",
-        Long.toUnsignedString(getCaptureFilePathTemplatePtr.address(), 16)
-      );
-      LOG.trace(
-        "RENDERDOC_GetNumCaptures: 0x{}",
-        Long.toUnsignedString(getNumCapturesPtr.address(), 16)
-      );
-
-      final var triggerCapture =
-        new TriggerCapture(triggerCapturePtr);
-      final var setCaptureOptionU32 =
-        new SetCaptureOptionU32(setCaptureOptionU32Ptr);
-      final var setCaptureOptionF32 =
-        new SetCaptureOptionF32(setCaptureOptionF32Ptr);
-      final var getCaptureOptionU32 =
-        new GetCaptureOptionU32(getCaptureOptionU32Ptr);
-      final var getCaptureOptionF32 =
-        new GetCaptureOptionF32(getCaptureOptionF32Ptr);
-      final var setCaptureFilePathTemplate =
-        new SetCaptureFilePathTemplate(arena, setCaptureFilePathTemplatePtr);
-      final var getCaptureFilePathTemplate =
-        new GetCaptureFilePathTemplate(arena, getCaptureFilePathTemplatePtr);
-      final var getNumCaptures =
-        new GetNumCaptures(getNumCapturesPtr);
-
-      return new RenderDoc(
-        resources,
-        triggerCapture,
-        setCaptureOptionU32,
-        setCaptureOptionF32,
-        getCaptureOptionU32,
-        getCaptureOptionF32,
-        setCaptureFilePathTemplate,
-        getCaptureFilePathTemplate,
-        getNumCaptures
+      return withThreadingModel(
+        new RenderDoc(
+          resources,
+          configuration,
+          createArguments(arena, configuration),
+          RenderDocNativeFunctions.create(
+            apiPtr,
+            configuration.criticalGetters()
+          )
+        ),
+        configuration
       );
     } catch (final Throwable e) {
       resources.close();
@@ -355,130 +428,111 @@ public final class RenderDoc implements RenderDocType
     }
   }
 
-  private record SetCaptureFilePathTemplate(
-    Arena arena,
-    MemorySegment address)
+  @Override
+  public void triggerCapture()
   {
-    void call(
-      final Path file)
-    {
-      pRENDERDOC_SetCaptureFilePathTemplate.invoke(
-        this.address,
-        this.arena.allocateFrom(file.toString())
-      );
-    }
+    this.checkNotClosed();
+    LOG.trace("Triggering capture…");
+    this.functions.triggerCapture();
   }
 
-  private record GetCaptureFilePathTemplate(
-    Arena arena,
-    MemorySegment address)
+  @Override
+  public CompletableFuture<RenderDocCaptureInfo> triggerCaptureAsync()
   {
-    Optional<Path> call()
-    {
-      final var r =
-        pRENDERDOC_GetCaptureFilePathTemplate.invoke(this.address);
-
-      return Optional.ofNullable(r.getString(0L))
-        .map(Paths::get);
-    }
+    return this.triggerCaptureAsync(this.captureTimeout);
   }
 
-  private record TriggerCapture(
-    MemorySegment address)
+  @Override
+  public CompletableFuture<RenderDocCaptureInfo> triggerCaptureAsync(
+    final Duration timeout)
   {
-    void call()
-    {
-      pRENDERDOC_TriggerCapture.invoke(this.address);
-    }
+    Objects.requireNonNull(timeout, "timeout");
+
+    this.checkNotClosed();
+    final var completion = RenderDocCaptureCompletion.expect(this);
+    LOG.trace("Triggering capture asynchronously…");
+    this.functions.triggerCapture();
+    return completion.await(timeout);
   }
 
-  private record SetCaptureOptionU32(
-    MemorySegment address)
+  @Override
+  public void triggerMultiFrameCapture(
+    final int frames)
   {
-    void call(
-      final int option,
-      final int value)
-    {
-      pRENDERDOC_SetCaptureOptionU32.invoke(
-        this.address,
-        option,
-        value
+    if (frames < 1) {
+      throw new IllegalArgumentException(
+        "Frame count %d must be at least 1.".formatted(Integer.valueOf(frames))
       );
     }
+    this.checkNotClosed();
+    this.functions.triggerMultiFrameCapture(frames);
   }
 
-  private record SetCaptureOptionF32(
-    MemorySegment address)
+  @Override
+  public long numberOfCaptures()
   {
-    void call(
-      final int option,
-      final float value)
-    {
-      pRENDERDOC_SetCaptureOptionF32.invoke(
-        this.address,
-        option,
-        value
-      );
-    }
+    this.checkNotClosed();
+    return Integer.toUnsignedLong(this.functions.getNumCaptures());
   }
 
-  private record GetCaptureOptionU32(
-    MemorySegment address)
+  @Override
+  public List<RenderDocCaptureInfo> captures()
   {
-    int call(
-      final int option)
-    {
-      return pRENDERDOC_GetCaptureOptionU32.invoke(
-        this.address,
-        option
-      );
-    }
+    return this.capturesSince(0);
   }
 
-  private record GetCaptureOptionF32(
-    MemorySegment address)
+  @Override
+  public List<RenderDocCaptureInfo> capturesSince(
+    final int index)
   {
-    float call(
-      final int option)
-    {
-      return pRENDERDOC_GetCaptureOptionF32.invoke(
-        this.address,
-        option
+    if (index < 0) {
+      throw new IllegalArgumentException(
+        "Capture index %d must be non-negative."
+          .formatted(Integer.valueOf(index))
       );
     }
+    this.checkNotClosed();
+    return this.captureBuffer.capturesFrom(index);
   }
 
-  private record GetNumCaptures(
-    MemorySegment address)
+  @Override
+  public Optional<RenderDocCaptureInfo> capture(
+    final int index)
   {
-    long call()
-    {
-      return pRENDERDOC_GetNumCaptures.invoke(
-        this.address
-      );
+    if (index < 0) {
+      return Optional.empty();
     }
+    this.checkNotClosed();
+    return this.captureBuffer.capture(index);
   }
 
   @Override
-  public void triggerCapture()
+  public boolean isFrameCapturing()
   {
     this.checkNotClosed();
-    LOG.trace("Triggering capture…");
-    this.triggerCapture.call();
+    return this.functions.isFrameCapturing() == 1;
   }
 
   @Override
-  public long numberOfCaptures()
+  public RenderDocFrameCaptureScope startFrameCapture(
+    final RenderDocDevicePointer device,
+    final RenderDocWindowHandle window)
   {
     this.checkNotClosed();
-    return this.getNumCaptures.call();
+    return this.frameCaptureScope.start(device, window);
   }
 
   @Override
   public Optional<Path> captureFilePathTemplate()
   {
     this.checkNotClosed();
-    return this.getCaptureFilePathTemplate.call();
+    final var r =
+      this.functions.getCaptureFilePathTemplate();
+
+    if (MemorySegment.NULL.equals(r)) {
+      return Optional.empty();
+    }
+    return Optional.of(Paths.get(r.getString(0L)));
   }
 
   @Override
@@ -487,161 +541,230 @@ public final class RenderDoc implements RenderDocType
   {
     Objects.requireNonNull(file, "file");
     this.checkNotClosed();
-    this.setCaptureFilePathTemplate.call(file);
+    try (var args = this.arguments.get()) {
+      this.functions.setCaptureFilePathTemplate(
+        args.allocateFrom(file.toString())
+      );
+    }
   }
 
   @Override
-  public void setOption(
-    final RenderDocOptionType option)
+  public void setCaptureTitle(
+    final String title)
   {
-    Objects.requireNonNull(option, "option");
+    Objects.requireNonNull(title, "title");
+    this.checkNotClosed();
 
-    switch (option) {
-      case final APIValidation o -> {
-        this.setCaptureOptionU32.call(
-          eRENDERDOC_Option_APIValidation(),
-          o.enabled() ? 1 : 0
-        );
-      }
-      case final AllowFullscreen o -> {
-        this.setCaptureOptionU32.call(
-          eRENDERDOC_Option_AllowFullscreen(),
-          o.allow() ? 1 : 0
-        );
-      }
-      case final AllowVSync o -> {
-        this.setCaptureOptionU32.call(
-          eRENDERDOC_Option_AllowVSync(),
-          o.allow() ? 1 : 0
-        );
-      }
-      case final CaptureAllCmdLists o -> {
-        this.setCaptureOptionU32.call(
-          eRENDERDOC_Option_CaptureAllCmdLists(),
-          o.enabled() ? 1 : 0
-        );
-      }
-      case final CaptureCallstacks o -> {
-        this.setCaptureOptionU32.call(
-          eRENDERDOC_Option_CaptureCallstacks(),
-          o.enabled() ? 1 : 0
-        );
-      }
-      case final CaptureCallstacksOnlyActions o -> {
-        this.setCaptureOptionU32.call(
-          eRENDERDOC_Option_CaptureCallstacksOnlyActions(),
-          o.enabled() ? 1 : 0
-        );
-      }
-      case final DebugOutputMute o -> {
-        this.setCaptureOptionU32.call(
-          eRENDERDOC_Option_DebugOutputMute(),
-          o.enabled() ? 1 : 0
-        );
-      }
-      case final DelayForDebugger o -> {
-        this.setCaptureOptionU32.call(
-          eRENDERDOC_Option_DelayForDebugger(),
-          o.seconds()
-        );
-      }
-      case final HookIntoChildren o -> {
-        this.setCaptureOptionU32.call(
-          eRENDERDOC_Option_HookIntoChildren(),
-          o.enabled() ? 1 : 0
-        );
-      }
-      case final RefAllResources o -> {
-        this.setCaptureOptionU32.call(
-          eRENDERDOC_Option_RefAllResources(),
-          o.enabled() ? 1 : 0
-        );
-      }
-      case final SoftMemoryLimit o -> {
-        this.setCaptureOptionU32.call(
-          eRENDERDOC_Option_SoftMemoryLimit(),
-          o.megabytes()
-        );
-      }
-      case final VerifyBufferAccess o -> {
-        this.setCaptureOptionU32.call(
-          eRENDERDOC_Option_VerifyBufferAccess(),
-          o.enabled() ? 1 : 0
-        );
-      }
+    try (var args = this.arguments.get()) {
+      this.functions.setCaptureTitle(
+        args.allocateFrom(title)
+      );
     }
   }
 
   @Override
-  public <T extends RenderDocOptionType> T option(
-    final Class<T> option)
+  public void setCaptureFileComments(
+    final Path file,
+    final String comments)
   {
-    Objects.requireNonNull(option, "option");
+    Objects.requireNonNull(file, "file");
+    Objects.requireNonNull(comments, "comments");
+    this.checkNotClosed();
 
-    if (Objects.equals(option, APIValidation.class)) {
-      return (T) new APIValidation(
-        this.getCaptureOptionU32.call(eRENDERDOC_Option_APIValidation()) == 1
-      );
-    }
-    if (Objects.equals(option, AllowFullscreen.class)) {
-      return (T) new AllowFullscreen(
-        this.getCaptureOptionU32.call(eRENDERDOC_Option_AllowFullscreen()) == 1
-      );
-    }
-    if (Objects.equals(option, AllowVSync.class)) {
-      return (T) new AllowFullscreen(
-        this.getCaptureOptionU32.call(eRENDERDOC_Option_AllowVSync()) == 1
+    try (var args = this.arguments.get()) {
+      this.functions.setCaptureFileComments(
+        args.allocateFrom(file.toString()),
+        args.allocateFrom(comments)
       );
     }
-    if (Objects.equals(option, CaptureAllCmdLists.class)) {
-      return (T) new CaptureAllCmdLists(
-        this.getCaptureOptionU32.call(eRENDERDOC_Option_CaptureAllCmdLists()) == 1
-      );
-    }
-    if (Objects.equals(option, CaptureCallstacks.class)) {
-      return (T) new CaptureCallstacks(
-        this.getCaptureOptionU32.call(eRENDERDOC_Option_CaptureCallstacks()) == 1
-      );
-    }
-    if (Objects.equals(option, CaptureCallstacksOnlyActions.class)) {
-      return (T) new CaptureCallstacksOnlyActions(
-        this.getCaptureOptionU32.call(
-          eRENDERDOC_Option_CaptureCallstacksOnlyActions()) == 1
+  }
+
+  @Override
+  public void setLatestCaptureFileComments(
+    final String comments)
+  {
+    Objects.requireNonNull(comments, "comments");
+    this.checkNotClosed();
+
+    try (var args = this.arguments.get()) {
+      this.functions.setCaptureFileComments(
+        MemorySegment.NULL,
+        args.allocateFrom(comments)
       );
     }
-    if (Objects.equals(option, DebugOutputMute.class)) {
-      return (T) new DebugOutputMute(
-        this.getCaptureOptionU32.call(eRENDERDOC_Option_DebugOutputMute()) == 1
-      );
+  }
+
+  @Override
+  public void setOption(
+    final RenderDocOptionType option)
+  {
+    Objects.requireNonNull(option, "option");
+
+    this.setOptionU32(
+      RenderDocOptionKeys.keyOf(option.getClass()),
+      RenderDocOptionKeys.encode(option)
+    );
+  }
+
+  @Override
+  public boolean setOptionU32(
+    final RenderDocOptionKey key,
+    final int value)
+  {
+    Objects.requireNonNull(key, "key");
+    this.checkNotClosed();
+
+    final var accepted =
+      this.functions.setCaptureOptionU32(
+        RenderDocOptionKeys.nativeKey(key),
+        value
+      ) == 1;
+
+    if (accepted) {
+      this.refreshOption(key);
     }
-    if (Objects.equals(option, DelayForDebugger.class)) {
-      return (T) new DelayForDebugger(
-        this.getCaptureOptionU32.call(eRENDERDOC_Option_DelayForDebugger())
-      );
+    return accepted;
+  }
+
+  @Override
+  public boolean setOptionF32(
+    final RenderDocOptionKey key,
+    final float value)
+  {
+    Objects.requireNonNull(key, "key");
+    this.checkNotClosed();
+
+    final var accepted =
+      this.functions.setCaptureOptionF32(
+        RenderDocOptionKeys.nativeKey(key),
+        value
+      ) == 1;
+
+    if (accepted) {
+      this.refreshOption(key);
     }
-    if (Objects.equals(option, HookIntoChildren.class)) {
-      return (T) new HookIntoChildren(
-        this.getCaptureOptionU32.call(eRENDERDOC_Option_HookIntoChildren()) == 1
-      );
+    return accepted;
+  }
+
+  @Override
+  public int optionU32(
+    final RenderDocOptionKey key)
+  {
+    Objects.requireNonNull(key, "key");
+    this.checkNotClosed();
+    this.cacheOption(key);
+    return this.optionsU32[key.ordinal()];
+  }
+
+  @Override
+  public float optionF32(
+    final RenderDocOptionKey key)
+  {
+    Objects.requireNonNull(key, "key");
+    this.checkNotClosed();
+    this.cacheOption(key);
+    return this.optionsF32[key.ordinal()];
+  }
+
+  @Override
+  public void refreshOptions()
+  {
+    this.checkNotClosed();
+    this.optionsCached = 0L;
+  }
+
+  @Override
+  public RenderDocOptionProfile optionProfile()
+  {
+    this.checkNotClosed();
+    this.cacheOptions();
+    return RenderDocOptionProfile.ofValues(this.optionsU32);
+  }
+
+  @Override
+  public boolean applyOptionProfile(
+    final RenderDocOptionProfile profile)
+  {
+    Objects.requireNonNull(profile, "profile");
+    this.checkNotClosed();
+    this.cacheOptions();
+
+    final var keys = RenderDocOptionKey.values();
+    System.arraycopy(
+      this.optionsU32, 0, this.optionsSaved, 0, this.optionsSaved.length);
+
+    for (final var key : keys) {
+      final var index = key.ordinal();
+      final var value = profile.valueU32(key);
+      if (this.optionsU32[index] == value) {
+        continue;
+      }
+      if (!this.setOptionU32(key, value)) {
+        this.rollbackOptions(index);
+        return false;
+      }
     }
-    if (Objects.equals(option, RefAllResources.class)) {
-      return (T) new RefAllResources(
-        this.getCaptureOptionU32.call(eRENDERDOC_Option_RefAllResources()) == 1
-      );
+    return true;
+  }
+
+  private void rollbackOptions(
+    final int failedIndex)
+  {
+    final var keys = RenderDocOptionKey.values();
+    for (int index = 0; index < failedIndex; ++index) {
+      final var saved = this.optionsSaved[index];
+      if (this.optionsU32[index] != saved) {
+        this.setOptionU32(keys[index], saved);
+      }
     }
-    if (Objects.equals(option, SoftMemoryLimit.class)) {
-      return (T) new SoftMemoryLimit(
-        this.getCaptureOptionU32.call(eRENDERDOC_Option_SoftMemoryLimit())
-      );
+  }
+
+  /*
+   * Each option is read from RenderDoc the first time it is read through
+   * this API, rather than when RenderDoc is opened, so that opening does not
+   * link the option getters or call them for options that are never read.
+   */
+
+  private void cacheOption(
+    final RenderDocOptionKey key)
+  {
+    if ((this.optionsCached & (1L << key.ordinal())) == 0L) {
+      this.refreshOption(key);
     }
-    if (Objects.equals(option, VerifyBufferAccess.class)) {
-      return (T) new VerifyBufferAccess(
-        this.getCaptureOptionU32.call(eRENDERDOC_Option_VerifyBufferAccess()) == 1
-      );
+  }
+
+  private void cacheOptions()
+  {
+    for (final var key : RenderDocOptionKey.values()) {
+      this.cacheOption(key);
     }
+  }
+
+  /*
+   * Options are read back from RenderDoc after being set, rather than
+   * recording the value that was passed in, because RenderDoc normalizes
+   * some values (boolean options store any nonzero value as 1, for example).
+   */
+
+  private void refreshOption(
+    final RenderDocOptionKey key)
+  {
+    final var nativeKey = RenderDocOptionKeys.nativeKey(key);
+    final var index = key.ordinal();
+    this.optionsU32[index] = this.functions.getCaptureOptionU32(nativeKey);
+    this.optionsF32[index] = this.functions.getCaptureOptionF32(nativeKey);
+    this.optionsCached |= 1L << index;
+  }
+
+  @Override
+  public <T extends RenderDocOptionType> T option(
+    final Class<T> option)
+  {
+    Objects.requireNonNull(option, "option");
 
-    throw new IllegalArgumentException(
-      "Unrecognized option class: %s".formatted(option)
+    final var key = RenderDocOptionKeys.keyOf(option);
+    return option.cast(
+      RenderDocOptionKeys.decode(key, this.optionU32(key))
     );
   }
 
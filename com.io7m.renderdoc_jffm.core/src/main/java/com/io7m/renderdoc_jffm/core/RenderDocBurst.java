@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+/**
+ * A burst of consecutive frame captures issued by a
+ * {@link RenderDocBurstScheduler}. The captures of a burst have the
+ * capture indices {@code [firstCaptureIndex, firstCaptureIndex + frames)},
+ * as observed after the burst was issued.
+ *
+ * @param id                The burst ID, unique to the scheduler
+ * @param frames            The number of frames captured
+ * @param firstCaptureIndex The index of the first capture of the burst
+ * @param requests          The number of requests coalesced into the burst
+ */
+
+public record RenderDocBurst(
+  long id,
+  int frames,
+  long firstCaptureIndex,
+  int requests)
+{
+  /**
+   * @param captureIndex A capture index
+   *
+   * @return {@code true} if the capture belongs to this burst
+   */
+
+  public boolean contains(
+    final long captureIndex)
+  {
+    return captureIndex >= this.firstCaptureIndex
+           && captureIndex < this.firstCaptureIndex + this.frames;
+  }
+}
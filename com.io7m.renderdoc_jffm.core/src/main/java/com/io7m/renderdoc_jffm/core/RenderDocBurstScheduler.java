@@ -0,0 +1,288 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A scheduler for bursts of consecutive frame captures, built on
+ * {@code TriggerMultiFrameCapture}.
+ *
+ * Bursts may be requested from any thread. Requests are queued, and are
+ * issued from {@link #onFrameBoundary(long)} on the render thread. All of
+ * the requests that are pending at a frame boundary are coalesced into a
+ * single native call, capturing the largest number of frames requested.
+ * A burst is not issued while the frames of the previous burst are still
+ * being captured, nor until the minimum interval has elapsed since the
+ * previous burst was issued.
+ *
+ * The captures that belong to a burst are identified from the captures
+ * that actually appear after the burst is issued, rather than predicted
+ * from the number of captures that existed beforehand (see
+ * {@link RenderDocCaptureMatcher}). The futures returned by
+ * {@link #requestBurst(int)} are therefore completed a frame or two after
+ * the burst's last frame is captured. If captures from other sources (such
+ * as the RenderDoc UI or another trigger) appear among the burst's
+ * captures, the burst's captures cannot be told apart from them, and the
+ * futures are completed exceptionally instead.
+ */
+
+public final class RenderDocBurstScheduler
+  implements RenderDocFrameHookType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(RenderDocBurstScheduler.class);
+
+  /**
+   * The maximum number of frame boundaries after a burst's last frame
+   * within which its captures must appear.
+   */
+
+  private static final int BURST_FRAMES_MAXIMUM = 600;
+
+  private final RenderDocType renderDoc;
+  private final long minimumIntervalNanos;
+  private final ConcurrentLinkedQueue<Pending> pending;
+  private final RenderDocCaptureMatcher<Issued> matcher;
+  private final IssuedListener listener;
+  private final AtomicLong requestsReceived;
+  private final AtomicLong burstsIssued;
+  private long burstIdNext;
+  private long lastIssueNanos;
+  private boolean issuedAny;
+  private int framesRemaining;
+
+  private record Pending(
+    int frames,
+    CompletableFuture<RenderDocBurst> future)
+  {
+
+  }
+
+  private record Issued(
+    long id,
+    int frames,
+    Pending[] requests,
+    int requestCount)
+  {
+
+  }
+
+  private static final class IssuedListener
+    implements RenderDocCaptureMatcher.ListenerType<Issued>
+  {
+    IssuedListener()
+    {
+
+    }
+
+    @Override
+    public void onMatched(
+      final Issued issued,
+      final RenderDocCaptureInfo capture)
+    {
+      final var burst =
+        new RenderDocBurst(
+          issued.id,
+          issued.frames,
+          capture.index(),
+          issued.requestCount
+        );
+
+      for (int index = 0; index < issued.requestCount; ++index) {
+        issued.requests[index].future.complete(burst);
+      }
+    }
+
+    @Override
+    public void onAbandoned(
+      final Issued issued)
+    {
+      LOG.debug(
+        "Captures of burst {} could not be identified.",
+        Long.valueOf(issued.id)
+      );
+
+      final var e = new IllegalStateException(
+        "The captures of burst %d could not be identified."
+          .formatted(Long.valueOf(issued.id))
+      );
+      for (int index = 0; index < issued.requestCount; ++index) {
+        issued.requests[index].future.completeExceptionally(e);
+      }
+    }
+  }
+
+  private RenderDocBurstScheduler(
+    final RenderDocType inRenderDoc,
+    final long inMinimumIntervalNanos)
+  {
+    this.renderDoc =
+      Objects.requireNonNull(inRenderDoc, "renderDoc");
+    this.minimumIntervalNanos =
+      inMinimumIntervalNanos;
+    this.pending =
+      new ConcurrentLinkedQueue<>();
+    this.matcher =
+      new RenderDocCaptureMatcher<>(inRenderDoc, BURST_FRAMES_MAXIMUM);
+    this.listener =
+      new IssuedListener();
+    this.requestsReceived =
+      new AtomicLong();
+    this.burstsIssued =
+      new AtomicLong();
+  }
+
+  /**
+   * Create a burst scheduler.
+   *
+   * @param renderDoc       The RenderDoc API
+   * @param minimumInterval The minimum time between the starts of bursts
+   *
+   * @return A scheduler
+   */
+
+  public static RenderDocBurstScheduler create(
+    final RenderDocType renderDoc,
+    final Duration minimumInterval)
+  {
+    Objects.requireNonNull(minimumInterval, "minimumInterval");
+
+    if (minimumInterval.isNegative()) {
+      throw new IllegalArgumentException(
+        "Minimum interval %s must be non-negative.".formatted(minimumInterval)
+      );
+    }
+    return new RenderDocBurstScheduler(renderDoc, minimumInterval.toNanos());
+  }
+
+  /**
+   * Request a burst of consecutive frame captures. This method may be
+   * called from any thread.
+   *
+   * @param frames The number of frames, which must be at least 1
+   *
+   * @return A future that is completed when the captures of the burst have
+   * been identified
+   */
+
+  public CompletableFuture<RenderDocBurst> requestBurst(
+    final int frames)
+  {
+    if (frames < 1) {
+      throw new IllegalArgumentException(
+        "Frame count %d must be at least 1.".formatted(Integer.valueOf(frames))
+      );
+    }
+
+    final var future = new CompletableFuture<RenderDocBurst>();
+    this.requestsReceived.incrementAndGet();
+    this.pending.add(new Pending(frames, future));
+    return future;
+  }
+
+  @Override
+  public void onFrameBoundary(
+    final long timeNanos)
+  {
+    this.matcher.poll(this.listener);
+
+    if (this.framesRemaining > 0) {
+      --this.framesRemaining;
+      return;
+    }
+
+    if (this.pending.isEmpty()) {
+      return;
+    }
+
+    if (this.issuedAny
+        && timeNanos - this.lastIssueNanos < this.minimumIntervalNanos) {
+      return;
+    }
+
+    this.issue(timeNanos);
+  }
+
+  private void issue(
+    final long timeNanos)
+  {
+    /*
+     * Only the requests present now are drained, so that requests arriving
+     * concurrently are left for the next burst rather than completed with a
+     * burst that may not cover them.
+     */
+
+    var frames = 0;
+    var requests = 0;
+    final var drained = new Pending[this.pending.size()];
+    for (int index = 0; index < drained.length; ++index) {
+      final var request = this.pending.poll();
+      if (request == null) {
+        break;
+      }
+      drained[index] = request;
+      frames = Math.max(frames, request.frames);
+      ++requests;
+    }
+
+    final var issued =
+      new Issued(this.burstIdNext, frames, drained, requests);
+
+    try {
+      this.matcher.expect(issued, frames);
+      this.renderDoc.triggerMultiFrameCapture(frames);
+    } catch (final RuntimeException e) {
+      for (int index = 0; index < requests; ++index) {
+        drained[index].future.completeExceptionally(e);
+      }
+      throw e;
+    }
+
+    this.burstIdNext = this.burstIdNext + 1L;
+    this.issuedAny = true;
+    this.lastIssueNanos = timeNanos;
+    this.framesRemaining = frames;
+    this.burstsIssued.incrementAndGet();
+  }
+
+  /**
+   * @return The number of burst requests received
+   */
+
+  public long requestsReceived()
+  {
+    return this.requestsReceived.get();
+  }
+
+  /**
+   * @return The number of bursts issued
+   */
+
+  public long burstsIssued()
+  {
+    return this.burstsIssued.get();
+  }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+
+/**
+ * The native memory used to retrieve capture information with
+ * {@code GetCapture}.
+ *
+ * The file name buffer grows as needed and is reused between calls, as are
+ * the length and timestamp cells, so polling for captures does not
+ * allocate any native memory once the buffer is large enough. The memory
+ * is allocated in a shared arena and guarded by a lock, so captures may
+ * be listed from any thread.
+ */
+
+final class RenderDocCaptureBuffer implements AutoCloseable
+{
+  private static final long INITIAL_SIZE = 256L;
+
+  private final RenderDocFunctionsType functions;
+  private final ReentrantLock lock;
+  private final Arena cellArena;
+  private final MemorySegment pathLength;
+  private final MemorySegment timestamp;
+  private Arena fileArena;
+  private MemorySegment file;
+  private boolean closed;
+
+  RenderDocCaptureBuffer(
+    final RenderDocFunctionsType inFunctions)
+  {
+    this.functions =
+      Objects.requireNonNull(inFunctions, "functions");
+    this.lock =
+      new ReentrantLock();
+    this.cellArena =
+      Arena.ofShared();
+    this.pathLength =
+      this.cellArena.allocate(JAVA_INT);
+    this.timestamp =
+      this.cellArena.allocate(JAVA_LONG);
+    this.fileArena =
+      Arena.ofShared();
+    this.file =
+      this.fileArena.allocate(INITIAL_SIZE);
+  }
+
+  /**
+   * @param index The capture index
+   *
+   * @return The capture with the given index, if it exists
+   */
+
+  Optional<RenderDocCaptureInfo> capture(
+    final int index)
+  {
+    this.lock.lock();
+    try {
+      this.checkNotClosed();
+      return Optional.ofNullable(this.fetch(index));
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * @param start The first capture index
+   *
+   * @return The captures with indices from {@code start} onwards
+   */
+
+  List<RenderDocCaptureInfo> capturesFrom(
+    final int start)
+  {
+    this.lock.lock();
+    try {
+      this.checkNotClosed();
+
+      final var count =
+        Integer.toUnsignedLong(this.functions.getNumCaptures());
+      if (start >= count) {
+        return List.of();
+      }
+
+      final var results =
+        new ArrayList<RenderDocCaptureInfo>((int) (count - start));
+
+      for (int index = start; index < count; ++index) {
+        final var info = this.fetch(index);
+        if (info == null) {
+          break;
+        }
+        results.add(info);
+      }
+      return List.copyOf(results);
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  private RenderDocCaptureInfo fetch(
+    final int index)
+  {
+    /*
+     * GetCapture writes the file name without any bounds checking, so the
+     * length has to be queried first.
+     */
+
+    final var exists =
+      this.functions.getCapture(
+        index,
+        MemorySegment.NULL,
+        this.pathLength,
+        MemorySegment.NULL
+      );
+
+    if (exists != 1) {
+      return null;
+    }
+
+    this.ensureCapacity(
+      Integer.toUnsignedLong(this.pathLength.get(JAVA_INT, 0L))
+    );
+
+    final var filled =
+      this.functions.getCapture(
+        index,
+        this.file,
+        this.pathLength,
+        this.timestamp
+      );
+
+    if (filled != 1) {
+      return null;
+    }
+
+    return new RenderDocCaptureInfo(
+      index,
+      Paths.get(this.file.getString(0L)),
+      Instant.ofEpochSecond(this.timestamp.get(JAVA_LONG, 0L))
+    );
+  }
+
+  private void ensureCapacity(
+    final long size)
+  {
+    if (size <= this.file.byteSize()) {
+      return;
+    }
+
+    var newSize = this.file.byteSize();
+    while (newSize < size) {
+      newSize = newSize * 2L;
+    }
+
+    this.fileArena.close();
+    this.fileArena = Arena.ofShared();
+    this.file = this.fileArena.allocate(newSize);
+  }
+
+  private void checkNotClosed()
+  {
+    if (this.closed) {
+      throw new IllegalStateException("RenderDoc is closed.");
+    }
+  }
+
+  @Override
+  public void close()
+  {
+    this.lock.lock();
+    try {
+      if (!this.closed) {
+        this.closed = true;
+        this.fileArena.close();
+        this.cellArena.close();
+      }
+    } finally {
+      this.lock.unlock();
+    }
+  }
+}
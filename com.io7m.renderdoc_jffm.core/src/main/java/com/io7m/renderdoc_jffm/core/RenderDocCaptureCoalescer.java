@@ -0,0 +1,264 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A capture trigger that merges capture requests from any number of
+ * threads into a single call to {@code TriggerCapture}.
+ *
+ * Requests are pushed onto a lock-free stack, so requesting threads never
+ * block. At a frame boundary at which requests are pending, a coalescing
+ * window opens; when the window has elapsed (immediately, for a zero
+ * window), all pending requests are taken and a single capture is
+ * triggered. Once the capture has been observed to appear, its comments
+ * are set to list the reasons given by the requests that it satisfied.
+ * Captures are matched to triggers by observation rather than by
+ * predicting capture indices, so captures made by other sources do not
+ * receive these comments; if a capture cannot be identified, its comments
+ * are abandoned.
+ */
+
+public final class RenderDocCaptureCoalescer
+  implements RenderDocFrameHookType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(RenderDocCaptureCoalescer.class);
+
+  /**
+   * The number of frame boundaries after which comments for a capture that
+   * has not appeared are abandoned.
+   */
+
+  private static final int COMMENT_FRAMES_MAXIMUM = 600;
+
+  /**
+   * The maximum number of distinct reasons listed in the comments.
+   */
+
+  private static final int REASONS_MAXIMUM = 64;
+
+  private final RenderDocType renderDoc;
+  private final long windowNanos;
+  private final AtomicReference<Request> requests;
+  private final AtomicLong requestsReceived;
+  private final AtomicLong capturesTriggered;
+  private final RenderDocCaptureMatcher<String> comments;
+  private final CommentsListener commentsListener;
+  private boolean windowOpen;
+  private long windowStartNanos;
+
+  private record Request(
+    String reason,
+    Request next)
+  {
+
+  }
+
+  private static final class CommentsListener
+    implements RenderDocCaptureMatcher.ListenerType<String>
+  {
+    private final RenderDocType renderDoc;
+
+    CommentsListener(
+      final RenderDocType inRenderDoc)
+    {
+      this.renderDoc = inRenderDoc;
+    }
+
+    @Override
+    public void onMatched(
+      final String text,
+      final RenderDocCaptureInfo capture)
+    {
+      this.renderDoc.setCaptureFileComments(capture.file(), text);
+    }
+
+    @Override
+    public void onAbandoned(
+      final String text)
+    {
+      LOG.debug("Capture could not be identified; discarding comments.");
+    }
+  }
+
+  private RenderDocCaptureCoalescer(
+    final RenderDocType inRenderDoc,
+    final long inWindowNanos)
+  {
+    this.renderDoc =
+      Objects.requireNonNull(inRenderDoc, "renderDoc");
+    this.windowNanos =
+      inWindowNanos;
+    this.requests =
+      new AtomicReference<>();
+    this.requestsReceived =
+      new AtomicLong();
+    this.capturesTriggered =
+      new AtomicLong();
+    this.comments =
+      new RenderDocCaptureMatcher<>(inRenderDoc, COMMENT_FRAMES_MAXIMUM);
+    this.commentsListener =
+      new CommentsListener(inRenderDoc);
+  }
+
+  /**
+   * Create a coalescer.
+   *
+   * @param renderDoc The RenderDoc API
+   * @param window    The coalescing window; {@link Duration#ZERO} merges
+   *                  only the requests made within a single frame
+   *
+   * @return A coalescer
+   */
+
+  public static RenderDocCaptureCoalescer create(
+    final RenderDocType renderDoc,
+    final Duration window)
+  {
+    Objects.requireNonNull(window, "window");
+
+    if (window.isNegative()) {
+      throw new IllegalArgumentException(
+        "Window %s must be non-negative.".formatted(window)
+      );
+    }
+    return new RenderDocCaptureCoalescer(renderDoc, window.toNanos());
+  }
+
+  /**
+   * Request a capture. This method may be called from any thread, and
+   * never blocks.
+   *
+   * @param reason A human-readable reason for the capture
+   */
+
+  public void requestCapture(
+    final String reason)
+  {
+    Objects.requireNonNull(reason, "reason");
+
+    this.requestsReceived.incrementAndGet();
+    while (true) {
+      final var head = this.requests.get();
+      if (this.requests.compareAndSet(head, new Request(reason, head))) {
+        return;
+      }
+    }
+  }
+
+  @Override
+  public void onFrameBoundary(
+    final long timeNanos)
+  {
+    this.comments.poll(this.commentsListener);
+
+    if (this.requests.get() == null) {
+      return;
+    }
+
+    if (!this.windowOpen) {
+      this.windowOpen = true;
+      this.windowStartNanos = timeNanos;
+    }
+    if (timeNanos - this.windowStartNanos < this.windowNanos) {
+      return;
+    }
+
+    this.windowOpen = false;
+    this.trigger(this.requests.getAndSet(null));
+  }
+
+  private void trigger(
+    final Request taken)
+  {
+    final var text = new StringBuilder(128);
+    text.append("Capture requested by:");
+    appendReasons(text, taken);
+
+    this.comments.expect(text.toString());
+    this.renderDoc.triggerCapture();
+    this.capturesTriggered.incrementAndGet();
+  }
+
+  /**
+   * Append the reasons in the order in which they were first requested;
+   * the stack holds the most recent request first. Repeated reasons are
+   * listed once with a count, and the number of distinct reasons listed is
+   * limited so that the comments remain a reasonable size.
+   */
+
+  private static void appendReasons(
+    final StringBuilder text,
+    final Request taken)
+  {
+    final var reasons = new ArrayDeque<String>();
+    for (var request = taken; request != null; request = request.next) {
+      reasons.push(request.reason);
+    }
+
+    final var counts = new LinkedHashMap<String, Integer>();
+    for (final var reason : reasons) {
+      counts.merge(reason, Integer.valueOf(1), Integer::sum);
+    }
+
+    var listed = 0;
+    for (final var entry : counts.entrySet()) {
+      if (listed == REASONS_MAXIMUM) {
+        text.append("\n- (%d more reasons)".formatted(
+          Integer.valueOf(counts.size() - listed))
+        );
+        return;
+      }
+      text.append("\n- ");
+      text.append(entry.getKey());
+      final var count = entry.getValue().intValue();
+      if (count > 1) {
+        text.append(" (x%d)".formatted(Integer.valueOf(count)));
+      }
+      ++listed;
+    }
+  }
+
+  /**
+   * @return The number of capture requests received
+   */
+
+  public long requestsReceived()
+  {
+    return this.requestsReceived.get();
+  }
+
+  /**
+   * @return The number of captures triggered
+   */
+
+  public long capturesTriggered()
+  {
+    return this.capturesTriggered.get();
+  }
+}
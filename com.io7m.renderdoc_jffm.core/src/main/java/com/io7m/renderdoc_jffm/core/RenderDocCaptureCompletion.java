@@ -0,0 +1,168 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A task that waits, on a virtual thread, for a triggered capture to be
+ * completely written to disk.
+ *
+ * The triggered capture is identified with a {@link RenderDocCaptureMatcher}
+ * that is told to expect it immediately before the capture is triggered,
+ * rather than by predicting its index, so that a capture made by another
+ * source in the meantime is not mistaken for it. The matcher is polled at
+ * each poll interval; if captures appear that cannot be told apart from the
+ * triggered capture, the task fails. A capture is considered complete once
+ * it has been identified, and the size of the capture file is non-zero and
+ * has not changed between two consecutive polls.
+ */
+
+final class RenderDocCaptureCompletion
+  implements RenderDocCaptureMatcher.ListenerType<RenderDocCaptureCompletion>
+{
+  private static final long POLL_INTERVAL_MILLISECONDS = 10L;
+
+  /*
+   * The timeout bounds the wait, and so the matcher never expires the
+   * expectation itself.
+   */
+
+  private static final int POLLS_MAXIMUM = Integer.MAX_VALUE / 2;
+
+  private final RenderDocCaptureMatcher<RenderDocCaptureCompletion> matcher;
+  private final CompletableFuture<RenderDocCaptureInfo> future;
+  private RenderDocCaptureInfo capture;
+
+  private RenderDocCaptureCompletion(
+    final RenderDocType inRenderDoc)
+  {
+    this.matcher =
+      new RenderDocCaptureMatcher<>(inRenderDoc, POLLS_MAXIMUM);
+    this.future =
+      new CompletableFuture<>();
+  }
+
+  /**
+   * Prepare to wait for a capture. This must be called on the thread that
+   * triggers the capture, immediately before the capture is triggered.
+   *
+   * @param renderDoc The RenderDoc API
+   *
+   * @return A completion that has not yet started waiting
+   */
+
+  static RenderDocCaptureCompletion expect(
+    final RenderDocType renderDoc)
+  {
+    final var completion = new RenderDocCaptureCompletion(renderDoc);
+    completion.matcher.expect(completion);
+    return completion;
+  }
+
+  /**
+   * Start waiting for the capture. This must be called after the capture
+   * has been triggered.
+   *
+   * @param timeout The maximum time to wait
+   *
+   * @return A future that completes with the capture, or fails with a
+   * {@link java.util.concurrent.TimeoutException} if the capture is not
+   * written in time, or with an {@link IllegalStateException} if the
+   * capture could not be identified
+   */
+
+  CompletableFuture<RenderDocCaptureInfo> await(
+    final Duration timeout)
+  {
+    Objects.requireNonNull(timeout, "timeout");
+
+    final var result =
+      this.future.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+
+    Thread.ofVirtual()
+      .name("com.io7m.renderdoc_jffm.capture")
+      .start(this::run);
+
+    return result;
+  }
+
+  @Override
+  public void onMatched(
+    final RenderDocCaptureCompletion completion,
+    final RenderDocCaptureInfo matched)
+  {
+    this.capture = matched;
+  }
+
+  @Override
+  public void onAbandoned(
+    final RenderDocCaptureCompletion completion)
+  {
+    this.future.completeExceptionally(
+      new IllegalStateException(
+        "The triggered capture could not be identified."
+      )
+    );
+  }
+
+  private void run()
+  {
+    try {
+      long sizeThen = -1L;
+
+      while (!this.future.isDone()) {
+        Thread.sleep(POLL_INTERVAL_MILLISECONDS);
+
+        if (this.capture == null) {
+          this.matcher.poll(this);
+          continue;
+        }
+
+        final var sizeNow = sizeOf(this.capture);
+        if (sizeNow > 0L && sizeNow == sizeThen) {
+          this.future.complete(this.capture);
+          return;
+        }
+        sizeThen = sizeNow;
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      this.future.completeExceptionally(e);
+    } catch (final IOException | RuntimeException e) {
+      this.future.completeExceptionally(e);
+    }
+  }
+
+  private static long sizeOf(
+    final RenderDocCaptureInfo capture)
+    throws IOException
+  {
+    try {
+      return Files.size(capture.file());
+    } catch (final NoSuchFileException e) {
+      return -1L;
+    }
+  }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Matches captures triggered by a single component to the captures that
+ * actually appear, so that the component does not act on captures made by
+ * other sources (such as the RenderDoc UI or another trigger).
+ *
+ * Immediately before triggering a capture, the component calls
+ * {@link #expect(Object)}, which records the number of captures that
+ * existed at that point. At each frame boundary, the component calls
+ * {@link #poll(ListenerType)}, which examines the captures that have
+ * appeared since the previous poll, and matches them in order to the
+ * outstanding expectations. Captures that existed before the oldest
+ * expectation was recorded are ignored. An expectation may be for several
+ * consecutive captures (such as those of a multi-frame capture), in which
+ * case it is only matched once all of its captures have appeared.
+ *
+ * A match is only reported at the poll after the one that made it, and
+ * only if no unexpected capture appeared in the meantime. If more captures
+ * appear than can be accounted for, the captures cannot be told apart from
+ * captures made by other sources, and so every outstanding expectation and
+ * unreported match is abandoned rather than guessed. Expectations that
+ * are not met within a given number of frame boundaries (plus one for
+ * each capture after the first) are also abandoned. The one case that cannot be detected is a triggered capture
+ * that never appears while a capture from another source appears in its
+ * place.
+ *
+ * @param <T> The type of values associated with expectations
+ */
+
+final class RenderDocCaptureMatcher<T>
+{
+  private final RenderDocType renderDoc;
+  private final int framesMaximum;
+  private final ArrayDeque<Expectation<T>> expectations;
+  private final ArrayDeque<Expectation<T>> matched;
+  private long indexSeen;
+
+  /**
+   * A receiver of match results.
+   *
+   * @param <T> The type of values associated with expectations
+   */
+
+  interface ListenerType<T>
+  {
+    /**
+     * The expected captures appeared.
+     *
+     * @param value   The value associated with the expectation
+     * @param capture The first of the expected captures; the others (if
+     *                any) follow it with consecutive indices
+     */
+
+    void onMatched(
+      T value,
+      RenderDocCaptureInfo capture);
+
+    /**
+     * An expected capture did not appear, or could not be identified.
+     *
+     * @param value The value associated with the expectation
+     */
+
+    void onAbandoned(T value);
+  }
+
+  private static final class Expectation<T>
+  {
+    private final T value;
+    private final long indexFirst;
+    private final int count;
+    private int frames;
+    private int found;
+    private RenderDocCaptureInfo capture;
+
+    Expectation(
+      final T inValue,
+      final long inIndexFirst,
+      final int inCount)
+    {
+      this.value = inValue;
+      this.indexFirst = inIndexFirst;
+      this.count = inCount;
+    }
+  }
+
+  RenderDocCaptureMatcher(
+    final RenderDocType inRenderDoc,
+    final int inFramesMaximum)
+  {
+    this.renderDoc =
+      Objects.requireNonNull(inRenderDoc, "renderDoc");
+    this.framesMaximum =
+      inFramesMaximum;
+    this.expectations =
+      new ArrayDeque<>();
+    this.matched =
+      new ArrayDeque<>();
+    this.indexSeen =
+      inRenderDoc.numberOfCaptures();
+  }
+
+  /**
+   * Record that a capture is about to be triggered.
+   *
+   * @param value The value associated with the capture
+   */
+
+  void expect(
+    final T value)
+  {
+    this.expect(value, 1);
+  }
+
+  /**
+   * Record that a number of consecutive captures are about to be triggered.
+   *
+   * @param value The value associated with the captures
+   * @param count The number of captures, which must be at least 1
+   */
+
+  void expect(
+    final T value,
+    final int count)
+  {
+    Objects.requireNonNull(value, "value");
+    if (count < 1) {
+      throw new IllegalArgumentException(
+        "Capture count %d must be at least 1.".formatted(Integer.valueOf(count))
+      );
+    }
+    this.expectations.add(
+      new Expectation<>(value, this.renderDoc.numberOfCaptures(), count)
+    );
+  }
+
+  /**
+   * Match the captures that have appeared since the last poll, and report
+   * the matches made by the previous poll.
+   *
+   * @param listener The receiver of match results
+   */
+
+  void poll(
+    final ListenerType<T> listener)
+  {
+    Objects.requireNonNull(listener, "listener");
+
+    final var appeared = this.appeared();
+    if (this.isSurplus(appeared)) {
+      abandonAll(this.matched, listener);
+      abandonAll(this.expectations, listener);
+      return;
+    }
+
+    while (!this.matched.isEmpty()) {
+      final var expectation = this.matched.poll();
+      listener.onMatched(expectation.value, expectation.capture);
+    }
+
+    this.match(appeared);
+    this.expire(listener);
+  }
+
+  private List<RenderDocCaptureInfo> appeared()
+  {
+    final var count = this.renderDoc.numberOfCaptures();
+    if (count > this.indexSeen) {
+      final var appeared =
+        this.renderDoc.capturesSince((int) this.indexSeen);
+      this.indexSeen = count;
+      return appeared;
+    }
+    return List.of();
+  }
+
+  private void match(
+    final List<RenderDocCaptureInfo> appeared)
+  {
+    for (final var capture : appeared) {
+      final var expectation = this.expectations.peek();
+      if (expectation == null) {
+        return;
+      }
+      if (capture.index() < expectation.indexFirst) {
+        continue;
+      }
+      if (expectation.found == 0) {
+        expectation.capture = capture;
+      }
+      expectation.found = expectation.found + 1;
+      if (expectation.found == expectation.count) {
+        this.expectations.poll();
+        this.matched.add(expectation);
+      }
+    }
+  }
+
+  private void expire(
+    final ListenerType<T> listener)
+  {
+    for (final var expectation : this.expectations) {
+      expectation.frames = expectation.frames + 1;
+    }
+    while (!this.expectations.isEmpty()) {
+      final var head = this.expectations.peek();
+      if (head.frames <= this.framesMaximum + head.count - 1) {
+        return;
+      }
+      this.expectations.poll();
+      listener.onAbandoned(head.value);
+    }
+  }
+
+  /**
+   * @return {@code true} if more captures appeared than are accounted for
+   * by the outstanding expectations, while any match is unreported or any
+   * expectation is outstanding
+   */
+
+  private boolean isSurplus(
+    final List<RenderDocCaptureInfo> appeared)
+  {
+    if (appeared.isEmpty()) {
+      return false;
+    }
+
+    final var head = this.expectations.peek();
+    if (head == null) {
+      return !this.matched.isEmpty();
+    }
+
+    var candidates = 0;
+    for (final var capture : appeared) {
+      if (capture.index() >= head.indexFirst) {
+        ++candidates;
+      }
+    }
+
+    var capacity = 0L;
+    for (final var expectation : this.expectations) {
+      capacity += expectation.count - expectation.found;
+    }
+    return candidates > capacity;
+  }
+
+  private static <T> void abandonAll(
+    final ArrayDeque<Expectation<T>> queue,
+    final ListenerType<T> listener)
+  {
+    while (!queue.isEmpty()) {
+      listener.onAbandoned(queue.poll().value);
+    }
+  }
+}
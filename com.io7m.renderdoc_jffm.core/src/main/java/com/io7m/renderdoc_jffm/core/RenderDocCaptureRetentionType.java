@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+/**
+ * A hook that is notified when a sampled capture is no longer wanted.
+ *
+ * The hook is called on the render thread, possibly before RenderDoc has
+ * finished writing the capture. Implementations should therefore do no
+ * more than record the index, and delete capture files elsewhere (for
+ * example, by looking the index up with {@link RenderDocType#capture(int)}
+ * from a background thread once the capture exists).
+ */
+
+public interface RenderDocCaptureRetentionType
+{
+  /**
+   * A capture has been discarded by a sampler.
+   *
+   * @param captureIndex The index of the discarded capture
+   */
+
+  void onCaptureDiscarded(long captureIndex);
+}
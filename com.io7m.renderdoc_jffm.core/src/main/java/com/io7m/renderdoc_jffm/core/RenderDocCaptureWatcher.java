@@ -0,0 +1,171 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A watcher that polls RenderDoc for new captures on a virtual thread, and
+ * publishes each new capture to subscribers.
+ *
+ * The polling interval adapts to activity: it drops to the minimum
+ * interval whenever a new capture is observed or
+ * {@link #notifyTriggered()} is called, and doubles after each idle poll up
+ * to the maximum interval. Only captures made after the watcher was
+ * created are published; the number of existing captures is read when the
+ * watcher is created, rather than when its thread starts, so captures
+ * triggered immediately after creation are not missed.
+ */
+
+public final class RenderDocCaptureWatcher
+  implements Flow.Publisher<RenderDocCaptureInfo>, AutoCloseable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(RenderDocCaptureWatcher.class);
+
+  private final RenderDocType renderDoc;
+  private final long minimumIntervalNanos;
+  private final long maximumIntervalNanos;
+  private final SubmissionPublisher<RenderDocCaptureInfo> publisher;
+  private final AtomicBoolean closed;
+  private final Thread thread;
+  private final AtomicBoolean triggered;
+  private final int first;
+
+  private RenderDocCaptureWatcher(
+    final RenderDocType inRenderDoc,
+    final RenderDocCaptureWatcherConfiguration configuration)
+  {
+    this.renderDoc =
+      Objects.requireNonNull(inRenderDoc, "renderDoc");
+    this.minimumIntervalNanos =
+      configuration.minimumInterval().toNanos();
+    this.maximumIntervalNanos =
+      configuration.maximumInterval().toNanos();
+    this.publisher =
+      new SubmissionPublisher<>();
+    this.closed =
+      new AtomicBoolean(false);
+    this.triggered =
+      new AtomicBoolean(false);
+    this.first =
+      (int) inRenderDoc.numberOfCaptures();
+    this.thread =
+      Thread.ofVirtual()
+        .name("com.io7m.renderdoc_jffm.watcher")
+        .unstarted(this::run);
+  }
+
+  /**
+   * Create and start a capture watcher.
+   *
+   * @param renderDoc     The RenderDoc API
+   * @param configuration The configuration
+   *
+   * @return A running watcher
+   */
+
+  public static RenderDocCaptureWatcher create(
+    final RenderDocType renderDoc,
+    final RenderDocCaptureWatcherConfiguration configuration)
+  {
+    Objects.requireNonNull(configuration, "configuration");
+
+    final var watcher = new RenderDocCaptureWatcher(renderDoc, configuration);
+    watcher.thread.start();
+    return watcher;
+  }
+
+  /**
+   * Indicate that a capture has been triggered, so that the watcher should
+   * poll at the minimum interval until the capture appears. This method may
+   * be called from any thread, and does not block.
+   */
+
+  public void notifyTriggered()
+  {
+    this.triggered.set(true);
+    LockSupport.unpark(this.thread);
+  }
+
+  @Override
+  public void subscribe(
+    final Flow.Subscriber<? super RenderDocCaptureInfo> subscriber)
+  {
+    this.publisher.subscribe(subscriber);
+  }
+
+  private void run()
+  {
+    try {
+      var next = this.first;
+      var interval = this.minimumIntervalNanos;
+
+      while (!this.closed.get()) {
+        LockSupport.parkNanos(this, interval);
+        if (this.closed.get()) {
+          break;
+        }
+
+        final var wasTriggered = this.triggered.getAndSet(false);
+
+        final var count = this.renderDoc.numberOfCaptures();
+        if (count > next) {
+          for (final var capture : this.renderDoc.capturesSince(next)) {
+            this.publisher.submit(capture);
+            next = capture.index() + 1;
+          }
+          interval = this.minimumIntervalNanos;
+        } else if (wasTriggered) {
+          interval = this.minimumIntervalNanos;
+        } else {
+          interval = Math.min(this.maximumIntervalNanos, interval * 2L);
+        }
+      }
+      this.publisher.close();
+    } catch (final RuntimeException e) {
+      LOG.debug("Capture watcher failed: ", e);
+      this.publisher.closeExceptionally(e);
+    }
+  }
+
+  /**
+   * Stop the watcher, waiting for the polling thread to exit. Subscribers
+   * are completed once the thread has exited.
+   */
+
+  @Override
+  public void close()
+  {
+    if (this.closed.compareAndSet(false, true)) {
+      LockSupport.unpark(this.thread);
+      try {
+        this.thread.join();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * The configuration of a capture watcher.
+ *
+ * @param minimumInterval The polling interval used immediately after a
+ *                        capture is triggered or observed
+ * @param maximumInterval The polling interval used when idle; the interval
+ *                        doubles after each poll that observes no new
+ *                        captures, up to this limit
+ */
+
+public record RenderDocCaptureWatcherConfiguration(
+  Duration minimumInterval,
+  Duration maximumInterval)
+{
+  private static final RenderDocCaptureWatcherConfiguration DEFAULTS =
+    new RenderDocCaptureWatcherConfiguration(
+      Duration.ofMillis(10L),
+      Duration.ofSeconds(1L)
+    );
+
+  /**
+   * The configuration of a capture watcher.
+   *
+   * @param minimumInterval The polling interval used immediately after a
+   *                        capture is triggered or observed
+   * @param maximumInterval The polling interval used when idle; the
+   *                        interval doubles after each poll that observes
+   *                        no new captures, up to this limit
+   */
+
+  public RenderDocCaptureWatcherConfiguration
+  {
+    Objects.requireNonNull(minimumInterval, "minimumInterval");
+    Objects.requireNonNull(maximumInterval, "maximumInterval");
+
+    if (minimumInterval.isNegative() || minimumInterval.isZero()) {
+      throw new IllegalArgumentException(
+        "Minimum interval %s must be positive.".formatted(minimumInterval)
+      );
+    }
+    if (maximumInterval.compareTo(minimumInterval) < 0) {
+      throw new IllegalArgumentException(
+        "Maximum interval %s must be at least the minimum interval %s."
+          .formatted(maximumInterval, minimumInterval)
+      );
+    }
+  }
+
+  /**
+   * @return The default configuration
+   */
+
+  public static RenderDocCaptureWatcherConfiguration defaults()
+  {
+    return DEFAULTS;
+  }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * A command that can be submitted to a {@link RenderDocExecutor}.
+ */
+
+public sealed interface RenderDocCommandType
+{
+  /**
+   * Execute the command.
+   *
+   * @param renderDoc The RenderDoc API
+   */
+
+  void execute(RenderDocType renderDoc);
+
+  /**
+   * Trigger a capture.
+   *
+   * @see RenderDocType#triggerCapture()
+   */
+
+  record TriggerCapture()
+    implements RenderDocCommandType
+  {
+    @Override
+    public void execute(
+      final RenderDocType renderDoc)
+    {
+      renderDoc.triggerCapture();
+    }
+  }
+
+  /**
+   * Trigger a capture of a number of consecutive frames.
+   *
+   * @param frames The number of frames
+   *
+   * @see RenderDocType#triggerMultiFrameCapture(int)
+   */
+
+  record TriggerMultiFrameCapture(
+    int frames)
+    implements RenderDocCommandType
+  {
+    @Override
+    public void execute(
+      final RenderDocType renderDoc)
+    {
+      renderDoc.triggerMultiFrameCapture(this.frames);
+    }
+  }
+
+  /**
+   * Set an option.
+   *
+   * @param option The option
+   *
+   * @see RenderDocType#setOption(RenderDocOptionType)
+   */
+
+  record SetOption(
+    RenderDocOptionType option)
+    implements RenderDocCommandType
+  {
+    /**
+     * Construct a command.
+     */
+
+    public SetOption
+    {
+      Objects.requireNonNull(option, "option");
+    }
+
+    @Override
+    public void execute(
+      final RenderDocType renderDoc)
+    {
+      renderDoc.setOption(this.option);
+    }
+  }
+
+  /**
+   * Set an option to an integer value.
+   *
+   * @param key   The option key
+   * @param value The value
+   *
+   * @see RenderDocType#setOptionU32(RenderDocOptionKey, int)
+   */
+
+  record SetOptionU32(
+    RenderDocOptionKey key,
+    int value)
+    implements RenderDocCommandType
+  {
+    /**
+     * Construct a command.
+     */
+
+    public SetOptionU32
+    {
+      Objects.requireNonNull(key, "key");
+    }
+
+    @Override
+    public void execute(
+      final RenderDocType renderDoc)
+    {
+      renderDoc.setOptionU32(this.key, this.value);
+    }
+  }
+
+  /**
+   * Set an option to a floating-point value.
+   *
+   * @param key   The option key
+   * @param value The value
+   *
+   * @see RenderDocType#setOptionF32(RenderDocOptionKey, float)
+   */
+
+  record SetOptionF32(
+    RenderDocOptionKey key,
+    float value)
+    implements RenderDocCommandType
+  {
+    /**
+     * Construct a command.
+     */
+
+    public SetOptionF32
+    {
+      Objects.requireNonNull(key, "key");
+    }
+
+    @Override
+    public void execute(
+      final RenderDocType renderDoc)
+    {
+      renderDoc.setOptionF32(this.key, this.value);
+    }
+  }
+
+  /**
+   * Set the title of the next capture.
+   *
+   * @param title The title
+   *
+   * @see RenderDocType#setCaptureTitle(String)
+   */
+
+  record SetCaptureTitle(
+    String title)
+    implements RenderDocCommandType
+  {
+    /**
+     * Construct a command.
+     */
+
+    public SetCaptureTitle
+    {
+      Objects.requireNonNull(title, "title");
+    }
+
+    @Override
+    public void execute(
+      final RenderDocType renderDoc)
+    {
+      renderDoc.setCaptureTitle(this.title);
+    }
+  }
+
+  /**
+   * Set the capture file path template.
+   *
+   * @param file The file template
+   *
+   * @see RenderDocType#setCaptureFilePathTemplate(Path)
+   */
+
+  record SetCaptureFilePathTemplate(
+    Path file)
+    implements RenderDocCommandType
+  {
+    /**
+     * Construct a command.
+     */
+
+    public SetCaptureFilePathTemplate
+    {
+      Objects.requireNonNull(file, "file");
+    }
+
+    @Override
+    public void execute(
+      final RenderDocType renderDoc)
+    {
+      renderDoc.setCaptureFilePathTemplate(this.file);
+    }
+  }
+
+  /**
+   * Set the comments embedded in the most recent capture file.
+   *
+   * @param comments The comments
+   *
+   * @see RenderDocType#setLatestCaptureFileComments(String)
+   */
+
+  record SetLatestCaptureFileComments(
+    String comments)
+    implements RenderDocCommandType
+  {
+    /**
+     * Construct a command.
+     */
+
+    public SetLatestCaptureFileComments
+    {
+      Objects.requireNonNull(comments, "comments");
+    }
+
+    @Override
+    public void execute(
+      final RenderDocType renderDoc)
+    {
+      renderDoc.setLatestCaptureFileComments(this.comments);
+    }
+  }
+}
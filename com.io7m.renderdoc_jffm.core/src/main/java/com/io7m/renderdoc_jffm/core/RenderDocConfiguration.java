@@ -0,0 +1,179 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * The configuration used when opening RenderDoc.
+ *
+ * @param criticalGetters Whether trivial, non-blocking getter functions
+ *                        (such as {@code GetNumCaptures} and
+ *                        {@code IsFrameCapturing}) should be linked as
+ *                        critical downcalls
+ * @param scratchSize     The size in bytes of the native buffer used to
+ *                        pass string arguments to RenderDoc. String
+ *                        arguments, encoded as null-terminated UTF-8, that
+ *                        do not fit into the remaining space are allocated
+ *                        in a confined arena that is created and closed
+ *                        for that call alone, so calls with oversized
+ *                        arguments pay for an extra native allocation and
+ *                        free.
+ *                        The buffer is not used by the
+ *                        {@link RenderDocThreadingModel#SHARED} model.
+ * @param captureTimeout  The default time to wait for an asynchronous
+ *                        capture to be written
+ * @param threadingModel  The threading model
+ */
+
+public record RenderDocConfiguration(
+  boolean criticalGetters,
+  long scratchSize,
+  Duration captureTimeout,
+  RenderDocThreadingModel threadingModel)
+{
+  private static final RenderDocConfiguration DEFAULTS =
+    new RenderDocConfiguration(
+      false,
+      65536L,
+      Duration.ofSeconds(30L),
+      RenderDocThreadingModel.CONFINED
+    );
+
+  /**
+   * The configuration used when opening RenderDoc.
+   *
+   * @param criticalGetters Whether trivial, non-blocking getter functions
+   *                        (such as {@code GetNumCaptures} and
+   *                        {@code IsFrameCapturing}) should be linked as
+   *                        critical downcalls
+   * @param scratchSize     The size in bytes of the native buffer used to
+   *                        pass string arguments to RenderDoc. String
+   *                        arguments, encoded as null-terminated UTF-8, that
+   *                        do not fit into the remaining space are allocated
+   *                        in a confined arena that is created and closed
+   *                        for that call alone, so calls with oversized
+   *                        arguments pay for an extra native allocation and
+   *                        free.
+   *                        The buffer is not used by the
+   *                        {@link RenderDocThreadingModel#SHARED} model.
+   * @param captureTimeout  The default time to wait for an asynchronous
+   *                        capture to be written
+   * @param threadingModel  The threading model
+   */
+
+  public RenderDocConfiguration
+  {
+    Objects.requireNonNull(captureTimeout, "captureTimeout");
+    Objects.requireNonNull(threadingModel, "threadingModel");
+
+    if (scratchSize <= 0L) {
+      throw new IllegalArgumentException(
+        "Scratch size %d must be positive.".formatted(Long.valueOf(scratchSize))
+      );
+    }
+    if (captureTimeout.isNegative() || captureTimeout.isZero()) {
+      throw new IllegalArgumentException(
+        "Capture timeout %s must be positive.".formatted(captureTimeout)
+      );
+    }
+  }
+
+  /**
+   * @return The default configuration
+   */
+
+  public static RenderDocConfiguration defaults()
+  {
+    return DEFAULTS;
+  }
+
+  /**
+   * Critical downcalls skip the thread state transition that is normally
+   * performed when calling native code. This makes each call cheaper, but
+   * a thread blocked in a critical downcall can delay the garbage collector.
+   * The RenderDoc getter functions do not block, so this is typically safe.
+   *
+   * @param enabled Whether getters should be critical downcalls
+   *
+   * @return This configuration with the given setting
+   */
+
+  public RenderDocConfiguration withCriticalGetters(
+    final boolean enabled)
+  {
+    return new RenderDocConfiguration(
+      enabled,
+      this.scratchSize,
+      this.captureTimeout,
+      this.threadingModel
+    );
+  }
+
+  /**
+   * @param size The size in bytes of the string argument buffer
+   *
+   * @return This configuration with the given setting
+   */
+
+  public RenderDocConfiguration withScratchSize(
+    final long size)
+  {
+    return new RenderDocConfiguration(
+      this.criticalGetters,
+      size,
+      this.captureTimeout,
+      this.threadingModel
+    );
+  }
+
+  /**
+   * @param timeout The default time to wait for an asynchronous capture
+   *
+   * @return This configuration with the given setting
+   */
+
+  public RenderDocConfiguration withCaptureTimeout(
+    final Duration timeout)
+  {
+    return new RenderDocConfiguration(
+      this.criticalGetters,
+      this.scratchSize,
+      timeout,
+      this.threadingModel
+    );
+  }
+
+  /**
+   * @param model The threading model
+   *
+   * @return This configuration with the given setting
+   */
+
+  public RenderDocConfiguration withThreadingModel(
+    final RenderDocThreadingModel model)
+  {
+    return new RenderDocConfiguration(
+      this.criticalGetters,
+      this.scratchSize,
+      this.captureTimeout,
+      model
+    );
+  }
+}
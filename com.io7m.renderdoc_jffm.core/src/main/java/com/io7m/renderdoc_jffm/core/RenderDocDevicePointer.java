@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import java.lang.foreign.MemorySegment;
+import java.util.Objects;
+
+import static java.lang.foreign.ValueLayout.ADDRESS;
+
+/**
+ * A RenderDoc device pointer ({@code RENDERDOC_DevicePointer}). This is
+ * the native device object of the graphics API in use: for example, the
+ * {@code ID3D11Device} in Direct3D 11, or the dispatch table pointer of the
+ * {@code VkInstance} in Vulkan.
+ *
+ * @param pointer The device pointer
+ */
+
+public record RenderDocDevicePointer(
+  MemorySegment pointer)
+{
+  /**
+   * A device pointer that matches any device.
+   */
+
+  public static final RenderDocDevicePointer ANY =
+    new RenderDocDevicePointer(MemorySegment.NULL);
+
+  /**
+   * A RenderDoc device pointer.
+   *
+   * @param pointer The device pointer
+   */
+
+  public RenderDocDevicePointer
+  {
+    Objects.requireNonNull(pointer, "pointer");
+  }
+
+  /**
+   * Obtain the device pointer for a Vulkan instance. This is equivalent to
+   * the {@code RENDERDOC_DEVICEPOINTER_FROM_VKINSTANCE} macro, and reads
+   * the dispatch table pointer stored at the start of the instance.
+   *
+   * @param instance The {@code VkInstance} handle
+   *
+   * @return The device pointer
+   */
+
+  public static RenderDocDevicePointer ofVulkanInstance(
+    final MemorySegment instance)
+  {
+    Objects.requireNonNull(instance, "instance");
+
+    return new RenderDocDevicePointer(
+      instance.reinterpret(ADDRESS.byteSize()).get(ADDRESS, 0L)
+    );
+  }
+}
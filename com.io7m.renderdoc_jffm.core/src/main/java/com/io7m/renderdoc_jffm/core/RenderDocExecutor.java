@@ -0,0 +1,218 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An executor that allows any thread to submit RenderDoc commands, and
+ * executes them on a single owner thread.
+ *
+ * RenderDoc instances pass string arguments through memory owned by the
+ * thread that opened them, and so must only be used from that thread.
+ * Commands are submitted to a lock-free queue, and executed in submission
+ * order (per submitting thread) when the owner thread calls
+ * {@link #drain()}, typically from {@link #onFrameBoundary(long)}.
+ */
+
+public final class RenderDocExecutor
+  implements RenderDocFrameHookType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(RenderDocExecutor.class);
+
+  private final RenderDocType renderDoc;
+  private final Thread owner;
+  private final int batchSize;
+  private final ConcurrentLinkedQueue<RenderDocCommandType> queue;
+  private final AtomicLong submitted;
+  private final AtomicLong executed;
+  private final AtomicLong failed;
+
+  private RenderDocExecutor(
+    final RenderDocType inRenderDoc,
+    final Thread inOwner,
+    final int inBatchSize)
+  {
+    this.renderDoc =
+      Objects.requireNonNull(inRenderDoc, "renderDoc");
+    this.owner =
+      Objects.requireNonNull(inOwner, "owner");
+    this.batchSize =
+      inBatchSize;
+    this.queue =
+      new ConcurrentLinkedQueue<>();
+    this.submitted =
+      new AtomicLong();
+    this.executed =
+      new AtomicLong();
+    this.failed =
+      new AtomicLong();
+  }
+
+  /**
+   * Create an executor owned by the current thread.
+   *
+   * @param renderDoc The RenderDoc API
+   * @param batchSize The maximum number of commands executed per drain
+   *
+   * @return An executor
+   */
+
+  public static RenderDocExecutor create(
+    final RenderDocType renderDoc,
+    final int batchSize)
+  {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException(
+        "Batch size %d must be at least 1."
+          .formatted(Integer.valueOf(batchSize))
+      );
+    }
+    return new RenderDocExecutor(
+      renderDoc,
+      Thread.currentThread(),
+      batchSize
+    );
+  }
+
+  /**
+   * Submit a command. This method may be called from any thread, and does
+   * not block.
+   *
+   * @param command The command
+   */
+
+  public void submit(
+    final RenderDocCommandType command)
+  {
+    this.queue.add(Objects.requireNonNull(command, "command"));
+    this.submitted.incrementAndGet();
+  }
+
+  /**
+   * Submit a command to trigger a capture.
+   */
+
+  public void triggerCapture()
+  {
+    this.submit(new RenderDocCommandType.TriggerCapture());
+  }
+
+  /**
+   * Submit a command to set an option.
+   *
+   * @param option The option
+   */
+
+  public void setOption(
+    final RenderDocOptionType option)
+  {
+    this.submit(new RenderDocCommandType.SetOption(option));
+  }
+
+  /**
+   * Submit a command to set the title of the next capture.
+   *
+   * @param title The title
+   */
+
+  public void setCaptureTitle(
+    final String title)
+  {
+    this.submit(new RenderDocCommandType.SetCaptureTitle(title));
+  }
+
+  /**
+   * Execute up to the batch size of pending commands. A command that fails
+   * is logged and counted, and does not prevent the execution of later
+   * commands.
+   *
+   * @return The number of commands executed
+   *
+   * @throws IllegalStateException If called from a thread other than the
+   *                               owner
+   */
+
+  public int drain()
+  {
+    if (Thread.currentThread() != this.owner) {
+      throw new IllegalStateException(
+        "Commands must be drained on the owner thread %s (current %s)."
+          .formatted(this.owner, Thread.currentThread())
+      );
+    }
+
+    var count = 0;
+    while (count < this.batchSize) {
+      final var command = this.queue.poll();
+      if (command == null) {
+        break;
+      }
+      ++count;
+
+      try {
+        command.execute(this.renderDoc);
+        this.executed.incrementAndGet();
+      } catch (final RuntimeException e) {
+        this.failed.incrementAndGet();
+        LOG.warn("Command {} failed: ", command, e);
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public void onFrameBoundary(
+    final long timeNanos)
+  {
+    this.drain();
+  }
+
+  /**
+   * @return The number of commands submitted
+   */
+
+  public long commandsSubmitted()
+  {
+    return this.submitted.get();
+  }
+
+  /**
+   * @return The number of commands that executed successfully
+   */
+
+  public long commandsExecuted()
+  {
+    return this.executed.get();
+  }
+
+  /**
+   * @return The number of commands that raised exceptions
+   */
+
+  public long commandsFailed()
+  {
+    return this.failed.get();
+  }
+}
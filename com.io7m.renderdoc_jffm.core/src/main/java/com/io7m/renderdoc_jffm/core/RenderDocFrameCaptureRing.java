@@ -0,0 +1,323 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free ring of frame slots that allows any thread to request a
+ * capture of a specific future frame, with the capture being performed on
+ * the render thread at the frame boundary.
+ *
+ * A request for frame {@code n} is stored in slot {@code n % capacity}.
+ * Requests can therefore only be made for frames at most {@code capacity}
+ * frames ahead of the current frame, and a request is rejected if its slot
+ * already holds a request for a different frame. Each slot records the
+ * requested frame together with the number of requesters, so that a
+ * requester that withdraws a request because the frame started while the
+ * request was being made never withdraws another requester's request.
+ * Neither {@link #requestCaptureAtFrame(long)} nor
+ * {@link #onFrameBoundary(long)} takes a lock or allocates. Frame numbers
+ * must be less than {@code 2^47}.
+ */
+
+public final class RenderDocFrameCaptureRing
+{
+  private static final long EMPTY = -1L;
+  private static final int COUNT_BITS = 16;
+  private static final long COUNT_MASK = (1L << COUNT_BITS) - 1L;
+  private static final long FRAME_MAXIMUM = (1L << 47) - 1L;
+
+  private final RenderDocType renderDoc;
+  private final RenderDocFrameCaptureMethod method;
+  private final RenderDocDevicePointer device;
+  private final RenderDocWindowHandle window;
+  private final AtomicLongArray slots;
+  private final int mask;
+  private final AtomicLong capturesIssued;
+  private volatile long frameCurrent;
+  private RenderDocFrameCaptureScope scope;
+
+  private RenderDocFrameCaptureRing(
+    final RenderDocType inRenderDoc,
+    final RenderDocFrameCaptureMethod inMethod,
+    final int capacity,
+    final RenderDocDevicePointer inDevice,
+    final RenderDocWindowHandle inWindow)
+  {
+    this.renderDoc =
+      Objects.requireNonNull(inRenderDoc, "renderDoc");
+    this.method =
+      Objects.requireNonNull(inMethod, "method");
+    this.device =
+      Objects.requireNonNull(inDevice, "device");
+    this.window =
+      Objects.requireNonNull(inWindow, "window");
+    this.slots =
+      new AtomicLongArray(capacity);
+    this.mask =
+      capacity - 1;
+    this.capturesIssued =
+      new AtomicLong();
+    this.frameCurrent =
+      EMPTY;
+
+    for (int index = 0; index < capacity; ++index) {
+      this.slots.set(index, EMPTY);
+    }
+  }
+
+  /**
+   * Create a frame capture ring that captures any device and window.
+   *
+   * @param renderDoc The RenderDoc API
+   * @param method    The capture method
+   * @param capacity  The number of slots, which must be a power of two
+   *
+   * @return A frame capture ring
+   */
+
+  public static RenderDocFrameCaptureRing create(
+    final RenderDocType renderDoc,
+    final RenderDocFrameCaptureMethod method,
+    final int capacity)
+  {
+    return create(
+      renderDoc,
+      method,
+      capacity,
+      RenderDocDevicePointer.ANY,
+      RenderDocWindowHandle.ANY
+    );
+  }
+
+  /**
+   * Create a frame capture ring.
+   *
+   * @param renderDoc The RenderDoc API
+   * @param method    The capture method
+   * @param capacity  The number of slots, which must be a power of two
+   * @param device    The device to capture, if the method is
+   *                  {@link RenderDocFrameCaptureMethod#FRAME_CAPTURE}
+   * @param window    The window to capture, if the method is
+   *                  {@link RenderDocFrameCaptureMethod#FRAME_CAPTURE}
+   *
+   * @return A frame capture ring
+   */
+
+  public static RenderDocFrameCaptureRing create(
+    final RenderDocType renderDoc,
+    final RenderDocFrameCaptureMethod method,
+    final int capacity,
+    final RenderDocDevicePointer device,
+    final RenderDocWindowHandle window)
+  {
+    if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException(
+        "Capacity %d must be a positive power of two."
+          .formatted(Integer.valueOf(capacity))
+      );
+    }
+    return new RenderDocFrameCaptureRing(
+      renderDoc,
+      method,
+      capacity,
+      device,
+      window
+    );
+  }
+
+  /**
+   * @return The number of slots
+   */
+
+  public int capacity()
+  {
+    return this.mask + 1;
+  }
+
+  /**
+   * @return The number of captures that have been issued
+   */
+
+  public long capturesIssued()
+  {
+    return this.capturesIssued.get();
+  }
+
+  /**
+   * Request a capture of the given frame. This method may be called from
+   * any thread. Requesting the same frame more than once results in a
+   * single capture.
+   *
+   * @param frame The frame number
+   *
+   * @return {@code false} if the frame has already started, is too far in
+   * the future, or its slot is occupied by a request for another frame
+   */
+
+  public boolean requestCaptureAtFrame(
+    final long frame)
+  {
+    checkFrame(frame);
+
+    final var current = this.frameCurrent;
+    if (frame <= current || frame - current > this.capacity()) {
+      return false;
+    }
+
+    final var slot = (int) (frame & this.mask);
+    while (true) {
+      final var existing = this.slots.get(slot);
+      final long updated;
+      if (existing == EMPTY) {
+        updated = (frame << COUNT_BITS) | 1L;
+      } else if (frameOf(existing) == frame) {
+        if ((existing & COUNT_MASK) == COUNT_MASK) {
+          return false;
+        }
+        updated = existing + 1L;
+      } else {
+        return false;
+      }
+      if (this.slots.compareAndSet(slot, existing, updated)) {
+        break;
+      }
+    }
+
+    /*
+     * The render thread publishes the new frame number before scanning the
+     * slots. If the frame has started since the check above, the render
+     * thread may have scanned the slot before the request was stored, and
+     * so this requester's share of the request is withdrawn. If the slot no
+     * longer holds the frame, then the render thread consumed the request.
+     */
+
+    if (frame <= this.frameCurrent) {
+      return !this.withdraw(slot, frame);
+    }
+    return true;
+  }
+
+  private boolean withdraw(
+    final int slot,
+    final long frame)
+  {
+    while (true) {
+      final var existing = this.slots.get(slot);
+      if (existing == EMPTY || frameOf(existing) != frame) {
+        return false;
+      }
+
+      final var updated =
+        (existing & COUNT_MASK) == 1L ? EMPTY : existing - 1L;
+      if (this.slots.compareAndSet(slot, existing, updated)) {
+        return true;
+      }
+    }
+  }
+
+  private static void checkFrame(
+    final long frame)
+  {
+    if (frame < 0L || frame > FRAME_MAXIMUM) {
+      throw new IllegalArgumentException(
+        "Frame %d must be in the range [0, %d]."
+          .formatted(Long.valueOf(frame), Long.valueOf(FRAME_MAXIMUM))
+      );
+    }
+  }
+
+  private static long frameOf(
+    final long value)
+  {
+    return value >>> COUNT_BITS;
+  }
+
+  /**
+   * Indicate that the given frame is starting. Any requests for this frame,
+   * or for frames that were skipped since the previous call, result in a
+   * single capture. This method must be called on the render thread, with
+   * strictly increasing frame numbers.
+   *
+   * @param frame The frame number
+   */
+
+  public void onFrameBoundary(
+    final long frame)
+  {
+    checkFrame(frame);
+
+    final var previous = this.frameCurrent;
+    if (frame <= previous) {
+      throw new IllegalArgumentException(
+        "Frame %d must be greater than the previous frame %d."
+          .formatted(Long.valueOf(frame), Long.valueOf(previous))
+      );
+    }
+
+    if (this.scope != null) {
+      this.scope.close();
+      this.scope = null;
+    }
+
+    this.frameCurrent = frame;
+
+    final var scanned = Math.min(frame - previous, this.capacity());
+    var due = false;
+    for (long index = 0L; index < scanned; ++index) {
+      final var slot = (int) ((frame - index) & this.mask);
+      due |= this.consume(slot, frame);
+    }
+
+    if (due) {
+      this.capture();
+    }
+  }
+
+  private boolean consume(
+    final int slot,
+    final long frame)
+  {
+    while (true) {
+      final var requested = this.slots.get(slot);
+      if (requested == EMPTY || frameOf(requested) > frame) {
+        return false;
+      }
+      if (this.slots.compareAndSet(slot, requested, EMPTY)) {
+        return true;
+      }
+    }
+  }
+
+  private void capture()
+  {
+    switch (this.method) {
+      case TRIGGER_CAPTURE -> {
+        this.renderDoc.triggerCapture();
+      }
+      case FRAME_CAPTURE -> {
+        this.scope =
+          this.renderDoc.startFrameCapture(this.device, this.window);
+      }
+    }
+    this.capturesIssued.incrementAndGet();
+  }
+}
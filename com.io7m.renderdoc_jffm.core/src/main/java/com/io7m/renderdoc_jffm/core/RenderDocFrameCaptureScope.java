@@ -0,0 +1,242 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import java.lang.foreign.MemorySegment;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A frame capture delimited by {@code StartFrameCapture} and
+ * {@code EndFrameCapture}, intended for use with try-with-resources:
+ *
+ * <pre>{@code
+ * try (var scope = renderDoc.startFrameCapture(device, window)) {
+ *   // Submit GPU work...
+ * }
+ * }</pre>
+ *
+ * Closing the scope ends the capture if it has not already been ended or
+ * discarded. The capture can also be ended explicitly with {@link #end()}
+ * in order to obtain the result, or abandoned with {@link #discard()}.
+ *
+ * Each RenderDoc instance owns a single scope object that is reused for
+ * every capture, so opening and closing scopes does not allocate. A
+ * reference to a scope must therefore not be retained after the next
+ * capture has been started. The no-op implementation returns a single
+ * shared scope that never opens and does nothing.
+ *
+ * Under the {@link RenderDocThreadingModel#SHARED} threading model, the
+ * scope's state is guarded by a lock, so that a capture may be started on
+ * one thread and ended, discarded, or queried on another.
+ */
+
+public final class RenderDocFrameCaptureScope implements AutoCloseable
+{
+  private static final RenderDocFrameCaptureScope NOOP =
+    new RenderDocFrameCaptureScope(RenderDocNoopFunctions.get(), null, true);
+
+  private final RenderDocFunctionsType functions;
+  private final ReentrantLock lock;
+  private final boolean stateless;
+  private MemorySegment device;
+  private MemorySegment window;
+  private boolean open;
+  private boolean succeeded;
+
+  RenderDocFrameCaptureScope(
+    final RenderDocFunctionsType inFunctions,
+    final RenderDocThreadingModel threadingModel)
+  {
+    this(
+      inFunctions,
+      switch (threadingModel) {
+        case CONFINED -> null;
+        case SHARED -> new ReentrantLock();
+      },
+      false
+    );
+  }
+
+  private RenderDocFrameCaptureScope(
+    final RenderDocFunctionsType inFunctions,
+    final ReentrantLock inLock,
+    final boolean inStateless)
+  {
+    this.functions =
+      Objects.requireNonNull(inFunctions, "functions");
+    this.lock =
+      inLock;
+    this.stateless =
+      inStateless;
+    this.device =
+      MemorySegment.NULL;
+    this.window =
+      MemorySegment.NULL;
+  }
+
+  /**
+   * @return A shared scope that is never open and does nothing
+   */
+
+  static RenderDocFrameCaptureScope noop()
+  {
+    return NOOP;
+  }
+
+  RenderDocFrameCaptureScope start(
+    final RenderDocDevicePointer inDevice,
+    final RenderDocWindowHandle inWindow)
+  {
+    Objects.requireNonNull(inDevice, "device");
+    Objects.requireNonNull(inWindow, "window");
+
+    if (this.stateless) {
+      return this;
+    }
+
+    if (this.lock == null) {
+      return this.startLocked(inDevice, inWindow);
+    }
+    this.lock.lock();
+    try {
+      return this.startLocked(inDevice, inWindow);
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  private RenderDocFrameCaptureScope startLocked(
+    final RenderDocDevicePointer inDevice,
+    final RenderDocWindowHandle inWindow)
+  {
+    if (this.open) {
+      throw new IllegalStateException(
+        "A frame capture scope is already open."
+      );
+    }
+
+    this.device = inDevice.pointer();
+    this.window = inWindow.handle();
+    this.succeeded = false;
+    this.functions.startFrameCapture(this.device, this.window);
+    this.open = true;
+    return this;
+  }
+
+  /**
+   * End the capture. If the capture has already been ended or discarded,
+   * this method does nothing.
+   *
+   * @return {@code true} if the capture succeeded
+   */
+
+  public boolean end()
+  {
+    if (this.lock == null) {
+      return this.endLocked();
+    }
+    this.lock.lock();
+    try {
+      return this.endLocked();
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  private boolean endLocked()
+  {
+    if (this.open) {
+      this.open = false;
+      this.succeeded =
+        this.functions.endFrameCapture(this.device, this.window) == 1;
+    }
+    return this.succeeded;
+  }
+
+  /**
+   * Discard the capture, so that no capture file is written. If the
+   * capture has already been ended or discarded, this method does nothing.
+   *
+   * @return {@code true} if the capture was discarded
+   */
+
+  public boolean discard()
+  {
+    if (this.lock == null) {
+      return this.discardLocked();
+    }
+    this.lock.lock();
+    try {
+      return this.discardLocked();
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  private boolean discardLocked()
+  {
+    if (this.open) {
+      this.open = false;
+      this.succeeded = false;
+      return this.functions.discardFrameCapture(this.device, this.window) == 1;
+    }
+    return false;
+  }
+
+  /**
+   * @return {@code true} if the capture has been started and has not yet
+   * been ended or discarded
+   */
+
+  public boolean isOpen()
+  {
+    if (this.lock == null) {
+      return this.open;
+    }
+    this.lock.lock();
+    try {
+      return this.open;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * @return {@code true} if the capture was ended and succeeded
+   */
+
+  public boolean succeeded()
+  {
+    if (this.lock == null) {
+      return this.succeeded;
+    }
+    this.lock.lock();
+    try {
+      return this.succeeded;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public void close()
+  {
+    this.end();
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+/**
+ * A fixed-memory, log-bucketed histogram of frame durations over a rolling
+ * window of frames.
+ *
+ * Values are assigned to buckets by their power of two, with each power of
+ * two divided into {@value #SUB_BUCKETS} linear sub-buckets, so that the
+ * relative error of any reported value is at most 12.5%. The window is
+ * divided into a number of epochs; when the current epoch is full, the
+ * oldest epoch is discarded. Recording a value and querying a quantile
+ * never allocate.
+ *
+ * Instances are not thread-safe.
+ */
+
+public final class RenderDocFrameTimeHistogram
+{
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+  private final int[] epochCounts;
+  private final long[] totals;
+  private final int epochs;
+  private final int epochLength;
+  private int epochCurrent;
+  private int epochFill;
+  private long count;
+
+  private RenderDocFrameTimeHistogram(
+    final int inEpochs,
+    final int inEpochLength)
+  {
+    this.epochs =
+      inEpochs;
+    this.epochLength =
+      inEpochLength;
+    this.epochCounts =
+      new int[inEpochs * BUCKETS];
+    this.totals =
+      new long[BUCKETS];
+  }
+
+  /**
+   * Create a histogram. The window covers between
+   * {@code (epochs - 1) * epochLength} and {@code epochs * epochLength}
+   * of the most recently recorded values.
+   *
+   * @param epochs      The number of epochs, which must be at least 2
+   * @param epochLength The number of values per epoch
+   *
+   * @return A histogram
+   */
+
+  public static RenderDocFrameTimeHistogram create(
+    final int epochs,
+    final int epochLength)
+  {
+    if (epochs < 2) {
+      throw new IllegalArgumentException(
+        "Epoch count %d must be at least 2."
+          .formatted(Integer.valueOf(epochs))
+      );
+    }
+    if (epochLength < 1) {
+      throw new IllegalArgumentException(
+        "Epoch length %d must be at least 1."
+          .formatted(Integer.valueOf(epochLength))
+      );
+    }
+    return new RenderDocFrameTimeHistogram(epochs, epochLength);
+  }
+
+  private static int bucketOf(
+    final long value)
+  {
+    if (value < SUB_BUCKETS) {
+      return (int) Math.max(0L, value);
+    }
+    final var exponent = 63 - Long.numberOfLeadingZeros(value);
+    final var sub =
+      (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + sub;
+  }
+
+  private static long bucketUpperBound(
+    final int bucket)
+  {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    final var exponent = (bucket >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+    if (exponent == 63) {
+      return Long.MAX_VALUE;
+    }
+    final var sub = (long) (bucket & (SUB_BUCKETS - 1));
+    final var shift = exponent - SUB_BUCKET_BITS;
+    final var lower = (SUB_BUCKETS + sub) << shift;
+    return lower + (1L << shift) - 1L;
+  }
+
+  /**
+   * Record a value. Negative values are recorded as zero.
+   *
+   * @param value The value (typically a duration in nanoseconds)
+   */
+
+  public void record(
+    final long value)
+  {
+    if (this.epochFill == this.epochLength) {
+      this.advanceEpoch();
+    }
+
+    final var bucket = bucketOf(value);
+    final var base = this.epochCurrent * BUCKETS;
+    this.epochCounts[base + bucket] = this.epochCounts[base + bucket] + 1;
+    this.totals[bucket] = this.totals[bucket] + 1L;
+    this.epochFill = this.epochFill + 1;
+    this.count = this.count + 1L;
+  }
+
+  private void advanceEpoch()
+  {
+    this.epochCurrent = (this.epochCurrent + 1) % this.epochs;
+    this.epochFill = 0;
+
+    final var base = this.epochCurrent * BUCKETS;
+    for (int bucket = 0; bucket < BUCKETS; ++bucket) {
+      final var expired = this.epochCounts[base + bucket];
+      if (expired != 0) {
+        this.totals[bucket] = this.totals[bucket] - expired;
+        this.count = this.count - expired;
+        this.epochCounts[base + bucket] = 0;
+      }
+    }
+  }
+
+  /**
+   * @return The number of values in the window
+   */
+
+  public long count()
+  {
+    return this.count;
+  }
+
+  /**
+   * Estimate a quantile of the values in the window. The estimate is the
+   * upper bound of the bucket containing the quantile, and so is never
+   * less than the true value.
+   *
+   * @param quantile The quantile in the range {@code [0, 1]}
+   *
+   * @return The estimated value, or {@code 0} if the window is empty
+   */
+
+  public long quantile(
+    final double quantile)
+  {
+    if (!(quantile >= 0.0 && quantile <= 1.0)) {
+      throw new IllegalArgumentException(
+        "Quantile %f must be in the range [0, 1]."
+          .formatted(Double.valueOf(quantile))
+      );
+    }
+    if (this.count == 0L) {
+      return 0L;
+    }
+
+    final var rank =
+      Math.max(1L, (long) Math.ceil(quantile * (double) this.count));
+
+    var seen = 0L;
+    for (int bucket = 0; bucket < BUCKETS; ++bucket) {
+      seen = seen + this.totals[bucket];
+      if (seen >= rank) {
+        return bucketUpperBound(bucket);
+      }
+    }
+    return Long.MAX_VALUE;
+  }
+}
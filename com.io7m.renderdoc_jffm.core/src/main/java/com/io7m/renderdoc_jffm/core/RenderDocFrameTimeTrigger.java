@@ -0,0 +1,179 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A trigger that captures anomalously slow frames.
+ *
+ * The render loop passes the duration of each frame to
+ * {@link #recordFrameTime(long)}, or calls {@link #onFrameBoundary(long)}
+ * at each frame boundary so that durations are derived from consecutive
+ * boundary times. Frame times are recorded in a rolling
+ * {@link RenderDocFrameTimeHistogram}. A capture is triggered when a frame
+ * takes longer than the configured quantile of recent frame times
+ * multiplied by the configured factor, once the warmup period has passed,
+ * and outside of the cooldown period following a previous capture.
+ *
+ * Recording a frame time does not allocate. Instances must be driven from
+ * the render thread; the statistics can be read from any thread.
+ */
+
+public final class RenderDocFrameTimeTrigger
+  implements RenderDocFrameHookType
+{
+  private static final int EPOCHS = 4;
+
+  private final RenderDocType renderDoc;
+  private final RenderDocFrameTimeTriggerConfiguration configuration;
+  private final RenderDocFrameTimeHistogram histogram;
+  private final AtomicLong frames;
+  private final AtomicLong triggered;
+  private int cooldownRemaining;
+  private boolean boundarySeen;
+  private long boundaryLastNanos;
+
+  private RenderDocFrameTimeTrigger(
+    final RenderDocType inRenderDoc,
+    final RenderDocFrameTimeTriggerConfiguration inConfiguration)
+  {
+    this.renderDoc =
+      Objects.requireNonNull(inRenderDoc, "renderDoc");
+    this.configuration =
+      Objects.requireNonNull(inConfiguration, "configuration");
+    this.histogram =
+      RenderDocFrameTimeHistogram.create(
+        EPOCHS,
+        Math.max(1, inConfiguration.windowFrames() / (EPOCHS - 1))
+      );
+    this.frames =
+      new AtomicLong();
+    this.triggered =
+      new AtomicLong();
+  }
+
+  /**
+   * Create a frame time trigger.
+   *
+   * @param renderDoc     The RenderDoc API
+   * @param configuration The configuration
+   *
+   * @return A frame time trigger
+   */
+
+  public static RenderDocFrameTimeTrigger create(
+    final RenderDocType renderDoc,
+    final RenderDocFrameTimeTriggerConfiguration configuration)
+  {
+    return new RenderDocFrameTimeTrigger(renderDoc, configuration);
+  }
+
+  /**
+   * Record the duration of a frame, triggering a capture if the frame is
+   * anomalously slow.
+   *
+   * @param durationNanos The frame duration in nanoseconds
+   *
+   * @return {@code true} if a capture was triggered
+   */
+
+  public boolean recordFrameTime(
+    final long durationNanos)
+  {
+    final var frame = this.frames.getAndIncrement();
+    var trigger = false;
+
+    /*
+     * A frame is never compared against an empty histogram, as the baseline
+     * of an empty histogram is zero and every frame would exceed it. This
+     * matters when the warmup period is zero frames.
+     */
+
+    if (this.cooldownRemaining > 0) {
+      --this.cooldownRemaining;
+    } else if (frame >= this.configuration.warmupFrames()
+               && this.histogram.count() > 0L) {
+      final var baseline =
+        this.histogram.quantile(this.configuration.quantile());
+      final var threshold =
+        (double) baseline * this.configuration.factor();
+      trigger = (double) durationNanos > threshold;
+    }
+
+    /*
+     * The anomalous frame is recorded after the check, so that it does not
+     * raise the baseline it is compared against.
+     */
+
+    this.histogram.record(durationNanos);
+
+    if (trigger) {
+      this.renderDoc.triggerCapture();
+      this.triggered.incrementAndGet();
+      this.cooldownRemaining = this.configuration.cooldownFrames();
+    }
+    return trigger;
+  }
+
+  @Override
+  public void onFrameBoundary(
+    final long timeNanos)
+  {
+    if (this.boundarySeen) {
+      this.recordFrameTime(timeNanos - this.boundaryLastNanos);
+    }
+    this.boundarySeen = true;
+    this.boundaryLastNanos = timeNanos;
+  }
+
+  /**
+   * Get the current threshold. This method must be called on the render
+   * thread.
+   *
+   * @return The current threshold above which a frame triggers a capture,
+   * in nanoseconds
+   */
+
+  public long thresholdNanos()
+  {
+    return (long) (
+      (double) this.histogram.quantile(this.configuration.quantile())
+      * this.configuration.factor()
+    );
+  }
+
+  /**
+   * @return The number of frames recorded
+   */
+
+  public long framesRecorded()
+  {
+    return this.frames.get();
+  }
+
+  /**
+   * @return The number of captures triggered
+   */
+
+  public long capturesTriggered()
+  {
+    return this.triggered.get();
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+/**
+ * The configuration of a frame time trigger.
+ *
+ * @param quantile     The quantile of recent frame times used as the
+ *                     baseline (such as {@code 0.99})
+ * @param factor       A capture is triggered when a frame takes longer
+ *                     than the baseline multiplied by this factor
+ * @param windowFrames The approximate number of recent frames over which
+ *                     the baseline is computed
+ * @param warmupFrames The number of frames that must be recorded before
+ *                     any capture is triggered (the first frame never
+ *                     triggers a capture, even if this is zero)
+ * @param cooldownFrames The number of frames after a capture is triggered
+ *                       during which no further capture is triggered
+ */
+
+public record RenderDocFrameTimeTriggerConfiguration(
+  double quantile,
+  double factor,
+  int windowFrames,
+  int warmupFrames,
+  int cooldownFrames)
+{
+  private static final RenderDocFrameTimeTriggerConfiguration DEFAULTS =
+    new RenderDocFrameTimeTriggerConfiguration(0.99, 2.0, 1000, 300, 600);
+
+  /**
+   * The configuration of a frame time trigger.
+   *
+   * @param quantile     The quantile of recent frame times used as the
+   *                     baseline (such as {@code 0.99})
+   * @param factor       A capture is triggered when a frame takes longer
+   *                     than the baseline multiplied by this factor
+   * @param windowFrames The approximate number of recent frames over which
+   *                     the baseline is computed
+   * @param warmupFrames The number of frames that must be recorded before
+   *                     any capture is triggered
+   * @param cooldownFrames The number of frames after a capture is
+   *                       triggered during which no further capture is
+   *                       triggered
+   */
+
+  public RenderDocFrameTimeTriggerConfiguration
+  {
+    if (!(quantile > 0.0 && quantile <= 1.0)) {
+      throw new IllegalArgumentException(
+        "Quantile %f must be in the range (0, 1]."
+          .formatted(Double.valueOf(quantile))
+      );
+    }
+    if (!(factor >= 1.0)) {
+      throw new IllegalArgumentException(
+        "Factor %f must be at least 1.".formatted(Double.valueOf(factor))
+      );
+    }
+    if (windowFrames < 4) {
+      throw new IllegalArgumentException(
+        "Window %d must be at least 4 frames."
+          .formatted(Integer.valueOf(windowFrames))
+      );
+    }
+    if (warmupFrames < 0 || cooldownFrames < 0) {
+      throw new IllegalArgumentException(
+        "Warmup (%d) and cooldown (%d) frames must be non-negative."
+          .formatted(
+            Integer.valueOf(warmupFrames),
+            Integer.valueOf(cooldownFrames)
+          )
+      );
+    }
+  }
+
+  /**
+   * @return The default configuration
+   */
+
+  public static RenderDocFrameTimeTriggerConfiguration defaults()
+  {
+    return DEFAULTS;
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * The raw functions exposed by the RenderDoc in-application API.
+ *
+ * The functions are expressed in terms of the underlying C API: strings
+ * are pointers to null-terminated UTF-8 data, and boolean results are
+ * integers. The default implementation calls directly into the RenderDoc
+ * native library; alternative implementations can be passed to
+ * {@link RenderDoc#create(RenderDocConfiguration, RenderDocFunctionsType)},
+ * which is primarily useful for testing.
+ */
+
+public interface RenderDocFunctionsType
+{
+  /**
+   * {@code void TriggerCapture()}
+   */
+
+  void triggerCapture();
+
+  /**
+   * {@code void TriggerMultiFrameCapture(uint32_t)}
+   *
+   * @param frames The number of consecutive frames to capture
+   */
+
+  void triggerMultiFrameCapture(
+    int frames);
+
+  /**
+   * {@code uint32_t GetNumCaptures()}
+   *
+   * @return The number of captures
+   */
+
+  int getNumCaptures();
+
+  /**
+   * {@code uint32_t GetCapture(uint32_t, char *, uint32_t *, uint64_t *)}
+   *
+   * @param index      The capture index
+   * @param filename   A buffer that receives the null-terminated capture
+   *                   file name, or {@link MemorySegment#NULL}
+   * @param pathLength A {@code uint32_t} that receives the length of the
+   *                   file name including the null terminator, or
+   *                   {@link MemorySegment#NULL}
+   * @param timestamp  A {@code uint64_t} that receives the capture time in
+   *                   seconds since the UNIX epoch, or
+   *                   {@link MemorySegment#NULL}
+   *
+   * @return 1 if the capture index is valid
+   */
+
+  int getCapture(
+    int index,
+    MemorySegment filename,
+    MemorySegment pathLength,
+    MemorySegment timestamp);
+
+  /**
+   * {@code uint32_t IsFrameCapturing()}
+   *
+   * @return 1 if a frame capture is in progress
+   */
+
+  int isFrameCapturing();
+
+  /**
+   * {@code int SetCaptureOptionU32(RENDERDOC_CaptureOption, uint32_t)}
+   *
+   * @param option The option
+   * @param value  The value
+   *
+   * @return 1 if the option and value are valid
+   */
+
+  int setCaptureOptionU32(
+    int option,
+    int value);
+
+  /**
+   * {@code int SetCaptureOptionF32(RENDERDOC_CaptureOption, float)}
+   *
+   * @param option The option
+   * @param value  The value
+   *
+   * @return 1 if the option and value are valid
+   */
+
+  int setCaptureOptionF32(
+    int option,
+    float value);
+
+  /**
+   * {@code uint32_t GetCaptureOptionU32(RENDERDOC_CaptureOption)}
+   *
+   * @param option The option
+   *
+   * @return The option value
+   */
+
+  int getCaptureOptionU32(
+    int option);
+
+  /**
+   * {@code float GetCaptureOptionF32(RENDERDOC_CaptureOption)}
+   *
+   * @param option The option
+   *
+   * @return The option value
+   */
+
+  float getCaptureOptionF32(
+    int option);
+
+  /**
+   * {@code void SetCaptureFilePathTemplate(const char *)}
+   *
+   * @param pathTemplate The null-terminated path template
+   */
+
+  void setCaptureFilePathTemplate(
+    MemorySegment pathTemplate);
+
+  /**
+   * {@code const char *GetCaptureFilePathTemplate()}
+   *
+   * @return The null-terminated path template
+   */
+
+  MemorySegment getCaptureFilePathTemplate();
+
+  /**
+   * {@code void SetCaptureTitle(const char *)}
+   *
+   * @param title The null-terminated title
+   */
+
+  void setCaptureTitle(
+    MemorySegment title);
+
+  /**
+   * {@code void SetCaptureFileComments(const char *, const char *)}
+   *
+   * @param filePath The null-terminated capture file path, or
+   *                 {@link MemorySegment#NULL} for the most recent capture
+   * @param comments The null-terminated comments
+   */
+
+  void setCaptureFileComments(
+    MemorySegment filePath,
+    MemorySegment comments);
+
+  /**
+   * {@code void StartFrameCapture(RENDERDOC_DevicePointer,
+   * RENDERDOC_WindowHandle)}
+   *
+   * @param device The device pointer, or {@link MemorySegment#NULL} to
+   *               match any device
+   * @param window The window handle, or {@link MemorySegment#NULL} to
+   *               match any window
+   */
+
+  void startFrameCapture(
+    MemorySegment device,
+    MemorySegment window);
+
+  /**
+   * {@code uint32_t EndFrameCapture(RENDERDOC_DevicePointer,
+   * RENDERDOC_WindowHandle)}
+   *
+   * @param device The device pointer, or {@link MemorySegment#NULL} to
+   *               match any device
+   * @param window The window handle, or {@link MemorySegment#NULL} to
+   *               match any window
+   *
+   * @return 1 if the capture succeeded
+   */
+
+  int endFrameCapture(
+    MemorySegment device,
+    MemorySegment window);
+
+  /**
+   * {@code uint32_t DiscardFrameCapture(RENDERDOC_DevicePointer,
+   * RENDERDOC_WindowHandle)}
+   *
+   * @param device The device pointer, or {@link MemorySegment#NULL} to
+   *               match any device
+   * @param window The window handle, or {@link MemorySegment#NULL} to
+   *               match any window
+   *
+   * @return 1 if the capture was discarded
+   */
+
+  int discardFrameCapture(
+    MemorySegment device,
+    MemorySegment window);
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * The JMX listener behind {@link RenderDocGcPauseTrigger}. This is the only
+ * class that refers to the {@code java.management} module.
+ */
+
+final class RenderDocGcPauseListener implements AutoCloseable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(RenderDocGcPauseListener.class);
+
+  private static final String GC_NOTIFICATION =
+    "com.sun.management.gc.notification";
+
+  private final Consumer<Pause> receiver;
+  private final List<NotificationEmitter> emitters;
+  private final NotificationListener listener;
+  private final AtomicBoolean closed;
+
+  /**
+   * A garbage collection pause.
+   *
+   * @param collector      The collector name
+   * @param action         The collector action
+   * @param cause          The cause of the collection
+   * @param durationMillis The duration of the pause
+   * @param id             The collection ID
+   */
+
+  record Pause(
+    Object collector,
+    Object action,
+    Object cause,
+    long durationMillis,
+    long id)
+  {
+
+  }
+
+  RenderDocGcPauseListener(
+    final Consumer<Pause> inReceiver)
+  {
+    this.receiver =
+      Objects.requireNonNull(inReceiver, "receiver");
+    this.emitters =
+      new ArrayList<>();
+    this.listener =
+      (notification, handback) -> this.onNotification(notification);
+    this.closed =
+      new AtomicBoolean(false);
+  }
+
+  void start()
+  {
+    for (final var bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (isConcurrent(bean.getName())) {
+        continue;
+      }
+      if (bean instanceof final NotificationEmitter emitter) {
+        emitter.addNotificationListener(this.listener, null, null);
+        this.emitters.add(emitter);
+      }
+    }
+  }
+
+  private static boolean isConcurrent(
+    final String collector)
+  {
+    final var name = collector.toLowerCase(Locale.ROOT);
+    return name.contains("concurrent") || name.endsWith("cycles");
+  }
+
+  private void onNotification(
+    final Notification notification)
+  {
+    if (!GC_NOTIFICATION.equals(notification.getType())) {
+      return;
+    }
+    if (!(notification.getUserData() instanceof final CompositeData data)) {
+      return;
+    }
+
+    /*
+     * The notification data is read through the open type, rather than
+     * through com.sun.management.GarbageCollectionNotificationInfo, so
+     * that only the java.management module is required.
+     */
+
+    final var info = (CompositeData) data.get("gcInfo");
+    this.receiver.accept(
+      new Pause(
+        data.get("gcName"),
+        data.get("gcAction"),
+        data.get("gcCause"),
+        ((Long) info.get("duration")).longValue(),
+        ((Long) info.get("id")).longValue()
+      )
+    );
+  }
+
+  @Override
+  public void close()
+  {
+    if (this.closed.compareAndSet(false, true)) {
+      for (final var emitter : this.emitters) {
+        try {
+          emitter.removeNotificationListener(this.listener);
+        } catch (final ListenerNotFoundException e) {
+          LOG.debug("Listener was not registered: ", e);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A trigger that requests a capture of the next frame whenever a garbage
+ * collection pause exceeds a threshold.
+ *
+ * The trigger listens for the notifications emitted by the platform's
+ * {@code GarbageCollectorMXBean} instances, and passes each long pause to
+ * a {@link RenderDocCaptureCoalescer} with a reason describing the pause
+ * (collector, action, cause, and duration). The coalescer triggers the
+ * capture at the next frame boundary and records the reason in the
+ * capture's comments. Notifications are delivered on a JMX thread, and so
+ * no work is done on the render thread until the frame boundary.
+ *
+ * Collectors that report concurrent cycles rather than pauses (such as
+ * {@code G1 Concurrent GC} and {@code ZGC Cycles}) are ignored.
+ *
+ * The trigger requires the {@code java.management} module. The core module
+ * does not require it unconditionally, so applications that use the trigger
+ * must ensure that the module is present at run time (for example, by
+ * requiring it themselves).
+ */
+
+public final class RenderDocGcPauseTrigger implements AutoCloseable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(RenderDocGcPauseTrigger.class);
+
+  private final RenderDocCaptureCoalescer coalescer;
+  private final long thresholdMillis;
+  private final RenderDocGcPauseListener listener;
+  private final AtomicLong pausesObserved;
+  private final AtomicLong capturesRequested;
+
+  private RenderDocGcPauseTrigger(
+    final RenderDocCaptureCoalescer inCoalescer,
+    final long inThresholdMillis)
+  {
+    this.coalescer =
+      Objects.requireNonNull(inCoalescer, "coalescer");
+    this.thresholdMillis =
+      inThresholdMillis;
+    this.listener =
+      new RenderDocGcPauseListener(this::onPause);
+    this.pausesObserved =
+      new AtomicLong();
+    this.capturesRequested =
+      new AtomicLong();
+  }
+
+  /**
+   * Create a trigger, and start listening for garbage collections.
+   *
+   * @param coalescer The coalescer through which captures are requested
+   * @param threshold The minimum pause duration that requests a capture
+   *
+   * @return A trigger
+   *
+   * @throws UnsupportedOperationException If the {@code java.management}
+   *                                       module is not present
+   */
+
+  public static RenderDocGcPauseTrigger create(
+    final RenderDocCaptureCoalescer coalescer,
+    final Duration threshold)
+  {
+    Objects.requireNonNull(threshold, "threshold");
+    RenderDocModules.checkPresent("java.management", "GC pause trigger");
+
+    if (threshold.isNegative()) {
+      throw new IllegalArgumentException(
+        "Threshold %s must be non-negative.".formatted(threshold)
+      );
+    }
+
+    /*
+     * The JMX code is kept in a separate class so that this class can be
+     * loaded (and this check can run) without the java.management module.
+     */
+
+    final var trigger =
+      new RenderDocGcPauseTrigger(coalescer, threshold.toMillis());
+
+    trigger.listener.start();
+    return trigger;
+  }
+
+  private void onPause(
+    final RenderDocGcPauseListener.Pause pause)
+  {
+    this.pausesObserved.incrementAndGet();
+
+    if (pause.durationMillis() < this.thresholdMillis) {
+      return;
+    }
+
+    final var reason =
+      "GC pause: %s, %s (%s), %d ms, id %d".formatted(
+        pause.collector(),
+        pause.action(),
+        pause.cause(),
+        Long.valueOf(pause.durationMillis()),
+        Long.valueOf(pause.id())
+      );
+
+    LOG.debug("{}", reason);
+    this.capturesRequested.incrementAndGet();
+    this.coalescer.requestCapture(reason);
+  }
+
+  /**
+   * @return The number of garbage collection pauses observed
+   */
+
+  public long pausesObserved()
+  {
+    return this.pausesObserved.get();
+  }
+
+  /**
+   * @return The number of captures requested
+   */
+
+  public long capturesRequested()
+  {
+    return this.capturesRequested.get();
+  }
+
+  @Override
+  public void close()
+  {
+    this.listener.close();
+  }
+}
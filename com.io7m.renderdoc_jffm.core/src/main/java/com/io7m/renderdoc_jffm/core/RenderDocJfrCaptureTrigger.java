@@ -0,0 +1,228 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * A trigger that requests a capture of the next frame whenever a JFR event
+ * matches a predicate.
+ *
+ * The trigger runs a {@link RecordingStream} for a single event type on a
+ * background thread. Each event is tested against the predicate on that
+ * thread; matching events are passed to a {@link RenderDocCaptureCoalescer}
+ * with a reason describing the event, at most once per cooldown period.
+ * The coalescer triggers the capture at the next frame boundary and
+ * records the reason in the capture's comments. The render thread does no
+ * work other than the coalescer's usual frame boundary check.
+ *
+ * JFR delivers events to streams each time the recording is flushed, which
+ * happens approximately once per second. A matching event therefore
+ * results in a capture at most around one second (plus one frame) after
+ * the event was committed. The stream is unordered so that events are not
+ * held back for sorting. Periodic events are emitted at the period given
+ * in the configuration; without one, they are emitted only at recording
+ * chunk boundaries.
+ *
+ * The trigger requires the {@code jdk.jfr} module. The core module does not
+ * require it unconditionally, so applications that use the trigger must
+ * ensure that the module is present at run time (for example, by requiring
+ * it themselves).
+ */
+
+public final class RenderDocJfrCaptureTrigger implements AutoCloseable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(RenderDocJfrCaptureTrigger.class);
+
+  private final RenderDocCaptureCoalescer coalescer;
+  private final RenderDocJfrCaptureTriggerConfiguration configuration;
+  private final Predicate<RecordedEvent> predicate;
+  private final RecordingStream stream;
+  private final AtomicLong eventsObserved;
+  private final AtomicLong eventsMatched;
+  private final AtomicLong capturesRequested;
+  private long timeLastRequest;
+  private boolean requested;
+
+  private RenderDocJfrCaptureTrigger(
+    final RenderDocCaptureCoalescer inCoalescer,
+    final RenderDocJfrCaptureTriggerConfiguration inConfiguration,
+    final Predicate<RecordedEvent> inPredicate,
+    final RecordingStream inStream)
+  {
+    this.coalescer =
+      Objects.requireNonNull(inCoalescer, "coalescer");
+    this.configuration =
+      Objects.requireNonNull(inConfiguration, "configuration");
+    this.predicate =
+      Objects.requireNonNull(inPredicate, "predicate");
+    this.stream =
+      Objects.requireNonNull(inStream, "stream");
+    this.eventsObserved =
+      new AtomicLong();
+    this.eventsMatched =
+      new AtomicLong();
+    this.capturesRequested =
+      new AtomicLong();
+  }
+
+  /**
+   * Create a trigger, and start streaming events.
+   *
+   * @param coalescer     The coalescer through which captures are requested
+   * @param configuration The configuration
+   * @param predicate     The predicate that events must match
+   *
+   * @return A trigger
+   *
+   * @throws UnsupportedOperationException If the {@code jdk.jfr} module is
+   *                                       not present
+   */
+
+  public static RenderDocJfrCaptureTrigger create(
+    final RenderDocCaptureCoalescer coalescer,
+    final RenderDocJfrCaptureTriggerConfiguration configuration,
+    final Predicate<RecordedEvent> predicate)
+  {
+    Objects.requireNonNull(configuration, "configuration");
+    RenderDocModules.checkPresent("jdk.jfr", "JFR capture trigger");
+
+    final var stream = new RecordingStream();
+    try {
+      final var settings =
+        stream.enable(configuration.eventName())
+          .withThreshold(configuration.threshold());
+
+      configuration.period().ifPresent(settings::withPeriod);
+
+      stream.setOrdered(false);
+
+      final var trigger =
+        new RenderDocJfrCaptureTrigger(
+          coalescer,
+          configuration,
+          predicate,
+          stream
+        );
+
+      stream.onEvent(configuration.eventName(), trigger::onEvent);
+      stream.startAsync();
+      return trigger;
+    } catch (final RuntimeException e) {
+      stream.close();
+      throw e;
+    }
+  }
+
+  private void onEvent(
+    final RecordedEvent event)
+  {
+    this.eventsObserved.incrementAndGet();
+
+    final boolean matches;
+    try {
+      matches = this.predicate.test(event);
+    } catch (final RuntimeException e) {
+      LOG.warn("Event predicate raised an exception: ", e);
+      return;
+    }
+    if (!matches) {
+      return;
+    }
+    this.eventsMatched.incrementAndGet();
+
+    /*
+     * Events are delivered on the stream's single thread, so the cooldown
+     * state requires no synchronization.
+     */
+
+    final var timeNow = System.nanoTime();
+    if (this.requested) {
+      final var elapsed = timeNow - this.timeLastRequest;
+      if (elapsed < this.configuration.cooldown().toNanos()) {
+        return;
+      }
+    }
+
+    this.requested = true;
+    this.timeLastRequest = timeNow;
+    this.capturesRequested.incrementAndGet();
+    this.coalescer.requestCapture(reasonOf(event));
+  }
+
+  private static String reasonOf(
+    final RecordedEvent event)
+  {
+    final var text = new StringBuilder(64);
+    text.append("JFR event ");
+    text.append(event.getEventType().getName());
+    text.append(" at ");
+    text.append(event.getStartTime());
+    text.append(", duration ");
+    text.append(event.getDuration().toNanos() / 1_000L);
+    text.append(" us");
+
+    final var thread = event.getThread();
+    if (thread != null && thread.getJavaName() != null) {
+      text.append(", thread ");
+      text.append(thread.getJavaName());
+    }
+    return text.toString();
+  }
+
+  /**
+   * @return The number of events delivered by the stream
+   */
+
+  public long eventsObserved()
+  {
+    return this.eventsObserved.get();
+  }
+
+  /**
+   * @return The number of events that matched the predicate
+   */
+
+  public long eventsMatched()
+  {
+    return this.eventsMatched.get();
+  }
+
+  /**
+   * @return The number of captures requested
+   */
+
+  public long capturesRequested()
+  {
+    return this.capturesRequested.get();
+  }
+
+  @Override
+  public void close()
+  {
+    this.stream.close();
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The configuration of a JFR capture trigger.
+ *
+ * @param eventName The name of the JFR event (such as
+ *                  {@code jdk.ThreadPark})
+ * @param threshold The JFR threshold for the event; events with a
+ *                  shorter duration are not recorded at all
+ * @param cooldown  The minimum time between capture requests
+ * @param period    The JFR period for the event, if any. Without a
+ *                  period, periodic events (such as
+ *                  {@code jdk.CPULoad}) are emitted only at recording
+ *                  chunk boundaries, so a trigger for a periodic event
+ *                  almost never observes it. The period is ignored
+ *                  for events that are not periodic.
+ */
+
+public record RenderDocJfrCaptureTriggerConfiguration(
+  String eventName,
+  Duration threshold,
+  Duration cooldown,
+  Optional<Duration> period)
+{
+  /**
+   * The configuration of a JFR capture trigger.
+   *
+   * @param eventName The name of the JFR event (such as
+   *                  {@code jdk.ThreadPark})
+   * @param threshold The JFR threshold for the event; events with a
+   *                  shorter duration are not recorded at all
+   * @param cooldown  The minimum time between capture requests
+   * @param period    The JFR period for the event, if any. Without a
+   *                  period, periodic events (such as
+   *                  {@code jdk.CPULoad}) are emitted only at recording
+   *                  chunk boundaries, so a trigger for a periodic event
+   *                  almost never observes it. The period is ignored
+   *                  for events that are not periodic.
+   */
+
+  public RenderDocJfrCaptureTriggerConfiguration
+  {
+    Objects.requireNonNull(eventName, "eventName");
+    Objects.requireNonNull(threshold, "threshold");
+    Objects.requireNonNull(cooldown, "cooldown");
+    Objects.requireNonNull(period, "period");
+
+    if (eventName.isBlank()) {
+      throw new IllegalArgumentException("Event name must not be blank.");
+    }
+    if (threshold.isNegative()) {
+      throw new IllegalArgumentException(
+        "Threshold %s must be non-negative.".formatted(threshold)
+      );
+    }
+    if (cooldown.isNegative()) {
+      throw new IllegalArgumentException(
+        "Cooldown %s must be non-negative.".formatted(cooldown)
+      );
+    }
+    if (period.isPresent()) {
+      final var time = period.get();
+      if (time.isNegative() || time.isZero()) {
+        throw new IllegalArgumentException(
+          "Period %s must be positive.".formatted(time)
+        );
+      }
+    }
+  }
+
+  /**
+   * Create a configuration for the given event, with a zero threshold, a
+   * ten second cooldown, and no period.
+   *
+   * @param eventName The name of the JFR event
+   *
+   * @return A configuration
+   */
+
+  public static RenderDocJfrCaptureTriggerConfiguration of(
+    final String eventName)
+  {
+    return new RenderDocJfrCaptureTriggerConfiguration(
+      eventName,
+      Duration.ZERO,
+      Duration.ofSeconds(10L),
+      Optional.empty()
+    );
+  }
+
+  /**
+   * @param newThreshold The new threshold
+   *
+   * @return This configuration with the given threshold
+   */
+
+  public RenderDocJfrCaptureTriggerConfiguration withThreshold(
+    final Duration newThreshold)
+  {
+    return new RenderDocJfrCaptureTriggerConfiguration(
+      this.eventName,
+      newThreshold,
+      this.cooldown,
+      this.period
+    );
+  }
+
+  /**
+   * @param newCooldown The new cooldown
+   *
+   * @return This configuration with the given cooldown
+   */
+
+  public RenderDocJfrCaptureTriggerConfiguration withCooldown(
+    final Duration newCooldown)
+  {
+    return new RenderDocJfrCaptureTriggerConfiguration(
+      this.eventName,
+      this.threshold,
+      newCooldown,
+      this.period
+    );
+  }
+
+  /**
+   * @param newPeriod The new period
+   *
+   * @return This configuration with the given period
+   */
+
+  public RenderDocJfrCaptureTriggerConfiguration withPeriod(
+    final Duration newPeriod)
+  {
+    return new RenderDocJfrCaptureTriggerConfiguration(
+      this.eventName,
+      this.threshold,
+      this.cooldown,
+      Optional.of(newPeriod)
+    );
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+/**
+ * Checks for the optional platform modules that some triggers depend upon.
+ *
+ * The core module declares these modules as {@code requires static}, so
+ * applications (and jlinked runtimes) that do not use the triggers are not
+ * forced to include them. A trigger checks that its module is present
+ * before touching any of the module's classes.
+ */
+
+final class RenderDocModules
+{
+  private RenderDocModules()
+  {
+
+  }
+
+  /**
+   * Check that the given module is present in the boot layer.
+   *
+   * @param module The module name
+   * @param user   A description of the code that requires the module
+   *
+   * @throws UnsupportedOperationException If the module is not present
+   */
+
+  static void checkPresent(
+    final String module,
+    final String user)
+  {
+    if (ModuleLayer.boot().findModule(module).isEmpty()) {
+      throw new UnsupportedOperationException(
+        "The %s requires the %s module, which is not present in this runtime."
+          .formatted(user, module)
+      );
+    }
+  }
+}
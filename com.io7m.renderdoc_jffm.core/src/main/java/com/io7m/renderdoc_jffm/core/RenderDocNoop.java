@@ -0,0 +1,248 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A RenderDoc implementation that does nothing, used when RenderDoc is not
+ * present.
+ *
+ * The class is final and stateless, and every method is trivial, so that a
+ * call site that only ever sees this implementation is monomorphic and the
+ * JIT compiler can inline the calls away entirely.
+ */
+
+final class RenderDocNoop implements RenderDocType
+{
+  private static final RenderDocNoop INSTANCE =
+    new RenderDocNoop();
+
+  private static final RenderDocOptionProfile PROFILE =
+    RenderDocOptionProfile.ofValues(new int[RenderDocOptionKey.values().length]);
+
+  private RenderDocNoop()
+  {
+
+  }
+
+  static RenderDocNoop get()
+  {
+    return INSTANCE;
+  }
+
+  @Override
+  public void triggerCapture()
+  {
+
+  }
+
+  @Override
+  public CompletableFuture<RenderDocCaptureInfo> triggerCaptureAsync()
+  {
+    return notLoaded();
+  }
+
+  @Override
+  public CompletableFuture<RenderDocCaptureInfo> triggerCaptureAsync(
+    final Duration timeout)
+  {
+    Objects.requireNonNull(timeout, "timeout");
+    return notLoaded();
+  }
+
+  private static CompletableFuture<RenderDocCaptureInfo> notLoaded()
+  {
+    return CompletableFuture.failedFuture(
+      new IllegalStateException("RenderDoc is not loaded.")
+    );
+  }
+
+  @Override
+  public void triggerMultiFrameCapture(
+    final int frames)
+  {
+
+  }
+
+  @Override
+  public long numberOfCaptures()
+  {
+    return 0L;
+  }
+
+  @Override
+  public List<RenderDocCaptureInfo> captures()
+  {
+    return List.of();
+  }
+
+  @Override
+  public List<RenderDocCaptureInfo> capturesSince(
+    final int index)
+  {
+    return List.of();
+  }
+
+  @Override
+  public Optional<RenderDocCaptureInfo> capture(
+    final int index)
+  {
+    return Optional.empty();
+  }
+
+  @Override
+  public boolean isFrameCapturing()
+  {
+    return false;
+  }
+
+  @Override
+  public Optional<Path> captureFilePathTemplate()
+  {
+    return Optional.empty();
+  }
+
+  @Override
+  public void setCaptureFilePathTemplate(
+    final Path file)
+  {
+    Objects.requireNonNull(file, "file");
+  }
+
+  @Override
+  public void setCaptureTitle(
+    final String title)
+  {
+    Objects.requireNonNull(title, "title");
+  }
+
+  @Override
+  public void setCaptureFileComments(
+    final Path file,
+    final String comments)
+  {
+    Objects.requireNonNull(file, "file");
+    Objects.requireNonNull(comments, "comments");
+  }
+
+  @Override
+  public void setLatestCaptureFileComments(
+    final String comments)
+  {
+    Objects.requireNonNull(comments, "comments");
+  }
+
+  @Override
+  public void setOption(
+    final RenderDocOptionType option)
+  {
+    Objects.requireNonNull(option, "option");
+  }
+
+  @Override
+  public boolean setOptionU32(
+    final RenderDocOptionKey key,
+    final int value)
+  {
+    Objects.requireNonNull(key, "key");
+    return false;
+  }
+
+  @Override
+  public boolean setOptionF32(
+    final RenderDocOptionKey key,
+    final float value)
+  {
+    Objects.requireNonNull(key, "key");
+    return false;
+  }
+
+  @Override
+  public int optionU32(
+    final RenderDocOptionKey key)
+  {
+    Objects.requireNonNull(key, "key");
+    return 0;
+  }
+
+  @Override
+  public float optionF32(
+    final RenderDocOptionKey key)
+  {
+    Objects.requireNonNull(key, "key");
+    return 0.0f;
+  }
+
+  @Override
+  public void refreshOptions()
+  {
+
+  }
+
+  @Override
+  public RenderDocOptionProfile optionProfile()
+  {
+    return PROFILE;
+  }
+
+  @Override
+  public boolean applyOptionProfile(
+    final RenderDocOptionProfile profile)
+  {
+    Objects.requireNonNull(profile, "profile");
+    return false;
+  }
+
+  @Override
+  public <T extends RenderDocOptionType> T option(
+    final Class<T> option)
+  {
+    Objects.requireNonNull(option, "option");
+
+    final var key = RenderDocOptionKeys.keyOf(option);
+    return option.cast(RenderDocOptionKeys.decode(key, 0));
+  }
+
+  @Override
+  public RenderDocFrameCaptureScope startFrameCapture(
+    final RenderDocDevicePointer device,
+    final RenderDocWindowHandle window)
+  {
+    Objects.requireNonNull(device, "device");
+    Objects.requireNonNull(window, "window");
+    return RenderDocFrameCaptureScope.noop();
+  }
+
+  @Override
+  public void close()
+  {
+
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[RenderDocNoop]";
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * RenderDoc functions that do nothing, used by the no-op implementation.
+ */
+
+final class RenderDocNoopFunctions implements RenderDocFunctionsType
+{
+  private static final RenderDocNoopFunctions INSTANCE =
+    new RenderDocNoopFunctions();
+
+  private RenderDocNoopFunctions()
+  {
+
+  }
+
+  static RenderDocNoopFunctions get()
+  {
+    return INSTANCE;
+  }
+
+  @Override
+  public void triggerCapture()
+  {
+
+  }
+
+  @Override
+  public void triggerMultiFrameCapture(
+    final int frames)
+  {
+
+  }
+
+  @Override
+  public int getNumCaptures()
+  {
+    return 0;
+  }
+
+  @Override
+  public int getCapture(
+    final int index,
+    final MemorySegment filename,
+    final MemorySegment pathLength,
+    final MemorySegment timestamp)
+  {
+    return 0;
+  }
+
+  @Override
+  public int isFrameCapturing()
+  {
+    return 0;
+  }
+
+  @Override
+  public int setCaptureOptionU32(
+    final int option,
+    final int value)
+  {
+    return 0;
+  }
+
+  @Override
+  public int setCaptureOptionF32(
+    final int option,
+    final float value)
+  {
+    return 0;
+  }
+
+  @Override
+  public int getCaptureOptionU32(
+    final int option)
+  {
+    return 0;
+  }
+
+  @Override
+  public float getCaptureOptionF32(
+    final int option)
+  {
+    return 0.0f;
+  }
+
+  @Override
+  public void setCaptureFilePathTemplate(
+    final MemorySegment pathTemplate)
+  {
+
+  }
+
+  @Override
+  public MemorySegment getCaptureFilePathTemplate()
+  {
+    return MemorySegment.NULL;
+  }
+
+  @Override
+  public void setCaptureTitle(
+    final MemorySegment title)
+  {
+
+  }
+
+  @Override
+  public void setCaptureFileComments(
+    final MemorySegment filePath,
+    final MemorySegment comments)
+  {
+
+  }
+
+  @Override
+  public void startFrameCapture(
+    final MemorySegment device,
+    final MemorySegment window)
+  {
+
+  }
+
+  @Override
+  public int endFrameCapture(
+    final MemorySegment device,
+    final MemorySegment window)
+  {
+    return 0;
+  }
+
+  @Override
+  public int discardFrameCapture(
+    final MemorySegment device,
+    final MemorySegment window)
+  {
+    return 0;
+  }
+}
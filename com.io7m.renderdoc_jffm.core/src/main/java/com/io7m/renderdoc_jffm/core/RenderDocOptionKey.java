@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.APIValidation;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.AllowFullscreen;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.AllowVSync;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.CaptureAllCmdLists;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.CaptureCallstacks;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.CaptureCallstacksOnlyActions;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.DebugOutputMute;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.DelayForDebugger;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.HookIntoChildren;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.RefAllResources;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.SoftMemoryLimit;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.VerifyBufferAccess;
+
+import java.util.Objects;
+
+/**
+ * The keys of the available RenderDoc options. Each key corresponds to
+ * exactly one {@link RenderDocOptionType} record class.
+ */
+
+public enum RenderDocOptionKey
+{
+  /**
+   * @see AllowVSync
+   */
+
+  ALLOW_VSYNC(AllowVSync.class),
+
+  /**
+   * @see AllowFullscreen
+   */
+
+  ALLOW_FULLSCREEN(AllowFullscreen.class),
+
+  /**
+   * @see APIValidation
+   */
+
+  API_VALIDATION(APIValidation.class),
+
+  /**
+   * @see CaptureCallstacks
+   */
+
+  CAPTURE_CALLSTACKS(CaptureCallstacks.class),
+
+  /**
+   * @see CaptureCallstacksOnlyActions
+   */
+
+  CAPTURE_CALLSTACKS_ONLY_ACTIONS(CaptureCallstacksOnlyActions.class),
+
+  /**
+   * @see DelayForDebugger
+   */
+
+  DELAY_FOR_DEBUGGER(DelayForDebugger.class),
+
+  /**
+   * @see VerifyBufferAccess
+   */
+
+  VERIFY_BUFFER_ACCESS(VerifyBufferAccess.class),
+
+  /**
+   * @see HookIntoChildren
+   */
+
+  HOOK_INTO_CHILDREN(HookIntoChildren.class),
+
+  /**
+   * @see RefAllResources
+   */
+
+  REF_ALL_RESOURCES(RefAllResources.class),
+
+  /**
+   * @see CaptureAllCmdLists
+   */
+
+  CAPTURE_ALL_CMD_LISTS(CaptureAllCmdLists.class),
+
+  /**
+   * @see DebugOutputMute
+   */
+
+  DEBUG_OUTPUT_MUTE(DebugOutputMute.class),
+
+  /**
+   * @see SoftMemoryLimit
+   */
+
+  SOFT_MEMORY_LIMIT(SoftMemoryLimit.class);
+
+  private final Class<? extends RenderDocOptionType> optionClass;
+
+  RenderDocOptionKey(
+    final Class<? extends RenderDocOptionType> inOptionClass)
+  {
+    this.optionClass =
+      Objects.requireNonNull(inOptionClass, "optionClass");
+  }
+
+  /**
+   * @return The option record class associated with this key
+   */
+
+  public Class<? extends RenderDocOptionType> optionClass()
+  {
+    return this.optionClass;
+  }
+}
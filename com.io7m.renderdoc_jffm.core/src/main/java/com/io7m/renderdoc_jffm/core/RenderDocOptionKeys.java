@@ -0,0 +1,181 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.APIValidation;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.AllowFullscreen;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.AllowVSync;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.CaptureAllCmdLists;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.CaptureCallstacks;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.CaptureCallstacksOnlyActions;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.DebugOutputMute;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.DelayForDebugger;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.HookIntoChildren;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.RefAllResources;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.SoftMemoryLimit;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.VerifyBufferAccess;
+
+/**
+ * The mappings between option record classes, option keys, and native
+ * {@code RENDERDOC_CaptureOption} values.
+ *
+ * The values are declared here rather than read from the generated
+ * bindings, because initializing the generated header class requires the
+ * RenderDoc library to be loadable.
+ */
+
+final class RenderDocOptionKeys
+{
+  private static final int[] NATIVE_KEYS =
+    createNativeKeys();
+
+  private static final ClassValue<RenderDocOptionKey> KEYS_BY_CLASS =
+    new ClassValue<>()
+    {
+      @Override
+      protected RenderDocOptionKey computeValue(
+        final Class<?> type)
+      {
+        for (final var key : RenderDocOptionKey.values()) {
+          if (key.optionClass() == type) {
+            return key;
+          }
+        }
+        return null;
+      }
+    };
+
+  private RenderDocOptionKeys()
+  {
+
+  }
+
+  private static int[] createNativeKeys()
+  {
+    final var keys = RenderDocOptionKey.values();
+    final var table = new int[keys.length];
+    for (final var key : keys) {
+      table[key.ordinal()] = switch (key) {
+        case ALLOW_VSYNC -> 0;
+        case ALLOW_FULLSCREEN -> 1;
+        case API_VALIDATION -> 2;
+        case CAPTURE_CALLSTACKS -> 3;
+        case CAPTURE_CALLSTACKS_ONLY_ACTIONS -> 4;
+        case DELAY_FOR_DEBUGGER -> 5;
+        case VERIFY_BUFFER_ACCESS -> 6;
+        case HOOK_INTO_CHILDREN -> 7;
+        case REF_ALL_RESOURCES -> 8;
+        case CAPTURE_ALL_CMD_LISTS -> 10;
+        case DEBUG_OUTPUT_MUTE -> 11;
+        case SOFT_MEMORY_LIMIT -> 13;
+      };
+    }
+    return table;
+  }
+
+  /**
+   * @param key The option key
+   *
+   * @return The {@code eRENDERDOC_Option_*} value for the key
+   */
+
+  static int nativeKey(
+    final RenderDocOptionKey key)
+  {
+    return NATIVE_KEYS[key.ordinal()];
+  }
+
+  /**
+   * @param optionClass The option record class
+   *
+   * @return The key for the option record class
+   *
+   * @throws IllegalArgumentException If the class is not an option class
+   */
+
+  static RenderDocOptionKey keyOf(
+    final Class<?> optionClass)
+  {
+    final var key = KEYS_BY_CLASS.get(optionClass);
+    if (key == null) {
+      throw new IllegalArgumentException(
+        "Unrecognized option class: %s".formatted(optionClass)
+      );
+    }
+    return key;
+  }
+
+  /**
+   * @param option The option
+   *
+   * @return The integer value of the option
+   */
+
+  static int encode(
+    final RenderDocOptionType option)
+  {
+    return switch (option) {
+      case final APIValidation o -> bool(o.enabled());
+      case final AllowFullscreen o -> bool(o.allow());
+      case final AllowVSync o -> bool(o.allow());
+      case final CaptureAllCmdLists o -> bool(o.enabled());
+      case final CaptureCallstacks o -> bool(o.enabled());
+      case final CaptureCallstacksOnlyActions o -> bool(o.enabled());
+      case final DebugOutputMute o -> bool(o.enabled());
+      case final DelayForDebugger o -> o.seconds();
+      case final HookIntoChildren o -> bool(o.enabled());
+      case final RefAllResources o -> bool(o.enabled());
+      case final SoftMemoryLimit o -> o.megabytes();
+      case final VerifyBufferAccess o -> bool(o.enabled());
+    };
+  }
+
+  /**
+   * @param key   The option key
+   * @param value The integer value of the option
+   *
+   * @return The option record for the given key and value
+   */
+
+  static RenderDocOptionType decode(
+    final RenderDocOptionKey key,
+    final int value)
+  {
+    return switch (key) {
+      case ALLOW_VSYNC -> new AllowVSync(value == 1);
+      case ALLOW_FULLSCREEN -> new AllowFullscreen(value == 1);
+      case API_VALIDATION -> new APIValidation(value == 1);
+      case CAPTURE_CALLSTACKS -> new CaptureCallstacks(value == 1);
+      case CAPTURE_CALLSTACKS_ONLY_ACTIONS ->
+        new CaptureCallstacksOnlyActions(value == 1);
+      case DELAY_FOR_DEBUGGER -> new DelayForDebugger(value);
+      case VERIFY_BUFFER_ACCESS -> new VerifyBufferAccess(value == 1);
+      case HOOK_INTO_CHILDREN -> new HookIntoChildren(value == 1);
+      case REF_ALL_RESOURCES -> new RefAllResources(value == 1);
+      case CAPTURE_ALL_CMD_LISTS -> new CaptureAllCmdLists(value == 1);
+      case DEBUG_OUTPUT_MUTE -> new DebugOutputMute(value == 1);
+      case SOFT_MEMORY_LIMIT -> new SoftMemoryLimit(value);
+    };
+  }
+
+  private static int bool(
+    final boolean value)
+  {
+    return value ? 1 : 0;
+  }
+}
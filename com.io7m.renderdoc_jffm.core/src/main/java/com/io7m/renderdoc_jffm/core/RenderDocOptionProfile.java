@@ -0,0 +1,179 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An immutable set of values for every RenderDoc option, that can be
+ * applied in a single call.
+ *
+ * @see RenderDocType#applyOptionProfile(RenderDocOptionProfile)
+ */
+
+public final class RenderDocOptionProfile
+{
+  private final int[] values;
+
+  private RenderDocOptionProfile(
+    final int[] inValues)
+  {
+    this.values =
+      Objects.requireNonNull(inValues, "values");
+  }
+
+  /**
+   * Create a profile from a value for every option.
+   *
+   * @param options The option values
+   *
+   * @return A profile
+   *
+   * @throws IllegalArgumentException If a value is not given for every
+   *                                  option, or more than one value is
+   *                                  given for an option
+   */
+
+  public static RenderDocOptionProfile of(
+    final Collection<? extends RenderDocOptionType> options)
+  {
+    Objects.requireNonNull(options, "options");
+
+    final var keys = RenderDocOptionKey.values();
+    final var seen = EnumSet.noneOf(RenderDocOptionKey.class);
+    final var values = new int[keys.length];
+
+    for (final var option : options) {
+      Objects.requireNonNull(option, "option");
+      final var key = RenderDocOptionKeys.keyOf(option.getClass());
+      if (!seen.add(key)) {
+        throw new IllegalArgumentException(
+          "More than one value given for option %s".formatted(key)
+        );
+      }
+      values[key.ordinal()] = RenderDocOptionKeys.encode(option);
+    }
+
+    if (seen.size() != keys.length) {
+      final var missing = EnumSet.complementOf(seen);
+      throw new IllegalArgumentException(
+        "No values given for options %s".formatted(missing)
+      );
+    }
+
+    return new RenderDocOptionProfile(values);
+  }
+
+  static RenderDocOptionProfile ofValues(
+    final int[] values)
+  {
+    return new RenderDocOptionProfile(values.clone());
+  }
+
+  /**
+   * @param option The option value
+   *
+   * @return This profile with the given option value
+   */
+
+  public RenderDocOptionProfile with(
+    final RenderDocOptionType option)
+  {
+    Objects.requireNonNull(option, "option");
+
+    final var newValues = this.values.clone();
+    newValues[RenderDocOptionKeys.keyOf(option.getClass()).ordinal()] =
+      RenderDocOptionKeys.encode(option);
+    return new RenderDocOptionProfile(newValues);
+  }
+
+  /**
+   * @param key The option key
+   *
+   * @return The integer value of the option in this profile
+   */
+
+  public int valueU32(
+    final RenderDocOptionKey key)
+  {
+    return this.values[key.ordinal()];
+  }
+
+  /**
+   * @param option The option class
+   * @param <T>    The precise option type
+   *
+   * @return The value of the option in this profile
+   */
+
+  public <T extends RenderDocOptionType> T option(
+    final Class<T> option)
+  {
+    Objects.requireNonNull(option, "option");
+
+    final var key = RenderDocOptionKeys.keyOf(option);
+    return option.cast(
+      RenderDocOptionKeys.decode(key, this.values[key.ordinal()])
+    );
+  }
+
+  /**
+   * @return The option values in this profile, in key order
+   */
+
+  public List<RenderDocOptionType> options()
+  {
+    final var keys = RenderDocOptionKey.values();
+    final var results = new ArrayList<RenderDocOptionType>(keys.length);
+    for (final var key : keys) {
+      results.add(RenderDocOptionKeys.decode(key, this.values[key.ordinal()]));
+    }
+    return List.copyOf(results);
+  }
+
+  @Override
+  public boolean equals(
+    final Object o)
+  {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || !this.getClass().equals(o.getClass())) {
+      return false;
+    }
+    final var that = (RenderDocOptionProfile) o;
+    return Arrays.equals(this.values, that.values);
+  }
+
+  @Override
+  public int hashCode()
+  {
+    return Arrays.hashCode(this.values);
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[RenderDocOptionProfile %s]".formatted(this.options());
+  }
+}
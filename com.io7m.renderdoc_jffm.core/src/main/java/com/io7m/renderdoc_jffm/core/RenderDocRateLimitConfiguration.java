@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+/**
+ * The configuration of a capture rate limiter.
+ *
+ * @param capturesPerMinute The rate at which capture tokens are replenished
+ * @param burst             The maximum number of tokens that can be held,
+ *                          and so the maximum number of captures that can
+ *                          be made in quick succession
+ * @param byteBudget        The maximum total size in bytes of all captures
+ *                          on disk
+ * @param minimumFreeBytes  The minimum number of bytes that must remain
+ *                          free on the file store containing the capture
+ *                          file path template after a capture is written
+ */
+
+public record RenderDocRateLimitConfiguration(
+  double capturesPerMinute,
+  int burst,
+  long byteBudget,
+  long minimumFreeBytes)
+{
+  private static final RenderDocRateLimitConfiguration DEFAULTS =
+    new RenderDocRateLimitConfiguration(
+      6.0,
+      3,
+      10L * 1024L * 1024L * 1024L,
+      1024L * 1024L * 1024L
+    );
+
+  /**
+   * The configuration of a capture rate limiter.
+   *
+   * @param capturesPerMinute The rate at which capture tokens are
+   *                          replenished
+   * @param burst             The maximum number of tokens that can be
+   *                          held, and so the maximum number of captures
+   *                          that can be made in quick succession
+   * @param byteBudget        The maximum total size in bytes of all
+   *                          captures on disk
+   * @param minimumFreeBytes  The minimum number of bytes that must remain
+   *                          free on the file store containing the capture
+   *                          file path template after a capture is written
+   */
+
+  public RenderDocRateLimitConfiguration
+  {
+    if (!(capturesPerMinute > 0.0)) {
+      throw new IllegalArgumentException(
+        "Capture rate %f must be positive."
+          .formatted(Double.valueOf(capturesPerMinute))
+      );
+    }
+    if (burst < 1) {
+      throw new IllegalArgumentException(
+        "Burst %d must be at least 1.".formatted(Integer.valueOf(burst))
+      );
+    }
+    if (byteBudget < 0L || minimumFreeBytes < 0L) {
+      throw new IllegalArgumentException(
+        "Byte budget (%d) and minimum free bytes (%d) must be non-negative."
+          .formatted(Long.valueOf(byteBudget), Long.valueOf(minimumFreeBytes))
+      );
+    }
+  }
+
+  /**
+   * @return The default configuration
+   */
+
+  public static RenderDocRateLimitConfiguration defaults()
+  {
+    return DEFAULTS;
+  }
+}
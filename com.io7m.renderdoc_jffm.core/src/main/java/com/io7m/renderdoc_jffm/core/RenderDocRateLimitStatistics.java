@@ -0,0 +1,40 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+/**
+ * Statistics for a capture rate limiter.
+ *
+ * @param allowed       The number of trigger calls that were allowed
+ * @param deniedByRate  The number of trigger calls denied because no
+ *                      capture tokens were available
+ * @param deniedByBytes The number of trigger calls denied because the byte
+ *                      budget or the free space on disk would have been
+ *                      exceeded
+ * @param bytesUsed     The total size in bytes of the captures on disk, as
+ *                      of the most recent trigger call
+ */
+
+public record RenderDocRateLimitStatistics(
+  long allowed,
+  long deniedByRate,
+  long deniedByBytes,
+  long bytesUsed)
+{
+
+}
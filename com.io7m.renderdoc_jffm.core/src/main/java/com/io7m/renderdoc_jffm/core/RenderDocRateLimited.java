@@ -0,0 +1,570 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * A RenderDoc implementation that limits the rate and disk usage of
+ * triggered captures, delegating all other calls to another
+ * implementation.
+ *
+ * Each triggered frame consumes a token from a token bucket that is
+ * replenished at a configured rate. A trigger is also denied if the total
+ * size of the existing captures plus an estimate of the size of the new
+ * captures (based on the largest existing capture) would exceed the byte
+ * budget, or would leave less than the configured amount of space free on
+ * the file store containing the capture file path template. Denied
+ * triggers are counted, and are visible in {@link #statistics()}; denied
+ * asynchronous captures fail with an {@link IllegalStateException}.
+ *
+ * The size of each capture is measured once, when the capture is first
+ * seen, so each trigger only examines the captures that have appeared
+ * since the previous trigger. Only when a trigger would be denied by the
+ * byte budget are all captures measured again (at most once per second),
+ * so that captures that have since been deleted no longer count against
+ * the budget. The file store
+ * is only looked up again when the capture file path template changes.
+ *
+ * Frame captures started with
+ * {@link #startFrameCapture(RenderDocDevicePointer, RenderDocWindowHandle)}
+ * are not limited.
+ */
+
+public final class RenderDocRateLimited implements RenderDocType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(RenderDocRateLimited.class);
+
+  private static final double NANOS_PER_MINUTE = 60.0e9;
+  private static final long REMEASURE_INTERVAL_NANOS = 1_000_000_000L;
+
+  private final RenderDocType delegate;
+  private final RenderDocRateLimitConfiguration configuration;
+  private final LongSupplier clock;
+  private final double tokensPerNano;
+  private final ReentrantLock lock;
+  private double tokens;
+  private long refilledNanos;
+  private long allowed;
+  private long deniedByRate;
+  private long deniedByBytes;
+  private long bytesUsed;
+  private long bytesLargest;
+  private int captureIndexSeen;
+  private boolean remeasured;
+  private long remeasuredNanos;
+  private final List<Path> capturesUnmeasured;
+  private Path storeTemplate;
+  private FileStore store;
+
+  private RenderDocRateLimited(
+    final RenderDocType inDelegate,
+    final RenderDocRateLimitConfiguration inConfiguration,
+    final LongSupplier inClock)
+  {
+    this.delegate =
+      Objects.requireNonNull(inDelegate, "delegate");
+    this.configuration =
+      Objects.requireNonNull(inConfiguration, "configuration");
+    this.clock =
+      Objects.requireNonNull(inClock, "clock");
+    this.tokensPerNano =
+      inConfiguration.capturesPerMinute() / NANOS_PER_MINUTE;
+    this.lock =
+      new ReentrantLock();
+    this.tokens =
+      inConfiguration.burst();
+    this.refilledNanos =
+      inClock.getAsLong();
+    this.capturesUnmeasured =
+      new ArrayList<>();
+  }
+
+  /**
+   * Create a rate-limited RenderDoc implementation.
+   *
+   * @param delegate      The underlying implementation
+   * @param configuration The configuration
+   *
+   * @return A rate-limited implementation
+   */
+
+  public static RenderDocRateLimited create(
+    final RenderDocType delegate,
+    final RenderDocRateLimitConfiguration configuration)
+  {
+    return create(delegate, configuration, System::nanoTime);
+  }
+
+  /**
+   * Create a rate-limited RenderDoc implementation.
+   *
+   * @param delegate      The underlying implementation
+   * @param configuration The configuration
+   * @param clock         A clock returning the time in nanoseconds, as
+   *                      {@link System#nanoTime()} does
+   *
+   * @return A rate-limited implementation
+   */
+
+  public static RenderDocRateLimited create(
+    final RenderDocType delegate,
+    final RenderDocRateLimitConfiguration configuration,
+    final LongSupplier clock)
+  {
+    return new RenderDocRateLimited(delegate, configuration, clock);
+  }
+
+  /**
+   * @return The limiter statistics
+   */
+
+  public RenderDocRateLimitStatistics statistics()
+  {
+    this.lock.lock();
+    try {
+      return new RenderDocRateLimitStatistics(
+        this.allowed,
+        this.deniedByRate,
+        this.deniedByBytes,
+        this.bytesUsed
+      );
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Trigger a capture if the limits allow it.
+   *
+   * @return {@code true} if the capture was triggered
+   */
+
+  public boolean tryTriggerCapture()
+  {
+    if (this.acquire(1)) {
+      this.delegate.triggerCapture();
+      return true;
+    }
+    return false;
+  }
+
+  private boolean acquire(
+    final int frames)
+  {
+    this.lock.lock();
+    try {
+      final var now = this.clock.getAsLong();
+      this.tokens = Math.min(
+        this.configuration.burst(),
+        this.tokens + (double) (now - this.refilledNanos) * this.tokensPerNano
+      );
+      this.refilledNanos = now;
+
+      if (this.tokens < (double) frames) {
+        this.deniedByRate = this.deniedByRate + 1L;
+        LOG.debug("Capture denied: rate limit exceeded.");
+        return false;
+      }
+
+      if (!this.bytesAvailable(frames, now)) {
+        this.deniedByBytes = this.deniedByBytes + 1L;
+        return false;
+      }
+
+      this.tokens = this.tokens - (double) frames;
+      this.allowed = this.allowed + 1L;
+      return true;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  private boolean bytesAvailable(
+    final int frames,
+    final long now)
+  {
+    this.measureCaptures();
+    if (this.exceedsBudget(frames)) {
+      if (!this.remeasured
+          || now - this.remeasuredNanos >= REMEASURE_INTERVAL_NANOS) {
+        this.remeasured = true;
+        this.remeasuredNanos = now;
+        this.remeasureCaptures();
+      }
+    }
+
+    final var used = this.bytesUsed;
+    final var estimate = this.bytesLargest * frames;
+    if (this.exceedsBudget(frames)) {
+      LOG.debug(
+        "Capture denied: {} bytes used, {} estimated, budget {}.",
+        Long.valueOf(used),
+        Long.valueOf(estimate),
+        Long.valueOf(this.configuration.byteBudget())
+      );
+      return false;
+    }
+
+    final var template = this.delegate.captureFilePathTemplate();
+    if (template.isEmpty()) {
+      return true;
+    }
+
+    try {
+      final var fileStore = this.storeFor(template.get());
+      final var free = fileStore.getUsableSpace();
+      if (free - estimate < this.configuration.minimumFreeBytes()) {
+        LOG.debug(
+          "Capture denied: {} bytes free on {}, {} estimated.",
+          Long.valueOf(free),
+          fileStore,
+          Long.valueOf(estimate)
+        );
+        return false;
+      }
+    } catch (final IOException e) {
+      LOG.debug("Unable to determine free space for captures: ", e);
+    }
+    return true;
+  }
+
+  private boolean exceedsBudget(
+    final int frames)
+  {
+    final var estimate = this.bytesLargest * frames;
+    return this.bytesUsed + estimate > this.configuration.byteBudget();
+  }
+
+  /**
+   * Discard all measurements and measure every capture again. A missing
+   * file is assumed to have been deleted, unless it belongs to the most
+   * recent capture, which may not have been written yet.
+   */
+
+  private void remeasureCaptures()
+  {
+    this.bytesUsed = 0L;
+    this.bytesLargest = 0L;
+    this.capturesUnmeasured.clear();
+
+    final var count = this.delegate.numberOfCaptures();
+    for (final var capture : this.delegate.capturesSince(0)) {
+      if (!this.measure(capture.file()) && capture.index() == count - 1L) {
+        this.capturesUnmeasured.add(capture.file());
+      }
+    }
+    this.captureIndexSeen = (int) count;
+  }
+
+  /**
+   * Measure the captures that have appeared since the last measurement,
+   * along with any earlier captures whose files did not yet exist.
+   */
+
+  private void measureCaptures()
+  {
+    final var unmeasured = this.capturesUnmeasured;
+    for (int index = unmeasured.size() - 1; index >= 0; --index) {
+      if (this.measure(unmeasured.get(index))) {
+        unmeasured.remove(index);
+      }
+    }
+
+    final var count = this.delegate.numberOfCaptures();
+    if (count <= this.captureIndexSeen) {
+      return;
+    }
+
+    final var appeared =
+      this.delegate.capturesSince(this.captureIndexSeen);
+    for (final var capture : appeared) {
+      if (!this.measure(capture.file())) {
+        unmeasured.add(capture.file());
+      }
+    }
+    this.captureIndexSeen = (int) count;
+  }
+
+  private boolean measure(
+    final Path file)
+  {
+    final long size;
+    try {
+      size = Files.size(file);
+    } catch (final IOException e) {
+      return false;
+    }
+    this.bytesUsed = this.bytesUsed + size;
+    this.bytesLargest = Math.max(this.bytesLargest, size);
+    return true;
+  }
+
+  private FileStore storeFor(
+    final Path template)
+    throws IOException
+  {
+    if (!template.equals(this.storeTemplate)) {
+      this.store = Files.getFileStore(existingAncestor(template));
+      this.storeTemplate = template;
+    }
+    return this.store;
+  }
+
+  private static Path existingAncestor(
+    final Path template)
+    throws IOException
+  {
+    var path = template.toAbsolutePath().getParent();
+    while (path != null) {
+      if (Files.isDirectory(path)) {
+        return path;
+      }
+      path = path.getParent();
+    }
+    throw new NoSuchFileException(template.toString());
+  }
+
+  private static CompletableFuture<RenderDocCaptureInfo> denied()
+  {
+    return CompletableFuture.failedFuture(
+      new IllegalStateException("Capture denied by the rate limiter.")
+    );
+  }
+
+  @Override
+  public void triggerCapture()
+  {
+    this.tryTriggerCapture();
+  }
+
+  @Override
+  public CompletableFuture<RenderDocCaptureInfo> triggerCaptureAsync()
+  {
+    if (this.acquire(1)) {
+      return this.delegate.triggerCaptureAsync();
+    }
+    return denied();
+  }
+
+  @Override
+  public CompletableFuture<RenderDocCaptureInfo> triggerCaptureAsync(
+    final Duration timeout)
+  {
+    Objects.requireNonNull(timeout, "timeout");
+
+    if (this.acquire(1)) {
+      return this.delegate.triggerCaptureAsync(timeout);
+    }
+    return denied();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * Each frame consumes a token, and so the number of frames must not
+   * exceed the configured burst size.
+   *
+   * @throws IllegalArgumentException If {@code frames} exceeds the burst
+   *                                  size
+   */
+
+  @Override
+  public void triggerMultiFrameCapture(
+    final int frames)
+  {
+    if (frames < 1) {
+      throw new IllegalArgumentException(
+        "Frame count %d must be at least 1.".formatted(Integer.valueOf(frames))
+      );
+    }
+    if (frames > this.configuration.burst()) {
+      throw new IllegalArgumentException(
+        "Frame count %d exceeds the burst size %d."
+          .formatted(
+            Integer.valueOf(frames),
+            Integer.valueOf(this.configuration.burst())
+          )
+      );
+    }
+    if (this.acquire(frames)) {
+      this.delegate.triggerMultiFrameCapture(frames);
+    }
+  }
+
+  @Override
+  public long numberOfCaptures()
+  {
+    return this.delegate.numberOfCaptures();
+  }
+
+  @Override
+  public List<RenderDocCaptureInfo> captures()
+  {
+    return this.delegate.captures();
+  }
+
+  @Override
+  public List<RenderDocCaptureInfo> capturesSince(
+    final int index)
+  {
+    return this.delegate.capturesSince(index);
+  }
+
+  @Override
+  public Optional<RenderDocCaptureInfo> capture(
+    final int index)
+  {
+    return this.delegate.capture(index);
+  }
+
+  @Override
+  public boolean isFrameCapturing()
+  {
+    return this.delegate.isFrameCapturing();
+  }
+
+  @Override
+  public RenderDocFrameCaptureScope startFrameCapture(
+    final RenderDocDevicePointer device,
+    final RenderDocWindowHandle window)
+  {
+    return this.delegate.startFrameCapture(device, window);
+  }
+
+  @Override
+  public Optional<Path> captureFilePathTemplate()
+  {
+    return this.delegate.captureFilePathTemplate();
+  }
+
+  @Override
+  public void setCaptureFilePathTemplate(
+    final Path file)
+  {
+    this.delegate.setCaptureFilePathTemplate(file);
+  }
+
+  @Override
+  public void setCaptureTitle(
+    final String title)
+  {
+    this.delegate.setCaptureTitle(title);
+  }
+
+  @Override
+  public void setCaptureFileComments(
+    final Path file,
+    final String comments)
+  {
+    this.delegate.setCaptureFileComments(file, comments);
+  }
+
+  @Override
+  public void setLatestCaptureFileComments(
+    final String comments)
+  {
+    this.delegate.setLatestCaptureFileComments(comments);
+  }
+
+  @Override
+  public void setOption(
+    final RenderDocOptionType option)
+  {
+    this.delegate.setOption(option);
+  }
+
+  @Override
+  public boolean setOptionU32(
+    final RenderDocOptionKey key,
+    final int value)
+  {
+    return this.delegate.setOptionU32(key, value);
+  }
+
+  @Override
+  public boolean setOptionF32(
+    final RenderDocOptionKey key,
+    final float value)
+  {
+    return this.delegate.setOptionF32(key, value);
+  }
+
+  @Override
+  public int optionU32(
+    final RenderDocOptionKey key)
+  {
+    return this.delegate.optionU32(key);
+  }
+
+  @Override
+  public float optionF32(
+    final RenderDocOptionKey key)
+  {
+    return this.delegate.optionF32(key);
+  }
+
+  @Override
+  public void refreshOptions()
+  {
+    this.delegate.refreshOptions();
+  }
+
+  @Override
+  public RenderDocOptionProfile optionProfile()
+  {
+    return this.delegate.optionProfile();
+  }
+
+  @Override
+  public boolean applyOptionProfile(
+    final RenderDocOptionProfile profile)
+  {
+    return this.delegate.applyOptionProfile(profile);
+  }
+
+  @Override
+  public <T extends RenderDocOptionType> T option(
+    final Class<T> option)
+  {
+    return this.delegate.option(option);
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    this.delegate.close();
+  }
+}
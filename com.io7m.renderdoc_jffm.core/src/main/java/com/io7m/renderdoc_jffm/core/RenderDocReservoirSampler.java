@@ -0,0 +1,259 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A frame hook that keeps a uniform random sample of {@code k} captured
+ * frames per time window, using reservoir sampling.
+ *
+ * The first {@code k} frames of each window are captured. Each later
+ * frame {@code n} of the window (counting from 1) is captured with
+ * probability {@code k / n}, replacing a randomly chosen capture in the
+ * reservoir; the replaced capture is passed to the retention hook so that
+ * it can be deleted. At the end of the window, the captures in the
+ * reservoir are kept, and a new window begins.
+ *
+ * The retention hook is only ever given the index of a capture that has
+ * been observed to appear as a result of this sampler's trigger (see
+ * {@link RenderDocCaptureMatcher}). If a replaced capture has not yet
+ * appeared, it is passed to the hook once it does; if it cannot be
+ * identified, it is kept.
+ *
+ * Sampling is deterministic for a given seed and sequence of frames.
+ */
+
+public final class RenderDocReservoirSampler
+  implements RenderDocFrameHookType
+{
+  /**
+   * The number of frame boundaries after which a capture that has not
+   * appeared is assumed to have failed.
+   */
+
+  private static final int CAPTURE_FRAMES_MAXIMUM = 600;
+
+  private final RenderDocType renderDoc;
+  private final RenderDocCaptureRetentionType retention;
+  private final long[] reservoir;
+  private final RenderDocCaptureMatcher<Long> matcher;
+  private final Listener listener;
+  private final HashMap<Long, Integer> confirmed;
+  private final HashSet<Long> evicted;
+  private final long windowNanos;
+  private final long seed;
+  private final AtomicLong triggered;
+  private final AtomicLong discarded;
+  private boolean windowOpen;
+  private long windowStartNanos;
+  private long windowFrames;
+  private long counter;
+  private long ticketNext;
+  private long ticketWindowFirst;
+
+  private RenderDocReservoirSampler(
+    final RenderDocType inRenderDoc,
+    final int inSize,
+    final long inWindowNanos,
+    final long inSeed,
+    final RenderDocCaptureRetentionType inRetention)
+  {
+    this.renderDoc =
+      Objects.requireNonNull(inRenderDoc, "renderDoc");
+    this.retention =
+      Objects.requireNonNull(inRetention, "retention");
+    this.reservoir =
+      new long[inSize];
+    this.windowNanos =
+      inWindowNanos;
+    this.seed =
+      inSeed;
+    this.triggered =
+      new AtomicLong();
+    this.discarded =
+      new AtomicLong();
+    this.matcher =
+      new RenderDocCaptureMatcher<>(inRenderDoc, CAPTURE_FRAMES_MAXIMUM);
+    this.listener =
+      new Listener();
+    this.confirmed =
+      new HashMap<>();
+    this.evicted =
+      new HashSet<>();
+  }
+
+  /*
+   * Each triggered capture is identified by a ticket until the capture is
+   * observed to appear. Confirmed captures of the current window map
+   * tickets to capture indices; evicted tickets are those replaced in the
+   * reservoir before their captures appeared.
+   */
+
+  private final class Listener
+    implements RenderDocCaptureMatcher.ListenerType<Long>
+  {
+    Listener()
+    {
+
+    }
+
+    @Override
+    public void onMatched(
+      final Long ticket,
+      final RenderDocCaptureInfo capture)
+    {
+      final var sampler = RenderDocReservoirSampler.this;
+      if (sampler.evicted.remove(ticket)) {
+        sampler.discard(capture.index());
+        return;
+      }
+      if (ticket.longValue() >= sampler.ticketWindowFirst) {
+        sampler.confirmed.put(ticket, Integer.valueOf(capture.index()));
+      }
+    }
+
+    @Override
+    public void onAbandoned(
+      final Long ticket)
+    {
+      RenderDocReservoirSampler.this.evicted.remove(ticket);
+    }
+  }
+
+  /**
+   * Create a reservoir sampler.
+   *
+   * @param renderDoc The RenderDoc API
+   * @param size      The number of captures kept per window
+   * @param window    The window duration
+   * @param seed      The random seed
+   * @param retention The hook notified of discarded captures
+   *
+   * @return A reservoir sampler
+   */
+
+  public static RenderDocReservoirSampler create(
+    final RenderDocType renderDoc,
+    final int size,
+    final Duration window,
+    final long seed,
+    final RenderDocCaptureRetentionType retention)
+  {
+    Objects.requireNonNull(window, "window");
+
+    if (size < 1) {
+      throw new IllegalArgumentException(
+        "Reservoir size %d must be at least 1."
+          .formatted(Integer.valueOf(size))
+      );
+    }
+    if (window.isNegative() || window.isZero()) {
+      throw new IllegalArgumentException(
+        "Window %s must be positive.".formatted(window)
+      );
+    }
+    return new RenderDocReservoirSampler(
+      renderDoc,
+      size,
+      window.toNanos(),
+      seed,
+      retention
+    );
+  }
+
+  @Override
+  public void onFrameBoundary(
+    final long timeNanos)
+  {
+    this.matcher.poll(this.listener);
+
+    if (!this.windowOpen
+        || timeNanos - this.windowStartNanos >= this.windowNanos) {
+      this.windowOpen = true;
+      this.windowStartNanos = timeNanos;
+      this.windowFrames = 0L;
+      this.ticketWindowFirst = this.ticketNext;
+      this.confirmed.clear();
+    }
+
+    this.windowFrames = this.windowFrames + 1L;
+    final var size = this.reservoir.length;
+
+    if (this.windowFrames <= size) {
+      this.reservoir[(int) (this.windowFrames - 1L)] = this.capture();
+      return;
+    }
+
+    this.counter = this.counter + 1L;
+    final var slot =
+      (long) ((double) RenderDocSamplingPolicies.random53(this.seed, this.counter)
+        * 0x1.0p-53 * (double) this.windowFrames);
+
+    if (slot < size) {
+      final var replaced = Long.valueOf(this.reservoir[(int) slot]);
+      this.reservoir[(int) slot] = this.capture();
+
+      final var index = this.confirmed.remove(replaced);
+      if (index != null) {
+        this.discard(index.intValue());
+      } else {
+        this.evicted.add(replaced);
+      }
+    }
+  }
+
+  private void discard(
+    final int index)
+  {
+    this.discarded.incrementAndGet();
+    this.retention.onCaptureDiscarded(index);
+  }
+
+  private long capture()
+  {
+    final var ticket = this.ticketNext;
+    this.ticketNext = ticket + 1L;
+    this.matcher.expect(Long.valueOf(ticket));
+    this.renderDoc.triggerCapture();
+    this.triggered.incrementAndGet();
+    return ticket;
+  }
+
+  /**
+   * @return The number of captures triggered
+   */
+
+  public long capturesTriggered()
+  {
+    return this.triggered.get();
+  }
+
+  /**
+   * @return The number of captures passed to the retention hook
+   */
+
+  public long capturesDiscarded()
+  {
+    return this.discarded.get();
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+/**
+ * Standard frame sampling policies.
+ */
+
+public final class RenderDocSamplingPolicies
+{
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  private RenderDocSamplingPolicies()
+  {
+
+  }
+
+  /**
+   * A policy that samples one frame in every {@code n}, starting with the
+   * first frame.
+   *
+   * @param n The sampling period
+   *
+   * @return A sampling policy
+   */
+
+  public static RenderDocSamplingPolicyType oneIn(
+    final int n)
+  {
+    if (n < 1) {
+      throw new IllegalArgumentException(
+        "Period %d must be at least 1.".formatted(Integer.valueOf(n))
+      );
+    }
+    return new OneIn(n);
+  }
+
+  /**
+   * A policy that samples each frame independently with the given
+   * probability. The decision for a frame depends only on the seed and the
+   * frame number, so runs with the same seed sample the same frames.
+   *
+   * @param seed        The seed
+   * @param probability The probability in the range {@code [0, 1]}
+   *
+   * @return A sampling policy
+   */
+
+  public static RenderDocSamplingPolicyType seeded(
+    final long seed,
+    final double probability)
+  {
+    if (!(probability >= 0.0 && probability <= 1.0)) {
+      throw new IllegalArgumentException(
+        "Probability %f must be in the range [0, 1]."
+          .formatted(Double.valueOf(probability))
+      );
+    }
+    return new Seeded(seed, threshold(probability));
+  }
+
+  /**
+   * Convert a probability to a threshold against which the top 53 bits of
+   * a hash are compared.
+   */
+
+  private static long threshold(
+    final double probability)
+  {
+    return (long) (probability * 0x1.0p53);
+  }
+
+  /**
+   * The SplitMix64 finalizer.
+   *
+   * @param value The input
+   *
+   * @return A well-mixed hash of the input
+   */
+
+  static long mix(
+    final long value)
+  {
+    var z = value;
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Derive a uniformly distributed value from the seed and a counter.
+   *
+   * @param seed    The seed
+   * @param counter The counter
+   *
+   * @return A value in the range {@code [0, 2^53)}
+   */
+
+  static long random53(
+    final long seed,
+    final long counter)
+  {
+    return mix(seed + counter * GOLDEN_GAMMA) >>> 11;
+  }
+
+  private static final class OneIn implements RenderDocSamplingPolicyType
+  {
+    private final int period;
+    private int remaining;
+
+    OneIn(
+      final int inPeriod)
+    {
+      this.period = inPeriod;
+      this.remaining = 0;
+    }
+
+    @Override
+    public boolean sample(
+      final long frame)
+    {
+      if (this.remaining == 0) {
+        this.remaining = this.period - 1;
+        return true;
+      }
+      --this.remaining;
+      return false;
+    }
+  }
+
+  private record Seeded(
+    long seed,
+    long threshold)
+    implements RenderDocSamplingPolicyType
+  {
+    @Override
+    public boolean sample(
+      final long frame)
+    {
+      return random53(this.seed, frame) < this.threshold;
+    }
+  }
+}
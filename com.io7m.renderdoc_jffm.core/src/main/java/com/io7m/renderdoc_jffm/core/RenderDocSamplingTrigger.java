@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A frame hook that triggers a capture of each frame selected by a
+ * sampling policy.
+ */
+
+public final class RenderDocSamplingTrigger
+  implements RenderDocFrameHookType
+{
+  private final RenderDocType renderDoc;
+  private final RenderDocSamplingPolicyType policy;
+  private final AtomicLong frames;
+  private final AtomicLong triggered;
+
+  private RenderDocSamplingTrigger(
+    final RenderDocType inRenderDoc,
+    final RenderDocSamplingPolicyType inPolicy)
+  {
+    this.renderDoc =
+      Objects.requireNonNull(inRenderDoc, "renderDoc");
+    this.policy =
+      Objects.requireNonNull(inPolicy, "policy");
+    this.frames =
+      new AtomicLong();
+    this.triggered =
+      new AtomicLong();
+  }
+
+  /**
+   * Create a sampling trigger.
+   *
+   * @param renderDoc The RenderDoc API
+   * @param policy    The sampling policy
+   *
+   * @return A sampling trigger
+   */
+
+  public static RenderDocSamplingTrigger create(
+    final RenderDocType renderDoc,
+    final RenderDocSamplingPolicyType policy)
+  {
+    return new RenderDocSamplingTrigger(renderDoc, policy);
+  }
+
+  @Override
+  public void onFrameBoundary(
+    final long timeNanos)
+  {
+    if (this.policy.sample(this.frames.getAndIncrement())) {
+      this.renderDoc.triggerCapture();
+      this.triggered.incrementAndGet();
+    }
+  }
+
+  /**
+   * @return The number of frames observed
+   */
+
+  public long framesObserved()
+  {
+    return this.frames.get();
+  }
+
+  /**
+   * @return The number of captures triggered
+   */
+
+  public long capturesTriggered()
+  {
+    return this.triggered.get();
+  }
+}
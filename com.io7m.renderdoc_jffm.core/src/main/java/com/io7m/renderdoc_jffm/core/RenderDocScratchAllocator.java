@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.Objects;
+
+/**
+ * A fixed-size, resettable allocator used for the string arguments of
+ * RenderDoc functions.
+ *
+ * RenderDoc copies any string it is given, so argument memory is only
+ * needed for the duration of a single call. The allocator is reset when it
+ * is closed at the end of each call, so the native memory used for string
+ * arguments never grows beyond the size of the underlying buffer, however
+ * many calls are made. Arguments that do not fit into the remaining space
+ * are allocated in a confined arena that is closed when the allocator is
+ * reset.
+ */
+
+final class RenderDocScratchAllocator implements RenderDocArgumentsType
+{
+  private final MemorySegment buffer;
+  private long offset;
+  private Arena overflow;
+
+  RenderDocScratchAllocator(
+    final MemorySegment inBuffer)
+  {
+    this.buffer =
+      Objects.requireNonNull(inBuffer, "buffer");
+    this.offset =
+      0L;
+  }
+
+  /**
+   * Release all allocations made since the last reset.
+   */
+
+  void reset()
+  {
+    this.offset = 0L;
+
+    final var arena = this.overflow;
+    if (arena != null) {
+      this.overflow = null;
+      arena.close();
+    }
+  }
+
+  @Override
+  public void close()
+  {
+    this.reset();
+  }
+
+  @Override
+  public MemorySegment allocate(
+    final long byteSize,
+    final long byteAlignment)
+  {
+    final var start =
+      alignUp(this.offset, byteAlignment);
+    final var end =
+      start + byteSize;
+
+    if (end > this.buffer.byteSize()) {
+      return this.allocateOverflow(byteSize, byteAlignment);
+    }
+
+    this.offset = end;
+    return this.buffer.asSlice(start, byteSize);
+  }
+
+  private MemorySegment allocateOverflow(
+    final long byteSize,
+    final long byteAlignment)
+  {
+    if (this.overflow == null) {
+      this.overflow = Arena.ofConfined();
+    }
+    return this.overflow.allocate(byteSize, byteAlignment);
+  }
+
+  private static long alignUp(
+    final long value,
+    final long alignment)
+  {
+    return (value + alignment - 1L) & -alignment;
+  }
+}
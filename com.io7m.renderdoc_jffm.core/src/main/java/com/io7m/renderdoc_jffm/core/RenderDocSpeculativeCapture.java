@@ -0,0 +1,239 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Speculative frame capture. A capture is started at the beginning of every
+ * {@code period}th frame. At the end of the frame, a predicate is evaluated
+ * on the frame duration: if the predicate accepts the duration, the capture
+ * is ended and written to disk, and otherwise the capture is discarded.
+ * This allows for capturing slow frames without writing a capture file for
+ * every frame.
+ *
+ * Note that the duration of a captured frame includes the overhead of
+ * RenderDoc itself.
+ *
+ * Instances are intended to be driven from the render thread. The
+ * statistics can be read from any thread, and are updated under a lock so
+ * that each snapshot is consistent.
+ */
+
+public final class RenderDocSpeculativeCapture
+{
+  private final RenderDocType renderDoc;
+  private final RenderDocDevicePointer device;
+  private final RenderDocWindowHandle window;
+  private final int period;
+  private final LongPredicate keep;
+  private final ReentrantLock lock;
+  private long frames;
+  private long started;
+  private long kept;
+  private long discarded;
+  private long failed;
+  private RenderDocFrameCaptureScope scope;
+  private long frameStartTime;
+
+  private RenderDocSpeculativeCapture(
+    final RenderDocType inRenderDoc,
+    final RenderDocDevicePointer inDevice,
+    final RenderDocWindowHandle inWindow,
+    final int inPeriod,
+    final LongPredicate inKeep)
+  {
+    this.renderDoc =
+      Objects.requireNonNull(inRenderDoc, "renderDoc");
+    this.device =
+      Objects.requireNonNull(inDevice, "device");
+    this.window =
+      Objects.requireNonNull(inWindow, "window");
+    this.period =
+      inPeriod;
+    this.keep =
+      Objects.requireNonNull(inKeep, "keep");
+    this.lock =
+      new ReentrantLock();
+  }
+
+  /**
+   * Create a speculative capture.
+   *
+   * @param renderDoc The RenderDoc API
+   * @param device    The device to capture
+   * @param window    The window to capture
+   * @param period    The capture period; a capture is started every
+   *                  {@code period} frames, and {@code 1} captures every
+   *                  frame
+   * @param keep      A predicate on the frame duration in nanoseconds that
+   *                  returns {@code true} if a capture should be kept
+   *
+   * @return A speculative capture
+   */
+
+  public static RenderDocSpeculativeCapture create(
+    final RenderDocType renderDoc,
+    final RenderDocDevicePointer device,
+    final RenderDocWindowHandle window,
+    final int period,
+    final LongPredicate keep)
+  {
+    if (period < 1) {
+      throw new IllegalArgumentException(
+        "Period %d must be at least 1.".formatted(Integer.valueOf(period))
+      );
+    }
+    return new RenderDocSpeculativeCapture(
+      renderDoc,
+      device,
+      window,
+      period,
+      keep
+    );
+  }
+
+  /**
+   * Indicate that a frame has started.
+   *
+   * @throws IllegalStateException If the previous frame has not ended
+   */
+
+  public void frameStarted()
+  {
+    if (this.scope != null) {
+      throw new IllegalStateException(
+        "The previous frame has not ended."
+      );
+    }
+
+    final long frame;
+    this.lock.lock();
+    try {
+      frame = this.frames;
+      this.frames = frame + 1L;
+    } finally {
+      this.lock.unlock();
+    }
+
+    if (frame % this.period == 0L) {
+      this.scope = this.renderDoc.startFrameCapture(this.device, this.window);
+
+      this.lock.lock();
+      try {
+        this.started = this.started + 1L;
+      } finally {
+        this.lock.unlock();
+      }
+    }
+    this.frameStartTime = System.nanoTime();
+  }
+
+  /**
+   * Indicate that a frame has ended, using the time elapsed since
+   * {@link #frameStarted()} as the frame duration.
+   *
+   * @return {@code true} if the frame was captured and the capture was kept
+   */
+
+  public boolean frameEnded()
+  {
+    return this.frameEnded(System.nanoTime() - this.frameStartTime);
+  }
+
+  /**
+   * Indicate that a frame has ended, with an externally measured duration
+   * (such as a GPU timer query result).
+   *
+   * @param durationNanos The frame duration in nanoseconds
+   *
+   * @return {@code true} if the frame was captured and the capture was kept
+   */
+
+  public boolean frameEnded(
+    final long durationNanos)
+  {
+    final var current = this.scope;
+    if (current == null) {
+      return false;
+    }
+
+    /*
+     * The scope is only forgotten once it has been ended or discarded, so
+     * that a predicate that throws cannot leave a frame capture open.
+     */
+
+    try {
+      if (this.keep.test(durationNanos)) {
+        if (current.end()) {
+          this.countEnded(1L, 0L, 0L);
+          return true;
+        }
+        this.countEnded(0L, 0L, 1L);
+        return false;
+      }
+
+      current.discard();
+      this.countEnded(0L, 1L, 0L);
+      return false;
+    } finally {
+      if (current.isOpen()) {
+        current.discard();
+        this.countEnded(0L, 1L, 0L);
+      }
+      this.scope = null;
+    }
+  }
+
+  private void countEnded(
+    final long newKept,
+    final long newDiscarded,
+    final long newFailed)
+  {
+    this.lock.lock();
+    try {
+      this.kept = this.kept + newKept;
+      this.discarded = this.discarded + newDiscarded;
+      this.failed = this.failed + newFailed;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * @return A snapshot of the current statistics
+   */
+
+  public RenderDocSpeculativeCaptureStatistics statistics()
+  {
+    this.lock.lock();
+    try {
+      return new RenderDocSpeculativeCaptureStatistics(
+        this.frames,
+        this.started,
+        this.kept,
+        this.discarded,
+        this.failed
+      );
+    } finally {
+      this.lock.unlock();
+    }
+  }
+}
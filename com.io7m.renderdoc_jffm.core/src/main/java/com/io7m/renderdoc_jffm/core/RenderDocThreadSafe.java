@@ -0,0 +1,361 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A RenderDoc implementation that may be used from any thread, used by the
+ * {@link RenderDocThreadingModel#SHARED} threading model.
+ *
+ * Calls are serialised only where they touch shared state:
+ *
+ * <ul>
+ *   <li>Option getters run concurrently with each other, and exclusively
+ *   with option setters, which update the cached option values.</li>
+ *   <li>Reading the capture file path template runs concurrently with other
+ *   reads, and exclusively with setting the template, as RenderDoc returns
+ *   a pointer to its own copy of the template string.</li>
+ *   <li>Triggering captures, starting frame captures, and setting capture
+ *   titles and comments are serialised with respect to each other, so that
+ *   a title is applied to the capture that follows it.</li>
+ *   <li>Listing captures and checking whether a frame is being captured
+ *   take no locks.</li>
+ * </ul>
+ *
+ * A frame capture scope returned by {@link #startFrameCapture} guards its
+ * own state, and so may be ended by a thread other than the one that
+ * started it.
+ */
+
+final class RenderDocThreadSafe implements RenderDocType
+{
+  private final RenderDocType delegate;
+  private final ReentrantReadWriteLock optionLock;
+  private final ReentrantReadWriteLock templateLock;
+  private final ReentrantLock captureLock;
+
+  RenderDocThreadSafe(
+    final RenderDocType inDelegate)
+  {
+    this.delegate =
+      Objects.requireNonNull(inDelegate, "delegate");
+    this.optionLock =
+      new ReentrantReadWriteLock();
+    this.templateLock =
+      new ReentrantReadWriteLock();
+    this.captureLock =
+      new ReentrantLock();
+  }
+
+  @Override
+  public void triggerCapture()
+  {
+    this.captureLock.lock();
+    try {
+      this.delegate.triggerCapture();
+    } finally {
+      this.captureLock.unlock();
+    }
+  }
+
+  @Override
+  public CompletableFuture<RenderDocCaptureInfo> triggerCaptureAsync()
+  {
+    this.captureLock.lock();
+    try {
+      return this.delegate.triggerCaptureAsync();
+    } finally {
+      this.captureLock.unlock();
+    }
+  }
+
+  @Override
+  public CompletableFuture<RenderDocCaptureInfo> triggerCaptureAsync(
+    final Duration timeout)
+  {
+    this.captureLock.lock();
+    try {
+      return this.delegate.triggerCaptureAsync(timeout);
+    } finally {
+      this.captureLock.unlock();
+    }
+  }
+
+  @Override
+  public void triggerMultiFrameCapture(
+    final int frames)
+  {
+    this.captureLock.lock();
+    try {
+      this.delegate.triggerMultiFrameCapture(frames);
+    } finally {
+      this.captureLock.unlock();
+    }
+  }
+
+  @Override
+  public long numberOfCaptures()
+  {
+    return this.delegate.numberOfCaptures();
+  }
+
+  @Override
+  public List<RenderDocCaptureInfo> captures()
+  {
+    return this.delegate.captures();
+  }
+
+  @Override
+  public List<RenderDocCaptureInfo> capturesSince(
+    final int index)
+  {
+    return this.delegate.capturesSince(index);
+  }
+
+  @Override
+  public Optional<RenderDocCaptureInfo> capture(
+    final int index)
+  {
+    return this.delegate.capture(index);
+  }
+
+  @Override
+  public boolean isFrameCapturing()
+  {
+    return this.delegate.isFrameCapturing();
+  }
+
+  @Override
+  public RenderDocFrameCaptureScope startFrameCapture(
+    final RenderDocDevicePointer device,
+    final RenderDocWindowHandle window)
+  {
+    this.captureLock.lock();
+    try {
+      return this.delegate.startFrameCapture(device, window);
+    } finally {
+      this.captureLock.unlock();
+    }
+  }
+
+  @Override
+  public Optional<Path> captureFilePathTemplate()
+  {
+    final var lock = this.templateLock.readLock();
+    lock.lock();
+    try {
+      return this.delegate.captureFilePathTemplate();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void setCaptureFilePathTemplate(
+    final Path file)
+  {
+    final var lock = this.templateLock.writeLock();
+    lock.lock();
+    try {
+      this.delegate.setCaptureFilePathTemplate(file);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void setCaptureTitle(
+    final String title)
+  {
+    this.captureLock.lock();
+    try {
+      this.delegate.setCaptureTitle(title);
+    } finally {
+      this.captureLock.unlock();
+    }
+  }
+
+  @Override
+  public void setCaptureFileComments(
+    final Path file,
+    final String comments)
+  {
+    this.captureLock.lock();
+    try {
+      this.delegate.setCaptureFileComments(file, comments);
+    } finally {
+      this.captureLock.unlock();
+    }
+  }
+
+  @Override
+  public void setLatestCaptureFileComments(
+    final String comments)
+  {
+    this.captureLock.lock();
+    try {
+      this.delegate.setLatestCaptureFileComments(comments);
+    } finally {
+      this.captureLock.unlock();
+    }
+  }
+
+  @Override
+  public void setOption(
+    final RenderDocOptionType option)
+  {
+    final var lock = this.optionLock.writeLock();
+    lock.lock();
+    try {
+      this.delegate.setOption(option);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean setOptionU32(
+    final RenderDocOptionKey key,
+    final int value)
+  {
+    final var lock = this.optionLock.writeLock();
+    lock.lock();
+    try {
+      return this.delegate.setOptionU32(key, value);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean setOptionF32(
+    final RenderDocOptionKey key,
+    final float value)
+  {
+    final var lock = this.optionLock.writeLock();
+    lock.lock();
+    try {
+      return this.delegate.setOptionF32(key, value);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int optionU32(
+    final RenderDocOptionKey key)
+  {
+    final var lock = this.optionLock.readLock();
+    lock.lock();
+    try {
+      return this.delegate.optionU32(key);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public float optionF32(
+    final RenderDocOptionKey key)
+  {
+    final var lock = this.optionLock.readLock();
+    lock.lock();
+    try {
+      return this.delegate.optionF32(key);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void refreshOptions()
+  {
+    final var lock = this.optionLock.writeLock();
+    lock.lock();
+    try {
+      this.delegate.refreshOptions();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public RenderDocOptionProfile optionProfile()
+  {
+    final var lock = this.optionLock.readLock();
+    lock.lock();
+    try {
+      return this.delegate.optionProfile();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean applyOptionProfile(
+    final RenderDocOptionProfile profile)
+  {
+    final var lock = this.optionLock.writeLock();
+    lock.lock();
+    try {
+      return this.delegate.applyOptionProfile(profile);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public <T extends RenderDocOptionType> T option(
+    final Class<T> option)
+  {
+    final var lock = this.optionLock.readLock();
+    lock.lock();
+    try {
+      return this.delegate.option(option);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    final var options = this.optionLock.writeLock();
+    final var template = this.templateLock.writeLock();
+    options.lock();
+    template.lock();
+    this.captureLock.lock();
+    try {
+      this.delegate.close();
+    } finally {
+      this.captureLock.unlock();
+      template.unlock();
+      options.unlock();
+    }
+  }
+}
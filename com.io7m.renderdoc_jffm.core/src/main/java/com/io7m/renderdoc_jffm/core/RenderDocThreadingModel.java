@@ -0,0 +1,53 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+/**
+ * The threading model of a RenderDoc instance.
+ */
+
+public enum RenderDocThreadingModel
+{
+  /**
+   * The instance is owned by the thread that opened it. String arguments
+   * are passed through a preallocated scratch buffer, and no locks are
+   * taken on the calls that the owning thread makes. Other threads can
+   * submit work to the owning thread with a {@link RenderDocExecutor}.
+   *
+   * The exceptions are the methods that list captures, which may be called
+   * from any thread: {@link RenderDocType#numberOfCaptures()},
+   * {@link RenderDocType#captures()},
+   * {@link RenderDocType#capturesSince(int)}, and
+   * {@link RenderDocType#capture(int)}. These take no string arguments,
+   * and the memory that they use to retrieve capture information is guarded
+   * by its own lock. The library relies on this itself: the futures
+   * returned by {@link RenderDocType#triggerCaptureAsync()} and the
+   * {@link RenderDocCaptureWatcher} poll for captures from virtual threads.
+   * Every other method must be called on the owning thread.
+   */
+
+  CONFINED,
+
+  /**
+   * The instance may be used from any thread. String arguments are
+   * allocated in a confined arena for the duration of each call, and calls
+   * that read or modify shared state are serialised with locks.
+   */
+
+  SHARED
+}
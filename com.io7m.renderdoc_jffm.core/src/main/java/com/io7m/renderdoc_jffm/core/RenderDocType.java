@@ -19,7 +19,10 @@ package com.io7m.renderdoc_jffm.core;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The RenderDoc interface.
@@ -35,11 +38,114 @@ public interface RenderDocType
   void triggerCapture();
 
   /**
+   * Trigger a capture, and wait asynchronously for the capture to be
+   * written, using the capture timeout given in the configuration. The
+   * capture is triggered on the calling thread; waiting happens on a
+   * separate virtual thread.
+   *
+   * @return A future that completes when the capture file has been written
+   *
+   * @see #triggerCaptureAsync(Duration)
+   */
+
+  CompletableFuture<RenderDocCaptureInfo> triggerCaptureAsync();
+
+  /**
+   * Trigger a capture, and wait asynchronously for the capture to be
+   * written. The capture is triggered on the calling thread; waiting
+   * happens on a separate virtual thread. The capture is considered written
+   * once the capture has appeared and the size of the capture file has
+   * stopped changing. The returned future fails with a
+   * {@link java.util.concurrent.TimeoutException} if this does not happen
+   * within the given timeout. If captures made by other sources (such as
+   * the RenderDoc UI) appear at the same time as the triggered capture, the
+   * triggered capture cannot be identified, and the returned future fails
+   * with an {@link IllegalStateException} rather than complete with the
+   * wrong capture.
+   *
+   * @param timeout The maximum time to wait
+   *
+   * @return A future that completes when the capture file has been written
+   */
+
+  CompletableFuture<RenderDocCaptureInfo> triggerCaptureAsync(
+    Duration timeout);
+
+  /**
+   * Trigger a capture of a number of consecutive frames. Each frame is
+   * written to a separate capture.
+   *
+   * @param frames The number of frames, which must be at least 1
+   */
+
+  void triggerMultiFrameCapture(int frames);
+
+  /**
+   * Get the number of captures that have been made. This method may be
+   * called from any thread.
+   *
    * @return The number of captures
    */
 
   long numberOfCaptures();
 
+  /**
+   * List the captures that have been made. This method may be called from
+   * any thread.
+   *
+   * @return The captures
+   */
+
+  List<RenderDocCaptureInfo> captures();
+
+  /**
+   * List the captures that have been made with indices greater than or
+   * equal to {@code index}. This is intended for incrementally polling for
+   * new captures. This method may be called from any thread.
+   *
+   * @param index The first capture index
+   *
+   * @return The captures
+   */
+
+  List<RenderDocCaptureInfo> capturesSince(int index);
+
+  /**
+   * Find the capture with the given index. This method may be called from
+   * any thread.
+   *
+   * @param index The capture index
+   *
+   * @return The capture, if it exists
+   */
+
+  Optional<RenderDocCaptureInfo> capture(int index);
+
+  /**
+   * @return {@code true} if a frame capture is currently in progress
+   */
+
+  boolean isFrameCapturing();
+
+  /**
+   * Start a frame capture. The capture ends when the returned scope is
+   * closed. The returned scope is reused by subsequent calls, and so must
+   * not be retained after it has been closed.
+   *
+   * @param device The device to capture, or
+   *               {@link RenderDocDevicePointer#ANY}
+   * @param window The window to capture, or
+   *               {@link RenderDocWindowHandle#ANY}
+   *
+   * @return The capture scope
+   *
+   * @throws IllegalStateException If a frame capture scope is already open
+   */
+
+  RenderDocFrameCaptureScope startFrameCapture(
+    RenderDocDevicePointer device,
+    RenderDocWindowHandle window);
+
   /**
    * @return The current capture file path template
    */
@@ -54,6 +160,33 @@ public interface RenderDocType
 
   void setCaptureFilePathTemplate(Path file);
 
+  /**
+   * Set the title of the next capture.
+   *
+   * @param title The title
+   */
+
+  void setCaptureTitle(String title);
+
+  /**
+   * Set the comments embedded in a capture file.
+   *
+   * @param file     The capture file
+   * @param comments The comments
+   */
+
+  void setCaptureFileComments(
+    Path file,
+    String comments);
+
+  /**
+   * Set the comments embedded in the most recent capture file.
+   *
+   * @param comments The comments
+   */
+
+  void setLatestCaptureFileComments(String comments);
+
   /**
    * Set an option.
    *
@@ -63,6 +196,86 @@ public interface RenderDocType
   void setOption(
     RenderDocOptionType option);
 
+  /**
+   * Set an option to an integer value. Boolean options take the values
+   * {@code 0} and {@code 1}. This method does not allocate.
+   *
+   * @param key   The option key
+   * @param value The value
+   *
+   * @return {@code true} if RenderDoc accepted the value
+   */
+
+  boolean setOptionU32(
+    RenderDocOptionKey key,
+    int value);
+
+  /**
+   * Set an option to a floating-point value. This method does not allocate.
+   *
+   * @param key   The option key
+   * @param value The value
+   *
+   * @return {@code true} if RenderDoc accepted the value
+   */
+
+  boolean setOptionF32(
+    RenderDocOptionKey key,
+    float value);
+
+  /**
+   * Get the value of an option as an integer. This method does not allocate.
+   *
+   * @param key The option key
+   *
+   * @return The value of the option
+   */
+
+  int optionU32(
+    RenderDocOptionKey key);
+
+  /**
+   * Get the value of an option as a floating-point value. This method does
+   * not allocate.
+   *
+   * @param key The option key
+   *
+   * @return The value of the option
+   */
+
+  float optionF32(
+    RenderDocOptionKey key);
+
+  /**
+   * Discard the cached values of all options, so that each option is re-read
+   * from RenderDoc the next time it is read. Option values are cached the
+   * first time each option is read and whenever an option is set, so that
+   * reading an option does not usually call into native code. This method is
+   * only necessary if options may have been changed outside of this API
+   * (such as from the RenderDoc UI).
+   */
+
+  void refreshOptions();
+
+  /**
+   * @return A profile containing the current value of every option
+   */
+
+  RenderDocOptionProfile optionProfile();
+
+  /**
+   * Apply an option profile. Only options whose values differ from the
+   * current values are set. If RenderDoc rejects any value, the options
+   * that were already changed are restored to their previous values.
+   *
+   * @param profile The profile
+   *
+   * @return {@code true} if every value in the profile was applied
+   */
+
+  boolean applyOptionProfile(
+    RenderDocOptionProfile profile);
+
   /**
    * Get the value of an option.
    *
@@ -0,0 +1,63 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core;
+
+import java.lang.foreign.MemorySegment;
+import java.util.Objects;
+
+/**
+ * A RenderDoc window handle ({@code RENDERDOC_WindowHandle}). This is the
+ * native window handle of the platform: for example, an {@code HWND} on
+ * Windows, or an {@code xcb_window_t} or X11 {@code Window} on Linux.
+ *
+ * @param handle The window handle
+ */
+
+public record RenderDocWindowHandle(
+  MemorySegment handle)
+{
+  /**
+   * A window handle that matches any window.
+   */
+
+  public static final RenderDocWindowHandle ANY =
+    new RenderDocWindowHandle(MemorySegment.NULL);
+
+  /**
+   * A RenderDoc window handle.
+   *
+   * @param handle The window handle
+   */
+
+  public RenderDocWindowHandle
+  {
+    Objects.requireNonNull(handle, "handle");
+  }
+
+  /**
+   * @param handle The numeric window handle (such as an X11 window ID)
+   *
+   * @return A window handle
+   */
+
+  public static RenderDocWindowHandle ofValue(
+    final long handle)
+  {
+    return new RenderDocWindowHandle(MemorySegment.ofAddress(handle));
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SymbolLookup;
+import java.util.Locale;
+import java.util.Objects;
+
+import static java.lang.foreign.ValueLayout.ADDRESS;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+
+/**
+ * A probe that determines whether the RenderDoc library is already mapped
+ * into the current process.
+ *
+ * The probe never loads the library, and does not touch any of the
+ * generated bindings (initializing those attempts to load the library).
+ * On Windows, {@code GetModuleHandleA} is used. Elsewhere,
+ * {@code dlopen} is called with {@code RTLD_NOLOAD}, which only succeeds
+ * if the library is already loaded.
+ */
+
+public final class RenderDocLibraryProbe
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(RenderDocLibraryProbe.class);
+
+  private static final int RTLD_NOW = 0x2;
+  private static final int RTLD_NOLOAD_LINUX = 0x4;
+  private static final int RTLD_NOLOAD_DARWIN = 0x10;
+
+  private RenderDocLibraryProbe()
+  {
+
+  }
+
+  /**
+   * @return {@code true} if the RenderDoc library is already loaded
+   */
+
+  public static boolean isRenderDocLoaded()
+  {
+    return isLoaded(System.mapLibraryName("renderdoc"));
+  }
+
+  /**
+   * @param libraryName The platform-specific library file name
+   *
+   * @return {@code true} if the named library is already loaded
+   */
+
+  public static boolean isLoaded(
+    final String libraryName)
+  {
+    Objects.requireNonNull(libraryName, "libraryName");
+
+    final var os =
+      System.getProperty("os.name", "").toLowerCase(Locale.ROOT);
+
+    try {
+      if (os.startsWith("windows")) {
+        return isLoadedWindows(libraryName);
+      }
+      if (os.startsWith("mac")) {
+        return isLoadedPOSIX(libraryName, RTLD_NOLOAD_DARWIN);
+      }
+      return isLoadedPOSIX(libraryName, RTLD_NOLOAD_LINUX);
+    } catch (final RuntimeException e) {
+      LOG.debug("Unable to probe for {}: ", libraryName, e);
+      return false;
+    }
+  }
+
+  private static boolean isLoadedPOSIX(
+    final String libraryName,
+    final int noLoad)
+  {
+    final var linker =
+      Linker.nativeLinker();
+    final var lookup =
+      linker.defaultLookup();
+
+    final var dlopenAddress =
+      lookup.find("dlopen");
+    final var dlcloseAddress =
+      lookup.find("dlclose");
+
+    if (dlopenAddress.isEmpty() || dlcloseAddress.isEmpty()) {
+      return false;
+    }
+
+    final var dlopen =
+      linker.downcallHandle(
+        dlopenAddress.get(),
+        FunctionDescriptor.of(ADDRESS, ADDRESS, JAVA_INT)
+      );
+    final var dlclose =
+      linker.downcallHandle(
+        dlcloseAddress.get(),
+        FunctionDescriptor.of(JAVA_INT, ADDRESS)
+      );
+
+    try (var arena = Arena.ofConfined()) {
+      final var handle = (MemorySegment) dlopen.invokeExact(
+        arena.allocateFrom(libraryName),
+        RTLD_NOW | noLoad
+      );
+      if (MemorySegment.NULL.equals(handle)) {
+        return false;
+      }
+
+      /*
+       * A successful dlopen() increments the library's reference count,
+       * even with RTLD_NOLOAD, so it must be balanced.
+       */
+
+      final var ignored = (int) dlclose.invokeExact(handle);
+      return true;
+    } catch (final Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static boolean isLoadedWindows(
+    final String libraryName)
+  {
+    final var linker =
+      Linker.nativeLinker();
+    final var lookup =
+      SymbolLookup.libraryLookup("kernel32", Arena.global());
+
+    final var getModuleHandleAddress =
+      lookup.find("GetModuleHandleA");
+
+    if (getModuleHandleAddress.isEmpty()) {
+      return false;
+    }
+
+    final var getModuleHandle =
+      linker.downcallHandle(
+        getModuleHandleAddress.get(),
+        FunctionDescriptor.of(ADDRESS, ADDRESS)
+      );
+
+    try (var arena = Arena.ofConfined()) {
+      final var handle = (MemorySegment) getModuleHandle.invokeExact(
+        arena.allocateFrom(libraryName)
+      );
+      return !MemorySegment.NULL.equals(handle);
+    } catch (final Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,744 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.core.internal;
+
+import com.io7m.renderdoc_jffm.core.RenderDocFunctionsType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.foreign.AddressLayout;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.Objects;
+
+import static java.lang.foreign.ValueLayout.ADDRESS;
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_FLOAT;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+
+/**
+ * The RenderDoc API functions, bound to native downcall handles.
+ *
+ * Each function pointer in the {@code RENDERDOC_API_1_6_0} structure is
+ * linked at most once, on first use, with the function address bound
+ * directly into the resulting method handle. Each handle is held in a
+ * {@code static final} field of its own holder class, in the same manner as
+ * the generated {@code pRENDERDOC_*} classes, and so the handle is a
+ * constant that the JIT can inline. The holder class is only initialized
+ * (and the function only linked) when the function is first called, so
+ * opening RenderDoc only pays for linking the functions that are actually
+ * used. Calling a function does not need to pass the function pointer as
+ * an argument on every call.
+ *
+ * Because the handles are static, the functions are bound to a single
+ * {@code RENDERDOC_API_1_6_0} structure per process. This matches
+ * RenderDoc, which returns the same structure from every call to
+ * {@code RENDERDOC_GetAPI} for as long as the library is loaded.
+ *
+ * The structure offsets and function descriptors mirror the generated
+ * {@code RENDERDOC_API_1_6_0} and {@code pRENDERDOC_*} classes. They are
+ * declared here because initializing any of the generated classes forces
+ * an attempt to load {@code librenderdoc}, and the functions here must be
+ * usable with any structure that has the same layout.
+ *
+ * The trivial getter functions can optionally be linked as critical
+ * downcalls ({@link Linker.Option#critical(boolean)}), which avoids the
+ * thread state transition on every call. Critical and standard handles
+ * have separate holders, so both can be used in the same process.
+ */
+
+public final class RenderDocNativeFunctions
+  implements RenderDocFunctionsType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(RenderDocNativeFunctions.class);
+
+  private static final Linker LINKER =
+    Linker.nativeLinker();
+
+  private static final AddressLayout C_STRING =
+    ADDRESS.withTargetLayout(
+      MemoryLayout.sequenceLayout(Long.MAX_VALUE, JAVA_BYTE)
+    );
+
+  private static final int SLOT_COUNT = 27;
+
+  private static final Linker.Option[] STANDARD =
+    new Linker.Option[0];
+  private static final Linker.Option[] CRITICAL =
+    new Linker.Option[]{Linker.Option.critical(false)};
+
+  private static final Object API_LOCK =
+    new Object();
+
+  /*
+   * Written once, under API_LOCK, before any instance exists. Read by the
+   * holder class initializers, which may run on any thread.
+   */
+
+  private static volatile MemorySegment API_BOUND;
+
+  private enum Function
+  {
+    SET_CAPTURE_OPTION_U32(
+      "RENDERDOC_SetCaptureOptionU32",
+      1,
+      FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT)
+    ),
+    SET_CAPTURE_OPTION_F32(
+      "RENDERDOC_SetCaptureOptionF32",
+      2,
+      FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_FLOAT)
+    ),
+    GET_CAPTURE_OPTION_U32(
+      "RENDERDOC_GetCaptureOptionU32",
+      3,
+      FunctionDescriptor.of(JAVA_INT, JAVA_INT)
+    ),
+    GET_CAPTURE_OPTION_F32(
+      "RENDERDOC_GetCaptureOptionF32",
+      4,
+      FunctionDescriptor.of(JAVA_FLOAT, JAVA_INT)
+    ),
+    SET_CAPTURE_FILE_PATH_TEMPLATE(
+      "RENDERDOC_SetCaptureFilePathTemplate",
+      11,
+      FunctionDescriptor.ofVoid(C_STRING)
+    ),
+    GET_CAPTURE_FILE_PATH_TEMPLATE(
+      "RENDERDOC_GetCaptureFilePathTemplate",
+      12,
+      FunctionDescriptor.of(C_STRING)
+    ),
+    GET_NUM_CAPTURES(
+      "RENDERDOC_GetNumCaptures",
+      13,
+      FunctionDescriptor.of(JAVA_INT)
+    ),
+    GET_CAPTURE(
+      "RENDERDOC_GetCapture",
+      14,
+      FunctionDescriptor.of(JAVA_INT, JAVA_INT, ADDRESS, ADDRESS, ADDRESS)
+    ),
+    TRIGGER_CAPTURE(
+      "RENDERDOC_TriggerCapture",
+      15,
+      FunctionDescriptor.ofVoid()
+    ),
+    START_FRAME_CAPTURE(
+      "RENDERDOC_StartFrameCapture",
+      19,
+      FunctionDescriptor.ofVoid(ADDRESS, ADDRESS)
+    ),
+    IS_FRAME_CAPTURING(
+      "RENDERDOC_IsFrameCapturing",
+      20,
+      FunctionDescriptor.of(JAVA_INT)
+    ),
+    END_FRAME_CAPTURE(
+      "RENDERDOC_EndFrameCapture",
+      21,
+      FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS)
+    ),
+    TRIGGER_MULTI_FRAME_CAPTURE(
+      "RENDERDOC_TriggerMultiFrameCapture",
+      22,
+      FunctionDescriptor.ofVoid(JAVA_INT)
+    ),
+    SET_CAPTURE_FILE_COMMENTS(
+      "RENDERDOC_SetCaptureFileComments",
+      23,
+      FunctionDescriptor.ofVoid(C_STRING, C_STRING)
+    ),
+    DISCARD_FRAME_CAPTURE(
+      "RENDERDOC_DiscardFrameCapture",
+      24,
+      FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS)
+    ),
+    SET_CAPTURE_TITLE(
+      "RENDERDOC_SetCaptureTitle",
+      26,
+      FunctionDescriptor.ofVoid(C_STRING)
+    );
+
+    private final String functionName;
+    private final int slot;
+    private final FunctionDescriptor descriptor;
+
+    Function(
+      final String inFunctionName,
+      final int inSlot,
+      final FunctionDescriptor inDescriptor)
+    {
+      this.functionName = inFunctionName;
+      this.slot = inSlot;
+      this.descriptor = inDescriptor;
+    }
+  }
+
+  private static final class SetCaptureOptionU32
+  {
+    static final MethodHandle HANDLE =
+      bind(Function.SET_CAPTURE_OPTION_U32, STANDARD);
+
+    private SetCaptureOptionU32()
+    {
+
+    }
+  }
+
+  private static final class SetCaptureOptionF32
+  {
+    static final MethodHandle HANDLE =
+      bind(Function.SET_CAPTURE_OPTION_F32, STANDARD);
+
+    private SetCaptureOptionF32()
+    {
+
+    }
+  }
+
+  private static final class GetCaptureOptionU32
+  {
+    static final MethodHandle HANDLE =
+      bind(Function.GET_CAPTURE_OPTION_U32, STANDARD);
+
+    private GetCaptureOptionU32()
+    {
+
+    }
+  }
+
+  private static final class GetCaptureOptionU32Critical
+  {
+    static final MethodHandle HANDLE =
+      bind(Function.GET_CAPTURE_OPTION_U32, CRITICAL);
+
+    private GetCaptureOptionU32Critical()
+    {
+
+    }
+  }
+
+  private static final class GetCaptureOptionF32
+  {
+    static final MethodHandle HANDLE =
+      bind(Function.GET_CAPTURE_OPTION_F32, STANDARD);
+
+    private GetCaptureOptionF32()
+    {
+
+    }
+  }
+
+  private static final class GetCaptureOptionF32Critical
+  {
+    static final MethodHandle HANDLE =
+      bind(Function.GET_CAPTURE_OPTION_F32, CRITICAL);
+
+    private GetCaptureOptionF32Critical()
+    {
+
+    }
+  }
+
+  private static final class SetCaptureFilePathTemplate
+  {
+    static final MethodHandle HANDLE =
+      bind(Function.SET_CAPTURE_FILE_PATH_TEMPLATE, STANDARD);
+
+    private SetCaptureFilePathTemplate()
+    {
+
+    }
+  }
+
+  private static final class GetCaptureFilePathTemplate
+  {
+    static final MethodHandle HANDLE =
+      bind(Function.GET_CAPTURE_FILE_PATH_TEMPLATE, STANDARD);
+
+    private GetCaptureFilePathTemplate()
+    {
+
+    }
+  }
+
+  private static final class GetNumCaptures
+  {
+    static final MethodHandle HANDLE =
+      bind(Function.GET_NUM_CAPTURES, STANDARD);
+
+    private GetNumCaptures()
+    {
+
+    }
+  }
+
+  private static final class GetNumCapturesCritical
+  {
+    static final MethodHandle HANDLE =
+      bind(Function.GET_NUM_CAPTURES, CRITICAL);
+
+    private GetNumCapturesCritical()
+    {
+
+    }
+  }
+
+  private static final class GetCapture
+  {
+    static final MethodHandle HANDLE =
+      bind(Function.GET_CAPTURE, STANDARD);
+
+    private GetCapture()
+    {
+
+    }
+  }
+
+  private static final class TriggerCapture
+  {
+    static final MethodHandle HANDLE =
+      bind(Function.TRIGGER_CAPTURE, STANDARD);
+
+    private TriggerCapture()
+    {
+
+    }
+  }
+
+  private static final class StartFrameCapture
+  {
+    static final MethodHandle HANDLE =
+      bind(Function.START_FRAME_CAPTURE, STANDARD);
+
+    private StartFrameCapture()
+    {
+
+    }
+  }
+
+  private static final class IsFrameCapturing
+  {
+    static final MethodHandle HANDLE =
+      bind(Function.IS_FRAME_CAPTURING, STANDARD);
+
+    private IsFrameCapturing()
+    {
+
+    }
+  }
+
+  private static final class IsFrameCapturingCritical
+  {
+    static final MethodHandle HANDLE =
+      bind(Function.IS_FRAME_CAPTURING, CRITICAL);
+
+    private IsFrameCapturingCritical()
+    {
+
+    }
+  }
+
+  private static final class EndFrameCapture
+  {
+    static final MethodHandle HANDLE =
+      bind(Function.END_FRAME_CAPTURE, STANDARD);
+
+    private EndFrameCapture()
+    {
+
+    }
+  }
+
+  private static final class TriggerMultiFrameCapture
+  {
+    static final MethodHandle HANDLE =
+      bind(Function.TRIGGER_MULTI_FRAME_CAPTURE, STANDARD);
+
+    private TriggerMultiFrameCapture()
+    {
+
+    }
+  }
+
+  private static final class SetCaptureFileComments
+  {
+    static final MethodHandle HANDLE =
+      bind(Function.SET_CAPTURE_FILE_COMMENTS, STANDARD);
+
+    private SetCaptureFileComments()
+    {
+
+    }
+  }
+
+  private static final class DiscardFrameCapture
+  {
+    static final MethodHandle HANDLE =
+      bind(Function.DISCARD_FRAME_CAPTURE, STANDARD);
+
+    private DiscardFrameCapture()
+    {
+
+    }
+  }
+
+  private static final class SetCaptureTitle
+  {
+    static final MethodHandle HANDLE =
+      bind(Function.SET_CAPTURE_TITLE, STANDARD);
+
+    private SetCaptureTitle()
+    {
+
+    }
+  }
+
+  private static final Class<?>[] HOLDERS_STANDARD = {
+    SetCaptureOptionU32.class,
+    SetCaptureOptionF32.class,
+    GetCaptureOptionU32.class,
+    GetCaptureOptionF32.class,
+    SetCaptureFilePathTemplate.class,
+    GetCaptureFilePathTemplate.class,
+    GetNumCaptures.class,
+    GetCapture.class,
+    TriggerCapture.class,
+    StartFrameCapture.class,
+    IsFrameCapturing.class,
+    EndFrameCapture.class,
+    TriggerMultiFrameCapture.class,
+    SetCaptureFileComments.class,
+    DiscardFrameCapture.class,
+    SetCaptureTitle.class,
+  };
+
+  private static final Class<?>[] HOLDERS_CRITICAL = {
+    GetCaptureOptionU32Critical.class,
+    GetCaptureOptionF32Critical.class,
+    GetNumCapturesCritical.class,
+    IsFrameCapturingCritical.class,
+  };
+
+  private final boolean criticalGetters;
+
+  private RenderDocNativeFunctions(
+    final boolean inCriticalGetters)
+  {
+    this.criticalGetters =
+      inCriticalGetters;
+  }
+
+  /**
+   * Create functions for the given API structure. No function is linked
+   * until it is first called (or until {@link #bindAll()} is called).
+   *
+   * The structure is assumed to be owned by the RenderDoc library, and to
+   * live for as long as the library is loaded. Functions may be created any
+   * number of times, but always for the same structure: the linked handles
+   * are shared by every instance in the process.
+   *
+   * @param api             The {@code RENDERDOC_API_1_6_0} structure
+   * @param criticalGetters Whether trivial getters should be linked as
+   *                        critical downcalls
+   *
+   * @return The functions
+   *
+   * @throws IllegalStateException If functions have already been created
+   *                               for a different structure
+   */
+
+  public static RenderDocNativeFunctions create(
+    final MemorySegment api,
+    final boolean criticalGetters)
+  {
+    Objects.requireNonNull(api, "api");
+
+    synchronized (API_LOCK) {
+      final var existing = API_BOUND;
+      if (existing == null) {
+        API_BOUND =
+          MemorySegment.ofAddress(api.address())
+            .reinterpret(SLOT_COUNT * ADDRESS.byteSize());
+      } else if (existing.address() != api.address()) {
+        throw new IllegalStateException(
+          "Functions are bound to the API structure at 0x%s, not 0x%s."
+            .formatted(
+              Long.toUnsignedString(existing.address(), 16),
+              Long.toUnsignedString(api.address(), 16)
+            )
+        );
+      }
+    }
+
+    return new RenderDocNativeFunctions(criticalGetters);
+  }
+
+  /**
+   * Link every function immediately, rather than on first use.
+   */
+
+  public void bindAll()
+  {
+    final var lookup = MethodHandles.lookup();
+    try {
+      for (final var holder : HOLDERS_STANDARD) {
+        lookup.ensureInitialized(holder);
+      }
+      if (this.criticalGetters) {
+        for (final var holder : HOLDERS_CRITICAL) {
+          lookup.ensureInitialized(holder);
+        }
+      }
+    } catch (final IllegalAccessException e) {
+      throw failed(e);
+    }
+  }
+
+  /*
+   * Called by the holder class initializers. The JVM guarantees that each
+   * holder is initialized exactly once, so each function is linked once.
+   */
+
+  private static MethodHandle bind(
+    final Function function,
+    final Linker.Option[] options)
+  {
+    final var address =
+      API_BOUND.get(ADDRESS, function.slot * ADDRESS.byteSize());
+
+    if (LOG.isTraceEnabled()) {
+      LOG.trace(
+        "{}: 0x{} (critical: {})",
+        function.functionName,
+        Long.toUnsignedString(address.address(), 16),
+        Boolean.valueOf(options.length > 0)
+      );
+    }
+    return LINKER.downcallHandle(address, function.descriptor, options);
+  }
+
+  private static IllegalStateException failed(
+    final Throwable e)
+  {
+    return new IllegalStateException(e);
+  }
+
+  @Override
+  public void triggerCapture()
+  {
+    try {
+      TriggerCapture.HANDLE.invokeExact();
+    } catch (final Throwable e) {
+      throw failed(e);
+    }
+  }
+
+  @Override
+  public void triggerMultiFrameCapture(
+    final int frames)
+  {
+    try {
+      TriggerMultiFrameCapture.HANDLE.invokeExact(frames);
+    } catch (final Throwable e) {
+      throw failed(e);
+    }
+  }
+
+  @Override
+  public int getNumCaptures()
+  {
+    try {
+      if (this.criticalGetters) {
+        return (int) GetNumCapturesCritical.HANDLE.invokeExact();
+      }
+      return (int) GetNumCaptures.HANDLE.invokeExact();
+    } catch (final Throwable e) {
+      throw failed(e);
+    }
+  }
+
+  @Override
+  public int getCapture(
+    final int index,
+    final MemorySegment filename,
+    final MemorySegment pathLength,
+    final MemorySegment timestamp)
+  {
+    try {
+      return (int) GetCapture.HANDLE
+        .invokeExact(index, filename, pathLength, timestamp);
+    } catch (final Throwable e) {
+      throw failed(e);
+    }
+  }
+
+  @Override
+  public int isFrameCapturing()
+  {
+    try {
+      if (this.criticalGetters) {
+        return (int) IsFrameCapturingCritical.HANDLE.invokeExact();
+      }
+      return (int) IsFrameCapturing.HANDLE.invokeExact();
+    } catch (final Throwable e) {
+      throw failed(e);
+    }
+  }
+
+  @Override
+  public int setCaptureOptionU32(
+    final int option,
+    final int value)
+  {
+    try {
+      return (int) SetCaptureOptionU32.HANDLE.invokeExact(option, value);
+    } catch (final Throwable e) {
+      throw failed(e);
+    }
+  }
+
+  @Override
+  public int setCaptureOptionF32(
+    final int option,
+    final float value)
+  {
+    try {
+      return (int) SetCaptureOptionF32.HANDLE.invokeExact(option, value);
+    } catch (final Throwable e) {
+      throw failed(e);
+    }
+  }
+
+  @Override
+  public int getCaptureOptionU32(
+    final int option)
+  {
+    try {
+      if (this.criticalGetters) {
+        return (int) GetCaptureOptionU32Critical.HANDLE.invokeExact(option);
+      }
+      return (int) GetCaptureOptionU32.HANDLE.invokeExact(option);
+    } catch (final Throwable e) {
+      throw failed(e);
+    }
+  }
+
+  @Override
+  public float getCaptureOptionF32(
+    final int option)
+  {
+    try {
+      if (this.criticalGetters) {
+        return (float) GetCaptureOptionF32Critical.HANDLE.invokeExact(option);
+      }
+      return (float) GetCaptureOptionF32.HANDLE.invokeExact(option);
+    } catch (final Throwable e) {
+      throw failed(e);
+    }
+  }
+
+  @Override
+  public void setCaptureFilePathTemplate(
+    final MemorySegment pathTemplate)
+  {
+    try {
+      SetCaptureFilePathTemplate.HANDLE.invokeExact(pathTemplate);
+    } catch (final Throwable e) {
+      throw failed(e);
+    }
+  }
+
+  @Override
+  public MemorySegment getCaptureFilePathTemplate()
+  {
+    try {
+      return (MemorySegment) GetCaptureFilePathTemplate.HANDLE
+        .invokeExact();
+    } catch (final Throwable e) {
+      throw failed(e);
+    }
+  }
+
+  @Override
+  public void setCaptureTitle(
+    final MemorySegment title)
+  {
+    try {
+      SetCaptureTitle.HANDLE.invokeExact(title);
+    } catch (final Throwable e) {
+      throw failed(e);
+    }
+  }
+
+  @Override
+  public void setCaptureFileComments(
+    final MemorySegment filePath,
+    final MemorySegment comments)
+  {
+    try {
+      SetCaptureFileComments.HANDLE.invokeExact(filePath, comments);
+    } catch (final Throwable e) {
+      throw failed(e);
+    }
+  }
+
+  @Override
+  public void startFrameCapture(
+    final MemorySegment device,
+    final MemorySegment window)
+  {
+    try {
+      StartFrameCapture.HANDLE.invokeExact(device, window);
+    } catch (final Throwable e) {
+      throw failed(e);
+    }
+  }
+
+  @Override
+  public int endFrameCapture(
+    final MemorySegment device,
+    final MemorySegment window)
+  {
+    try {
+      return (int) EndFrameCapture.HANDLE
+        .invokeExact(device, window);
+    } catch (final Throwable e) {
+      throw failed(e);
+    }
+  }
+
+  @Override
+  public int discardFrameCapture(
+    final MemorySegment device,
+    final MemorySegment window)
+  {
+    try {
+      return (int) DiscardFrameCapture.HANDLE
+        .invokeExact(device, window);
+    } catch (final Throwable e) {
+      throw failed(e);
+    }
+  }
+}
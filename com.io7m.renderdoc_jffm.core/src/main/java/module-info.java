@@ -21,6 +21,8 @@
 module com.io7m.renderdoc_jffm.core
 {
   requires com.io7m.jmulticlose.core;
+  requires static java.management;
+  requires static jdk.jfr;
   requires org.slf4j;
 
   exports com.io7m.renderdoc_jffm.core;
@@ -0,0 +1,216 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.tests;
+
+import com.io7m.renderdoc_jffm.core.RenderDoc;
+import com.io7m.renderdoc_jffm.core.RenderDocBurst;
+import com.io7m.renderdoc_jffm.core.RenderDocBurstScheduler;
+import com.io7m.renderdoc_jffm.core.RenderDocConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class RenderDocBurstSchedulerTest
+{
+  private static final long MILLISECOND = 1_000_000L;
+
+  /**
+   * Requests made from many threads before a frame boundary are coalesced
+   * into a single native call.
+   */
+
+  @Test
+  public void testCoalesce()
+    throws Exception
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var scheduler =
+        RenderDocBurstScheduler.create(doc, Duration.ofMillis(100L));
+
+      final var threads = 8;
+      final var latch = new CountDownLatch(threads);
+      final var futures =
+        new ArrayList<CompletableFuture<RenderDocBurst>>();
+
+      try (final var executor = Executors.newFixedThreadPool(threads)) {
+        final var submitted =
+          new ArrayList<Future<CompletableFuture<RenderDocBurst>>>();
+        for (int index = 0; index < threads; ++index) {
+          final var frames = index + 1;
+          submitted.add(executor.submit(() -> {
+            latch.countDown();
+            latch.await();
+            return scheduler.requestBurst(frames);
+          }));
+        }
+        for (final var future : submitted) {
+          futures.add(future.get());
+        }
+      }
+
+      scheduler.onFrameBoundary(0L);
+
+      assertEquals(1L, functions.multiFrameCaptureCalls());
+      assertEquals(1L, scheduler.burstsIssued());
+      assertEquals(8L, scheduler.requestsReceived());
+
+      scheduler.onFrameBoundary(MILLISECOND);
+      assertFalse(futures.get(0).isDone());
+      scheduler.onFrameBoundary(2L * MILLISECOND);
+
+      final var burst = futures.get(0).getNow(null);
+      assertEquals(new RenderDocBurst(0L, 8, 0L, 8), burst);
+      for (final var future : futures) {
+        assertSame(burst, future.getNow(null));
+      }
+      assertTrue(burst.contains(0L));
+      assertTrue(burst.contains(7L));
+      assertFalse(burst.contains(8L));
+    }
+  }
+
+  /**
+   * Bursts are spaced by the minimum interval, and do not overlap.
+   */
+
+  @Test
+  public void testSpacing()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var scheduler =
+        RenderDocBurstScheduler.create(doc, Duration.ofMillis(100L));
+
+      final var first = scheduler.requestBurst(4);
+      scheduler.onFrameBoundary(0L);
+      assertEquals(1L, functions.multiFrameCaptureCalls());
+
+      final var second = scheduler.requestBurst(2);
+      for (int frame = 1; frame <= 4; ++frame) {
+        scheduler.onFrameBoundary(frame * MILLISECOND);
+        assertEquals(1L, functions.multiFrameCaptureCalls());
+      }
+      assertEquals(new RenderDocBurst(0L, 4, 0L, 1), first.getNow(null));
+
+      scheduler.onFrameBoundary(99L * MILLISECOND);
+      assertEquals(1L, functions.multiFrameCaptureCalls());
+      scheduler.onFrameBoundary(100L * MILLISECOND);
+      assertEquals(2L, functions.multiFrameCaptureCalls());
+      assertFalse(second.isDone());
+
+      scheduler.onFrameBoundary(101L * MILLISECOND);
+      scheduler.onFrameBoundary(102L * MILLISECOND);
+      assertTrue(second.isDone());
+
+      assertEquals(new RenderDocBurst(1L, 2, 4L, 1), second.getNow(null));
+      assertEquals(2L, functions.multiFrameCaptureCalls());
+      assertEquals(6L, doc.numberOfCaptures());
+    }
+  }
+
+  /**
+   * Invalid requests are rejected.
+   */
+
+  @Test
+  public void testInvalid()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var scheduler =
+        RenderDocBurstScheduler.create(doc, Duration.ZERO);
+
+      assertThrows(IllegalArgumentException.class, () -> {
+        scheduler.requestBurst(0);
+      });
+      assertThrows(IllegalArgumentException.class, () -> {
+        RenderDocBurstScheduler.create(doc, Duration.ofMillis(-1L));
+      });
+      assertThrows(IllegalArgumentException.class, () -> {
+        doc.triggerMultiFrameCapture(0);
+      });
+    }
+  }
+
+  /**
+   * The captures of a burst are those observed after it was issued. A
+   * capture made by another source before the burst is issued is not
+   * credited to the burst, and a capture made by another source among the
+   * burst's captures makes the burst's captures unidentifiable rather than
+   * shifting its range.
+   */
+
+  @Test
+  public void testForeignCaptures()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    functions.setCapturesDeferred(true);
+
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var scheduler =
+        RenderDocBurstScheduler.create(doc, Duration.ZERO);
+
+      functions.addCapture();
+      final var first = scheduler.requestBurst(3);
+      scheduler.onFrameBoundary(0L);
+      for (int frame = 1; frame <= 5; ++frame) {
+        functions.completePendingCapture();
+        scheduler.onFrameBoundary(frame * MILLISECOND);
+      }
+      assertEquals(new RenderDocBurst(0L, 3, 1L, 1), first.getNow(null));
+
+      final var second = scheduler.requestBurst(3);
+      scheduler.onFrameBoundary(6L * MILLISECOND);
+      assertEquals(2L, functions.multiFrameCaptureCalls());
+
+      functions.addCapture();
+      for (int frame = 7; frame <= 10; ++frame) {
+        functions.completePendingCapture();
+        scheduler.onFrameBoundary(frame * MILLISECOND);
+      }
+
+      assertTrue(second.isCompletedExceptionally());
+      final var ex =
+        assertThrows(ExecutionException.class, second::get);
+      assertInstanceOf(IllegalStateException.class, ex.getCause());
+      assertEquals(8L, doc.numberOfCaptures());
+    }
+  }
+}
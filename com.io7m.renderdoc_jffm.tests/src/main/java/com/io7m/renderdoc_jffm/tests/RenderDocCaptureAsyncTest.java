@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.tests;
+
+import com.io7m.renderdoc_jffm.core.RenderDoc;
+import com.io7m.renderdoc_jffm.core.RenderDocConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class RenderDocCaptureAsyncTest
+{
+  /**
+   * An asynchronous capture completes once the capture file exists and has
+   * stopped growing.
+   */
+
+  @Test
+  public void testCompletes(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var functions = new RenderDocFakeFunctions();
+    functions.setCapturePathPrefix(directory + "/capture_");
+
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var future = doc.triggerCaptureAsync();
+      final var file = directory.resolve("capture_0.rdc");
+
+      Thread.sleep(50L);
+      assertFalse(future.isDone());
+
+      Files.write(file, new byte[100]);
+      Thread.sleep(5L);
+      Files.write(file, new byte[200]);
+
+      final var capture = future.get(5L, TimeUnit.SECONDS);
+      assertEquals(0, capture.index());
+      assertEquals(file, capture.file());
+      assertEquals(200L, Files.size(file));
+    }
+  }
+
+  /**
+   * An asynchronous capture fails if the capture file never appears.
+   */
+
+  @Test
+  public void testTimesOut(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var functions = new RenderDocFakeFunctions();
+    functions.setCapturePathPrefix(directory + "/capture_");
+
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var future =
+        doc.triggerCaptureAsync(Duration.ofMillis(100L));
+      final var ex =
+        assertThrows(ExecutionException.class, () -> {
+          future.get(5L, TimeUnit.SECONDS);
+        });
+      assertInstanceOf(TimeoutException.class, ex.getCause());
+    }
+  }
+
+  /**
+   * A capture made by another source alongside the triggered capture is not
+   * mistaken for it; as the two cannot be told apart, the capture fails
+   * rather than completing with the other source's capture.
+   */
+
+  @Test
+  public void testForeignCapture(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var functions = new RenderDocFakeFunctions();
+    functions.setCapturePathPrefix(directory + "/capture_");
+    functions.setCapturesDeferred(true);
+
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var future = doc.triggerCaptureAsync();
+
+      functions.addCapture();
+      functions.completePendingCaptures();
+      Files.write(directory.resolve("capture_0.rdc"), new byte[100]);
+      Files.write(directory.resolve("capture_1.rdc"), new byte[100]);
+
+      final var ex =
+        assertThrows(ExecutionException.class, () -> {
+          future.get(5L, TimeUnit.SECONDS);
+        });
+      assertInstanceOf(IllegalStateException.class, ex.getCause());
+    }
+  }
+
+  /**
+   * The no-op implementation fails asynchronous captures immediately.
+   */
+
+  @Test
+  public void testNoop()
+    throws Exception
+  {
+    try (final var doc = RenderDoc.noop()) {
+      final var ex =
+        assertThrows(ExecutionException.class, () -> {
+          doc.triggerCaptureAsync().get();
+        });
+      assertInstanceOf(IllegalStateException.class, ex.getCause());
+    }
+  }
+
+  /**
+   * Capture timeouts must be positive.
+   */
+
+  @Test
+  public void testConfigurationInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      RenderDocConfiguration.defaults()
+        .withCaptureTimeout(Duration.ZERO);
+    });
+  }
+}
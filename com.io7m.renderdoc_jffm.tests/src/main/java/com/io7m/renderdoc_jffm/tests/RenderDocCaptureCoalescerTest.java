@@ -0,0 +1,240 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.tests;
+
+import com.io7m.renderdoc_jffm.core.RenderDoc;
+import com.io7m.renderdoc_jffm.core.RenderDocCaptureCoalescer;
+import com.io7m.renderdoc_jffm.core.RenderDocConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class RenderDocCaptureCoalescerTest
+{
+  private static final long MILLISECOND = 1_000_000L;
+
+  /**
+   * Requests made within a frame produce one capture, commented with every
+   * reason.
+   */
+
+  @Test
+  public void testCoalesceFrame()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var coalescer =
+        RenderDocCaptureCoalescer.create(doc, Duration.ZERO);
+
+      coalescer.onFrameBoundary(0L);
+      assertEquals(0L, doc.numberOfCaptures());
+
+      coalescer.requestCapture("frame time");
+      coalescer.requestCapture("gc");
+      coalescer.requestCapture("error log");
+      coalescer.requestCapture("gc");
+      coalescer.onFrameBoundary(MILLISECOND);
+      assertEquals(1L, doc.numberOfCaptures());
+
+      coalescer.onFrameBoundary(2L * MILLISECOND);
+      coalescer.onFrameBoundary(3L * MILLISECOND);
+      assertEquals(1L, doc.numberOfCaptures());
+      assertEquals(
+        "/tmp/renderdoc_jffm/capture_0.rdc",
+        functions.captureFileCommentsPath()
+      );
+      assertEquals(
+        "Capture requested by:\n- frame time\n- gc (x2)\n- error log",
+        functions.captureFileComments()
+      );
+      assertEquals(4L, coalescer.requestsReceived());
+      assertEquals(1L, coalescer.capturesTriggered());
+    }
+  }
+
+  /**
+   * Requests made within a time window produce one capture.
+   */
+
+  @Test
+  public void testCoalesceWindow()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var coalescer =
+        RenderDocCaptureCoalescer.create(doc, Duration.ofMillis(10L));
+
+      coalescer.requestCapture("a");
+      coalescer.onFrameBoundary(0L);
+      coalescer.requestCapture("b");
+      coalescer.onFrameBoundary(5L * MILLISECOND);
+      assertEquals(0L, doc.numberOfCaptures());
+      coalescer.requestCapture("c");
+      coalescer.onFrameBoundary(10L * MILLISECOND);
+      assertEquals(1L, doc.numberOfCaptures());
+
+      coalescer.requestCapture("d");
+      coalescer.onFrameBoundary(11L * MILLISECOND);
+      coalescer.onFrameBoundary(21L * MILLISECOND);
+      assertEquals(
+        "Capture requested by:\n- a\n- b\n- c",
+        functions.captureFileComments()
+      );
+      assertEquals(2L, doc.numberOfCaptures());
+      coalescer.onFrameBoundary(22L * MILLISECOND);
+      coalescer.onFrameBoundary(23L * MILLISECOND);
+      assertEquals(
+        "/tmp/renderdoc_jffm/capture_1.rdc",
+        functions.captureFileCommentsPath()
+      );
+      assertEquals(
+        "Capture requested by:\n- d",
+        functions.captureFileComments()
+      );
+    }
+  }
+
+  /**
+   * Requests from many threads are never lost, and produce at most one
+   * capture per frame.
+   */
+
+  @Test
+  public void testConcurrentRequests()
+    throws Exception
+  {
+    final var functions = new RenderDocFakeFunctions();
+    final var threadCount = 8;
+    final var requestCount = 10_000;
+
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var coalescer =
+        RenderDocCaptureCoalescer.create(doc, Duration.ZERO);
+      final var start = new CountDownLatch(1);
+      final var threads = new ArrayList<Thread>();
+
+      for (int index = 0; index < threadCount; ++index) {
+        threads.add(Thread.ofPlatform().start(() -> {
+          try {
+            start.await();
+          } catch (final InterruptedException e) {
+            throw new IllegalStateException(e);
+          }
+          for (int request = 0; request < requestCount; ++request) {
+            coalescer.requestCapture("r");
+          }
+        }));
+      }
+
+      start.countDown();
+      var frames = 0L;
+      while (threads.stream().anyMatch(Thread::isAlive)) {
+        coalescer.onFrameBoundary(frames);
+        frames = frames + 1L;
+      }
+      coalescer.onFrameBoundary(frames);
+      frames = frames + 1L;
+
+      assertEquals(
+        (long) threadCount * requestCount,
+        coalescer.requestsReceived()
+      );
+      assertTrue(coalescer.capturesTriggered() >= 1L);
+      assertTrue(coalescer.capturesTriggered() <= frames);
+      assertEquals(coalescer.capturesTriggered(), doc.numberOfCaptures());
+
+      coalescer.onFrameBoundary(frames);
+      coalescer.onFrameBoundary(frames + 1L);
+      assertTrue(
+        functions.captureFileComments().startsWith("Capture requested by:\n- r")
+      );
+    }
+  }
+
+  /**
+   * Captures made by other sources never receive the coalescer's comments,
+   * and do not cause later comments to be applied to the wrong capture.
+   */
+
+  @Test
+  public void testForeignCaptures()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var coalescer =
+        RenderDocCaptureCoalescer.create(doc, Duration.ZERO);
+
+      doc.triggerCapture();
+      coalescer.requestCapture("a");
+      coalescer.onFrameBoundary(0L);
+      coalescer.onFrameBoundary(MILLISECOND);
+      coalescer.onFrameBoundary(2L * MILLISECOND);
+      assertEquals(2L, doc.numberOfCaptures());
+      assertEquals(
+        "/tmp/renderdoc_jffm/capture_1.rdc",
+        functions.captureFileCommentsPath()
+      );
+      assertEquals(
+        "Capture requested by:\n- a",
+        functions.captureFileComments()
+      );
+
+      /*
+       * A capture from another source appears alongside the coalescer's
+       * capture; the two cannot be told apart, so no comments are set.
+       */
+
+      coalescer.requestCapture("b");
+      coalescer.onFrameBoundary(3L * MILLISECOND);
+      doc.triggerCapture();
+      coalescer.onFrameBoundary(4L * MILLISECOND);
+      coalescer.onFrameBoundary(5L * MILLISECOND);
+      assertEquals(4L, doc.numberOfCaptures());
+      assertEquals(
+        "/tmp/renderdoc_jffm/capture_1.rdc",
+        functions.captureFileCommentsPath()
+      );
+
+      coalescer.requestCapture("c");
+      coalescer.onFrameBoundary(6L * MILLISECOND);
+      coalescer.onFrameBoundary(7L * MILLISECOND);
+      coalescer.onFrameBoundary(8L * MILLISECOND);
+      assertEquals(
+        "/tmp/renderdoc_jffm/capture_4.rdc",
+        functions.captureFileCommentsPath()
+      );
+      assertEquals(
+        "Capture requested by:\n- c",
+        functions.captureFileComments()
+      );
+    }
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.tests;
+
+import com.io7m.renderdoc_jffm.core.RenderDoc;
+import com.io7m.renderdoc_jffm.core.RenderDocCaptureInfo;
+import com.io7m.renderdoc_jffm.core.RenderDocCaptureWatcher;
+import com.io7m.renderdoc_jffm.core.RenderDocCaptureWatcherConfiguration;
+import com.io7m.renderdoc_jffm.core.RenderDocConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class RenderDocCaptureWatcherTest
+{
+  /**
+   * New captures are published in order, and existing captures are not.
+   */
+
+  @Test
+  public void testPublishesNewCaptures()
+    throws Exception
+  {
+    final var functions = new RenderDocFakeFunctions();
+    final var received = new LinkedBlockingQueue<RenderDocCaptureInfo>();
+    final var completed = new AtomicBoolean(false);
+
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      doc.triggerCapture();
+
+      final var configuration =
+        new RenderDocCaptureWatcherConfiguration(
+          Duration.ofMillis(1L),
+          Duration.ofMillis(50L)
+        );
+
+      try (final var watcher =
+             RenderDocCaptureWatcher.create(doc, configuration)) {
+        watcher.subscribe(new Flow.Subscriber<>()
+        {
+          @Override
+          public void onSubscribe(
+            final Flow.Subscription subscription)
+          {
+            subscription.request(Long.MAX_VALUE);
+          }
+
+          @Override
+          public void onNext(
+            final RenderDocCaptureInfo item)
+          {
+            received.add(item);
+          }
+
+          @Override
+          public void onError(
+            final Throwable throwable)
+          {
+
+          }
+
+          @Override
+          public void onComplete()
+          {
+            completed.set(true);
+          }
+        });
+
+        doc.triggerCapture();
+        doc.triggerCapture();
+        watcher.notifyTriggered();
+
+        assertEquals(1, received.poll(5L, TimeUnit.SECONDS).index());
+        assertEquals(2, received.poll(5L, TimeUnit.SECONDS).index());
+
+        doc.triggerMultiFrameCapture(2);
+        watcher.notifyTriggered();
+
+        assertEquals(3, received.poll(5L, TimeUnit.SECONDS).index());
+        assertEquals(4, received.poll(5L, TimeUnit.SECONDS).index());
+        assertNull(received.poll(100L, TimeUnit.MILLISECONDS));
+      }
+
+      final var deadline = System.nanoTime() + 5_000_000_000L;
+      while (!completed.get() && System.nanoTime() < deadline) {
+        Thread.sleep(1L);
+      }
+      assertTrue(completed.get());
+    }
+  }
+
+  /**
+   * Invalid intervals are rejected.
+   */
+
+  @Test
+  public void testConfigurationInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      new RenderDocCaptureWatcherConfiguration(
+        Duration.ZERO,
+        Duration.ofSeconds(1L)
+      );
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      new RenderDocCaptureWatcherConfiguration(
+        Duration.ofSeconds(2L),
+        Duration.ofSeconds(1L)
+      );
+    });
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.tests;
+
+import com.io7m.renderdoc_jffm.core.RenderDoc;
+import com.io7m.renderdoc_jffm.core.RenderDocCaptureInfo;
+import com.io7m.renderdoc_jffm.core.RenderDocConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class RenderDocCapturesTest
+{
+  /**
+   * Captures can be listed in full and incrementally.
+   */
+
+  @Test
+  public void testCaptures()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      assertEquals(List.of(), doc.captures());
+
+      doc.triggerCapture();
+      doc.triggerCapture();
+      doc.triggerCapture();
+
+      final var captures = doc.captures();
+      assertEquals(3, captures.size());
+      assertEquals(
+        new RenderDocCaptureInfo(
+          1,
+          Paths.get("/tmp/renderdoc_jffm/capture_1.rdc"),
+          Instant.ofEpochSecond(1_700_000_001L)
+        ),
+        captures.get(1)
+      );
+
+      doc.triggerMultiFrameCapture(2);
+      final var since = doc.capturesSince(3);
+      assertEquals(2, since.size());
+      assertEquals(3, since.get(0).index());
+      assertEquals(4, since.get(1).index());
+      assertEquals(List.of(), doc.capturesSince(5));
+
+      assertEquals(Optional.of(captures.get(2)), doc.capture(2));
+      assertEquals(Optional.empty(), doc.capture(5));
+      assertEquals(Optional.empty(), doc.capture(-1));
+      assertThrows(IllegalArgumentException.class, () -> {
+        doc.capturesSince(-1);
+      });
+    }
+  }
+
+  /**
+   * File names longer than the initial buffer are retrieved correctly.
+   */
+
+  @Test
+  public void testLongNames()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    final var directory = "/tmp/" + "x".repeat(3000) + "/capture_";
+    functions.setCapturePathPrefix(directory);
+
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      doc.triggerCapture();
+      doc.triggerCapture();
+
+      final var captures = doc.captures();
+      assertEquals(Paths.get(directory + "0.rdc"), captures.get(0).file());
+      assertEquals(Paths.get(directory + "1.rdc"), captures.get(1).file());
+      assertEquals(4L, functions.getCaptureCalls());
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.tests;
+
+import com.io7m.renderdoc_jffm.core.RenderDoc;
+import com.io7m.renderdoc_jffm.core.RenderDocCommandType;
+import com.io7m.renderdoc_jffm.core.RenderDocConfiguration;
+import com.io7m.renderdoc_jffm.core.RenderDocExecutor;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionKey;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.AllowVSync;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class RenderDocExecutorTest
+{
+  /**
+   * Commands are executed in order on the owner thread, in batches.
+   */
+
+  @Test
+  public void testDrain()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var executor = RenderDocExecutor.create(doc, 2);
+
+      executor.setOption(new AllowVSync(true));
+      executor.setCaptureTitle("A");
+      executor.triggerCapture();
+      executor.submit(new RenderDocCommandType.TriggerMultiFrameCapture(0));
+
+      assertEquals(2, executor.drain());
+      assertEquals(1, doc.optionU32(RenderDocOptionKey.ALLOW_VSYNC));
+      assertEquals("A", functions.captureTitle());
+      assertEquals(0L, doc.numberOfCaptures());
+
+      executor.onFrameBoundary(0L);
+      assertEquals(1L, doc.numberOfCaptures());
+      assertEquals(0, executor.drain());
+
+      assertEquals(4L, executor.commandsSubmitted());
+      assertEquals(3L, executor.commandsExecuted());
+      assertEquals(1L, executor.commandsFailed());
+    }
+  }
+
+  /**
+   * Only the owner thread may drain commands.
+   */
+
+  @Test
+  public void testDrainNotOwner()
+    throws Exception
+  {
+    final var executor = RenderDocExecutor.create(RenderDoc.noop(), 1);
+    final var thread = Thread.ofPlatform().start(() -> {
+      assertThrows(IllegalStateException.class, executor::drain);
+    });
+    thread.join();
+  }
+
+  /**
+   * Commands submitted concurrently by many threads are neither lost nor
+   * reordered with respect to each submitting thread.
+   */
+
+  @Test
+  public void testStress()
+    throws Exception
+  {
+    final var functions = new RenderDocFakeFunctions();
+    final var producers = 8;
+    final var commands = 10_000;
+
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var executor = RenderDocExecutor.create(doc, 64);
+      final var start = new CountDownLatch(1);
+      final var threads = new ArrayList<Thread>();
+
+      for (int producer = 0; producer < producers; ++producer) {
+        final var name = Integer.toString(producer);
+        threads.add(Thread.ofPlatform().start(() -> {
+          try {
+            start.await();
+          } catch (final InterruptedException e) {
+            throw new IllegalStateException(e);
+          }
+          for (int index = 0; index < commands; ++index) {
+            executor.setCaptureTitle(name + ":" + index);
+          }
+        }));
+      }
+
+      start.countDown();
+      while (executor.commandsExecuted() < (long) producers * commands) {
+        executor.onFrameBoundary(0L);
+      }
+      for (final var thread : threads) {
+        thread.join();
+      }
+
+      final var titles = functions.captureTitles();
+      assertEquals(producers * commands, titles.size());
+
+      final var next = new int[producers];
+      for (final var title : titles) {
+        final var parts = title.split(":");
+        final var producer = Integer.parseInt(parts[0]);
+        assertEquals(next[producer], Integer.parseInt(parts[1]));
+        ++next[producer];
+      }
+      for (int producer = 0; producer < producers; ++producer) {
+        assertEquals(commands, next[producer]);
+      }
+      assertEquals(0L, executor.commandsFailed());
+    }
+  }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.tests;
+
+import com.io7m.renderdoc_jffm.core.RenderDocFunctionsType;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe fake implementation of the RenderDoc functions. The fake
+ * counts violations: calls that overlap with other calls that the caller
+ * is expected to serialise.
+ */
+
+public final class RenderDocFakeConcurrentFunctions
+  implements RenderDocFunctionsType
+{
+  private static final int OPTION_COUNT = 32;
+
+  private final AtomicIntegerArray options;
+  private final AtomicInteger captures;
+  private final AtomicInteger frameCapturing;
+  private final AtomicInteger optionWriters;
+  private final AtomicInteger templateWriters;
+  private final AtomicInteger templateReaders;
+  private final AtomicLong violations;
+  private final ConcurrentLinkedQueue<String> captureTitles;
+  private volatile String captureFilePathTemplate;
+
+  public RenderDocFakeConcurrentFunctions()
+  {
+    this.options = new AtomicIntegerArray(OPTION_COUNT);
+    this.captures = new AtomicInteger();
+    this.frameCapturing = new AtomicInteger();
+    this.optionWriters = new AtomicInteger();
+    this.templateWriters = new AtomicInteger();
+    this.templateReaders = new AtomicInteger();
+    this.violations = new AtomicLong();
+    this.captureTitles = new ConcurrentLinkedQueue<>();
+    this.captureFilePathTemplate = "";
+  }
+
+  private void enterExclusive(
+    final AtomicInteger writers)
+  {
+    if (writers.incrementAndGet() != 1) {
+      this.violations.incrementAndGet();
+    }
+    Thread.onSpinWait();
+  }
+
+  @Override
+  public void triggerCapture()
+  {
+    this.captures.incrementAndGet();
+  }
+
+  @Override
+  public void triggerMultiFrameCapture(
+    final int frames)
+  {
+    this.captures.addAndGet(frames);
+  }
+
+  @Override
+  public int getNumCaptures()
+  {
+    return this.captures.get();
+  }
+
+  @Override
+  public int getCapture(
+    final int index,
+    final MemorySegment filename,
+    final MemorySegment pathLength,
+    final MemorySegment timestamp)
+  {
+    if (index < 0 || index >= this.captures.get()) {
+      return 0;
+    }
+
+    final var name = "/tmp/renderdoc_jffm/capture_" + index + ".rdc";
+    final var bytes = name.getBytes(StandardCharsets.UTF_8);
+    if (!MemorySegment.NULL.equals(pathLength)) {
+      pathLength.set(ValueLayout.JAVA_INT, 0L, bytes.length + 1);
+    }
+    if (!MemorySegment.NULL.equals(filename)) {
+      filename.setString(0L, name);
+    }
+    if (!MemorySegment.NULL.equals(timestamp)) {
+      timestamp.set(ValueLayout.JAVA_LONG, 0L, 1_700_000_000L + index);
+    }
+    return 1;
+  }
+
+  @Override
+  public int isFrameCapturing()
+  {
+    return this.frameCapturing.get();
+  }
+
+  @Override
+  public int setCaptureOptionU32(
+    final int option,
+    final int value)
+  {
+    this.enterExclusive(this.optionWriters);
+    try {
+      if (option < 0 || option >= OPTION_COUNT) {
+        return 0;
+      }
+      this.options.set(option, value);
+      return 1;
+    } finally {
+      this.optionWriters.decrementAndGet();
+    }
+  }
+
+  @Override
+  public int setCaptureOptionF32(
+    final int option,
+    final float value)
+  {
+    return this.setCaptureOptionU32(option, (int) value);
+  }
+
+  @Override
+  public int getCaptureOptionU32(
+    final int option)
+  {
+    if (option < 0 || option >= OPTION_COUNT) {
+      return 0xffffffff;
+    }
+    return this.options.get(option);
+  }
+
+  @Override
+  public float getCaptureOptionF32(
+    final int option)
+  {
+    if (option < 0 || option >= OPTION_COUNT) {
+      return -Float.MAX_VALUE;
+    }
+    return (float) this.options.get(option);
+  }
+
+  @Override
+  public void setCaptureFilePathTemplate(
+    final MemorySegment pathTemplate)
+  {
+    this.enterExclusive(this.templateWriters);
+    try {
+      if (this.templateReaders.get() != 0) {
+        this.violations.incrementAndGet();
+      }
+      this.captureFilePathTemplate = pathTemplate.getString(0L);
+    } finally {
+      this.templateWriters.decrementAndGet();
+    }
+  }
+
+  @Override
+  public MemorySegment getCaptureFilePathTemplate()
+  {
+    this.templateReaders.incrementAndGet();
+    try {
+      if (this.templateWriters.get() != 0) {
+        this.violations.incrementAndGet();
+      }
+      return Arena.ofAuto().allocateFrom(this.captureFilePathTemplate);
+    } finally {
+      this.templateReaders.decrementAndGet();
+    }
+  }
+
+  @Override
+  public void setCaptureTitle(
+    final MemorySegment title)
+  {
+    this.captureTitles.add(title.getString(0L));
+  }
+
+  @Override
+  public void setCaptureFileComments(
+    final MemorySegment filePath,
+    final MemorySegment comments)
+  {
+    comments.getString(0L);
+  }
+
+  @Override
+  public void startFrameCapture(
+    final MemorySegment device,
+    final MemorySegment window)
+  {
+    this.frameCapturing.set(1);
+  }
+
+  @Override
+  public int endFrameCapture(
+    final MemorySegment device,
+    final MemorySegment window)
+  {
+    if (this.frameCapturing.getAndSet(0) == 0) {
+      return 0;
+    }
+    this.captures.incrementAndGet();
+    return 1;
+  }
+
+  @Override
+  public int discardFrameCapture(
+    final MemorySegment device,
+    final MemorySegment window)
+  {
+    return this.frameCapturing.getAndSet(0);
+  }
+
+  public long violations()
+  {
+    return this.violations.get();
+  }
+
+  public int captureTitleCount()
+  {
+    return this.captureTitles.size();
+  }
+}
@@ -0,0 +1,421 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.tests;
+
+import com.io7m.renderdoc_jffm.core.RenderDocFunctionsType;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A fake implementation of the RenderDoc functions.
+ */
+
+public final class RenderDocFakeFunctions
+  implements RenderDocFunctionsType
+{
+  private static final int OPTION_COUNT = 32;
+
+  private final int[] optionsU32;
+  private final float[] optionsF32;
+  private int optionRejected;
+  private volatile int captures;
+  private boolean capturesDeferred;
+  private int capturesPending;
+  private int frameCapturing;
+  private int endFrameCaptureResult;
+  private long frameCaptureStarts;
+  private long multiFrameCaptureCalls;
+  private long getCaptureCalls;
+  private String capturePathPrefix;
+  private long frameCaptureEnds;
+  private long frameCaptureDiscards;
+  private MemorySegment frameCaptureDevice;
+  private MemorySegment frameCaptureWindow;
+  private String captureFilePathTemplate;
+  private String captureTitle;
+  private final List<String> captureTitles;
+  private String captureFileCommentsPath;
+  private String captureFileComments;
+  private long stringAddressLowest;
+  private long stringAddressHighest;
+  private long stringCalls;
+  private long optionSetCalls;
+  private long optionGetCalls;
+
+  public RenderDocFakeFunctions()
+  {
+    this.optionsU32 = new int[OPTION_COUNT];
+    this.optionsF32 = new float[OPTION_COUNT];
+    this.optionRejected = -1;
+    this.endFrameCaptureResult = 1;
+    this.frameCaptureDevice = MemorySegment.NULL;
+    this.frameCaptureWindow = MemorySegment.NULL;
+    this.captureFilePathTemplate = "";
+    this.captureTitle = "";
+    this.captureTitles = new ArrayList<>();
+    this.capturePathPrefix = "/tmp/renderdoc_jffm/capture_";
+    this.captureFileComments = "";
+    this.stringAddressLowest = Long.MAX_VALUE;
+    this.stringAddressHighest = Long.MIN_VALUE;
+  }
+
+  private String string(
+    final MemorySegment segment)
+  {
+    ++this.stringCalls;
+    final var text = segment.getString(0L);
+    this.stringAddressLowest =
+      Math.min(this.stringAddressLowest, segment.address());
+    this.stringAddressHighest =
+      Math.max(this.stringAddressHighest, segment.address() + text.length());
+    return text;
+  }
+
+  @Override
+  public void triggerCapture()
+  {
+    if (this.capturesDeferred) {
+      ++this.capturesPending;
+    } else {
+      ++this.captures;
+    }
+  }
+
+  @Override
+  public void triggerMultiFrameCapture(
+    final int frames)
+  {
+    ++this.multiFrameCaptureCalls;
+    if (this.capturesDeferred) {
+      this.capturesPending += frames;
+    } else {
+      this.captures += frames;
+    }
+  }
+
+  @Override
+  public int getNumCaptures()
+  {
+    return this.captures;
+  }
+
+  @Override
+  public int getCapture(
+    final int index,
+    final MemorySegment filename,
+    final MemorySegment pathLength,
+    final MemorySegment timestamp)
+  {
+    ++this.getCaptureCalls;
+    if (index < 0 || index >= this.captures) {
+      return 0;
+    }
+
+    final var name = this.capturePathPrefix + index + ".rdc";
+    final var bytes = name.getBytes(StandardCharsets.UTF_8);
+    if (!MemorySegment.NULL.equals(pathLength)) {
+      pathLength.set(ValueLayout.JAVA_INT, 0L, bytes.length + 1);
+    }
+    if (!MemorySegment.NULL.equals(filename)) {
+      filename.setString(0L, name);
+    }
+    if (!MemorySegment.NULL.equals(timestamp)) {
+      timestamp.set(ValueLayout.JAVA_LONG, 0L, 1_700_000_000L + index);
+    }
+    return 1;
+  }
+
+  @Override
+  public int isFrameCapturing()
+  {
+    return this.frameCapturing;
+  }
+
+  @Override
+  public int setCaptureOptionU32(
+    final int option,
+    final int value)
+  {
+    ++this.optionSetCalls;
+    if (option < 0 || option >= OPTION_COUNT || option == this.optionRejected) {
+      return 0;
+    }
+    this.optionsU32[option] = value;
+    this.optionsF32[option] = (float) value;
+    return 1;
+  }
+
+  @Override
+  public int setCaptureOptionF32(
+    final int option,
+    final float value)
+  {
+    ++this.optionSetCalls;
+    if (option < 0 || option >= OPTION_COUNT || option == this.optionRejected) {
+      return 0;
+    }
+    this.optionsU32[option] = (int) value;
+    this.optionsF32[option] = value;
+    return 1;
+  }
+
+  @Override
+  public int getCaptureOptionU32(
+    final int option)
+  {
+    ++this.optionGetCalls;
+    if (option < 0 || option >= OPTION_COUNT) {
+      return 0xffffffff;
+    }
+    return this.optionsU32[option];
+  }
+
+  @Override
+  public float getCaptureOptionF32(
+    final int option)
+  {
+    ++this.optionGetCalls;
+    if (option < 0 || option >= OPTION_COUNT) {
+      return -Float.MAX_VALUE;
+    }
+    return this.optionsF32[option];
+  }
+
+  @Override
+  public void setCaptureFilePathTemplate(
+    final MemorySegment pathTemplate)
+  {
+    this.captureFilePathTemplate = this.string(pathTemplate);
+  }
+
+  @Override
+  public MemorySegment getCaptureFilePathTemplate()
+  {
+    return Arena.ofAuto().allocateFrom(this.captureFilePathTemplate);
+  }
+
+  @Override
+  public void setCaptureTitle(
+    final MemorySegment title)
+  {
+    this.captureTitle = this.string(title);
+    this.captureTitles.add(this.captureTitle);
+  }
+
+  @Override
+  public void setCaptureFileComments(
+    final MemorySegment filePath,
+    final MemorySegment comments)
+  {
+    if (MemorySegment.NULL.equals(filePath)) {
+      this.captureFileCommentsPath = null;
+    } else {
+      this.captureFileCommentsPath = this.string(filePath);
+    }
+    this.captureFileComments = this.string(comments);
+  }
+
+  @Override
+  public void startFrameCapture(
+    final MemorySegment device,
+    final MemorySegment window)
+  {
+    ++this.frameCaptureStarts;
+    this.frameCapturing = 1;
+    this.frameCaptureDevice = device;
+    this.frameCaptureWindow = window;
+  }
+
+  @Override
+  public int endFrameCapture(
+    final MemorySegment device,
+    final MemorySegment window)
+  {
+    ++this.frameCaptureEnds;
+    if (this.frameCapturing == 0) {
+      return 0;
+    }
+    this.frameCapturing = 0;
+    if (this.endFrameCaptureResult == 1) {
+      ++this.captures;
+    }
+    return this.endFrameCaptureResult;
+  }
+
+  @Override
+  public int discardFrameCapture(
+    final MemorySegment device,
+    final MemorySegment window)
+  {
+    ++this.frameCaptureDiscards;
+    final var wasCapturing = this.frameCapturing;
+    this.frameCapturing = 0;
+    return wasCapturing;
+  }
+
+  public void setEndFrameCaptureResult(
+    final int result)
+  {
+    this.endFrameCaptureResult = result;
+  }
+
+  /**
+   * Make triggered captures appear only when
+   * {@link #completePendingCaptures()} is called, as a real capture only
+   * appears after the following frame.
+   *
+   * @param deferred {@code true} if captures are deferred
+   */
+
+  public void setCapturesDeferred(
+    final boolean deferred)
+  {
+    this.capturesDeferred = deferred;
+  }
+
+  public void completePendingCaptures()
+  {
+    this.captures += this.capturesPending;
+    this.capturesPending = 0;
+  }
+
+  /**
+   * Make one pending capture appear, as each frame of a multi-frame capture
+   * appears after the frame that follows it.
+   */
+
+  public void completePendingCapture()
+  {
+    if (this.capturesPending > 0) {
+      --this.capturesPending;
+      ++this.captures;
+    }
+  }
+
+  /**
+   * Make a capture appear immediately, as if made by another source.
+   */
+
+  public void addCapture()
+  {
+    ++this.captures;
+  }
+
+  public void setCapturePathPrefix(
+    final String prefix)
+  {
+    this.capturePathPrefix = prefix;
+  }
+
+  public long getCaptureCalls()
+  {
+    return this.getCaptureCalls;
+  }
+
+  public long multiFrameCaptureCalls()
+  {
+    return this.multiFrameCaptureCalls;
+  }
+
+  public long frameCaptureStarts()
+  {
+    return this.frameCaptureStarts;
+  }
+
+  public long frameCaptureEnds()
+  {
+    return this.frameCaptureEnds;
+  }
+
+  public long frameCaptureDiscards()
+  {
+    return this.frameCaptureDiscards;
+  }
+
+  public MemorySegment frameCaptureDevice()
+  {
+    return this.frameCaptureDevice;
+  }
+
+  public MemorySegment frameCaptureWindow()
+  {
+    return this.frameCaptureWindow;
+  }
+
+  public void setOptionRejected(
+    final int option)
+  {
+    this.optionRejected = option;
+  }
+
+  public int optionU32(
+    final int option)
+  {
+    return this.optionsU32[option];
+  }
+
+  public String captureTitle()
+  {
+    return this.captureTitle;
+  }
+
+  public List<String> captureTitles()
+  {
+    return this.captureTitles;
+  }
+
+  public String captureFileCommentsPath()
+  {
+    return this.captureFileCommentsPath;
+  }
+
+  public String captureFileComments()
+  {
+    return this.captureFileComments;
+  }
+
+  public long stringAddressLowest()
+  {
+    return this.stringAddressLowest;
+  }
+
+  public long stringAddressHighest()
+  {
+    return this.stringAddressHighest;
+  }
+
+  public long stringCalls()
+  {
+    return this.stringCalls;
+  }
+
+  public long optionSetCalls()
+  {
+    return this.optionSetCalls;
+  }
+
+  public long optionGetCalls()
+  {
+    return this.optionGetCalls;
+  }
+}
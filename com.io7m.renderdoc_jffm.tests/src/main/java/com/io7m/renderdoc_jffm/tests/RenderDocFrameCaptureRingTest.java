@@ -0,0 +1,318 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.tests;
+
+import com.io7m.renderdoc_jffm.core.RenderDoc;
+import com.io7m.renderdoc_jffm.core.RenderDocConfiguration;
+import com.io7m.renderdoc_jffm.core.RenderDocFrameCaptureMethod;
+import com.io7m.renderdoc_jffm.core.RenderDocFrameCaptureRing;
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class RenderDocFrameCaptureRingTest
+{
+  /**
+   * Requested frames are captured at their frame boundary.
+   */
+
+  @Test
+  public void testTriggerCapture()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var ring =
+        RenderDocFrameCaptureRing.create(
+          doc,
+          RenderDocFrameCaptureMethod.TRIGGER_CAPTURE,
+          8
+        );
+
+      assertTrue(ring.requestCaptureAtFrame(2L));
+      assertTrue(ring.requestCaptureAtFrame(2L));
+      assertFalse(ring.requestCaptureAtFrame(8L));
+      assertFalse(ring.requestCaptureAtFrame(10L));
+
+      ring.onFrameBoundary(0L);
+      ring.onFrameBoundary(1L);
+      assertEquals(0L, doc.numberOfCaptures());
+      ring.onFrameBoundary(2L);
+      assertEquals(1L, doc.numberOfCaptures());
+      ring.onFrameBoundary(3L);
+      assertEquals(1L, doc.numberOfCaptures());
+
+      assertFalse(ring.requestCaptureAtFrame(3L));
+      assertTrue(ring.requestCaptureAtFrame(11L));
+      assertFalse(ring.requestCaptureAtFrame(12L));
+      assertTrue(ring.requestCaptureAtFrame(5L));
+      assertTrue(ring.requestCaptureAtFrame(6L));
+
+      ring.onFrameBoundary(7L);
+      assertEquals(2L, doc.numberOfCaptures());
+      ring.onFrameBoundary(100L);
+      assertEquals(3L, doc.numberOfCaptures());
+      assertEquals(3L, ring.capturesIssued());
+
+      assertThrows(IllegalArgumentException.class, () -> {
+        ring.onFrameBoundary(100L);
+      });
+      assertThrows(IllegalArgumentException.class, () -> {
+        ring.requestCaptureAtFrame(-1L);
+      });
+    }
+  }
+
+  /**
+   * Frame captures span exactly the requested frame.
+   */
+
+  @Test
+  public void testFrameCapture()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var ring =
+        RenderDocFrameCaptureRing.create(
+          doc,
+          RenderDocFrameCaptureMethod.FRAME_CAPTURE,
+          4
+        );
+
+      assertTrue(ring.requestCaptureAtFrame(1L));
+      ring.onFrameBoundary(0L);
+      assertFalse(doc.isFrameCapturing());
+      ring.onFrameBoundary(1L);
+      assertTrue(doc.isFrameCapturing());
+      ring.onFrameBoundary(2L);
+      assertFalse(doc.isFrameCapturing());
+      assertEquals(1L, functions.frameCaptureStarts());
+      assertEquals(1L, functions.frameCaptureEnds());
+    }
+  }
+
+  /**
+   * Requesting and consuming frames does not allocate.
+   */
+
+  @Test
+  public void testDoesNotAllocate()
+    throws IOException
+  {
+    final var threads =
+      (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    final var functions = new RenderDocFakeFunctions();
+    final var frames = 1_000_000L;
+
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var ring =
+        RenderDocFrameCaptureRing.create(
+          doc,
+          RenderDocFrameCaptureMethod.FRAME_CAPTURE,
+          16
+        );
+
+      final var threadId = Thread.currentThread().threadId();
+      final var before = threads.getThreadAllocatedBytes(threadId);
+      for (long frame = 0L; frame < frames; ++frame) {
+        ring.requestCaptureAtFrame(frame + 4L);
+        ring.onFrameBoundary(frame);
+      }
+      final var after = threads.getThreadAllocatedBytes(threadId);
+
+      assertEquals(frames - 4L, ring.capturesIssued());
+      assertTrue(
+        after - before < frames / 16L,
+        "Allocated %d bytes".formatted(Long.valueOf(after - before))
+      );
+    }
+  }
+
+  /**
+   * The capacity must be a power of two.
+   */
+
+  @Test
+  public void testCapacityInvalid()
+  {
+    final var doc = RenderDoc.noop();
+    assertThrows(IllegalArgumentException.class, () -> {
+      RenderDocFrameCaptureRing.create(
+        doc,
+        RenderDocFrameCaptureMethod.TRIGGER_CAPTURE,
+        6
+      );
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      RenderDocFrameCaptureRing.create(
+        doc,
+        RenderDocFrameCaptureMethod.TRIGGER_CAPTURE,
+        0
+      );
+    });
+  }
+
+  /**
+   * Every request accepted by the ring is captured, when requests race with
+   * the render thread.
+   */
+
+  @Test
+  public void testConcurrentRequests()
+    throws Exception
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var ring =
+        RenderDocFrameCaptureRing.create(
+          doc,
+          RenderDocFrameCaptureMethod.TRIGGER_CAPTURE,
+          16
+        );
+
+      final var threadCount = 4;
+      final var frame = new AtomicLong(0L);
+      final var accepted = new AtomicLong(0L);
+      final var done = new AtomicBoolean(false);
+      final var threads = new ArrayList<Thread>();
+
+      /*
+       * Each thread requests only frames congruent to its own index, so that
+       * every accepted request is for a distinct frame.
+       */
+
+      for (int index = 0; index < threadCount; ++index) {
+        final var residue = index;
+        threads.add(Thread.ofPlatform().start(() -> {
+          var previous = -1L;
+          while (!done.get()) {
+            final var base = frame.get() + 1L;
+            final var target = base + ((residue - base) & 3L);
+            if (target != previous && ring.requestCaptureAtFrame(target)) {
+              accepted.incrementAndGet();
+              previous = target;
+            }
+          }
+        }));
+      }
+
+      for (long current = 0L; current < 100_000L; ++current) {
+        ring.onFrameBoundary(current);
+        frame.set(current);
+      }
+
+      done.set(true);
+      for (final var thread : threads) {
+        thread.join();
+      }
+      for (long current = 100_000L; current < 100_100L; ++current) {
+        ring.onFrameBoundary(current);
+      }
+
+      assertTrue(accepted.get() > 0L);
+      assertEquals(accepted.get(), ring.capturesIssued());
+    }
+  }
+
+  /**
+   * When several threads request the same frames while racing with the
+   * render thread, every frame for which any request was accepted is
+   * captured.
+   */
+
+  @Test
+  public void testConcurrentDuplicateRequests()
+    throws Exception
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var ring =
+        RenderDocFrameCaptureRing.create(
+          doc,
+          RenderDocFrameCaptureMethod.TRIGGER_CAPTURE,
+          16
+        );
+
+      final var frame = new AtomicLong(0L);
+      final var done = new AtomicBoolean(false);
+      final Set<Long> accepted = ConcurrentHashMap.newKeySet();
+      final var captured = new HashSet<Long>();
+      final var threads = new ArrayList<Thread>();
+
+      for (int index = 0; index < 4; ++index) {
+        threads.add(Thread.ofPlatform().start(() -> {
+          while (!done.get()) {
+            final var target = frame.get() + 1L;
+            if (ring.requestCaptureAtFrame(target)) {
+              accepted.add(Long.valueOf(target));
+            }
+          }
+        }));
+      }
+
+      var issued = 0L;
+      for (long current = 0L; current < 100_000L; ++current) {
+        ring.onFrameBoundary(current);
+        frame.set(current);
+        if (ring.capturesIssued() != issued) {
+          issued = ring.capturesIssued();
+          captured.add(Long.valueOf(current));
+        }
+      }
+
+      done.set(true);
+      for (final var thread : threads) {
+        thread.join();
+      }
+      for (long current = 100_000L; current < 100_100L; ++current) {
+        ring.onFrameBoundary(current);
+        if (ring.capturesIssued() != issued) {
+          issued = ring.capturesIssued();
+          captured.add(Long.valueOf(current));
+        }
+      }
+
+      assertTrue(accepted.size() > 0);
+      for (final var target : accepted) {
+        assertTrue(
+          captured.contains(target),
+          "Accepted frame %s must be captured".formatted(target)
+        );
+      }
+    }
+  }
+}
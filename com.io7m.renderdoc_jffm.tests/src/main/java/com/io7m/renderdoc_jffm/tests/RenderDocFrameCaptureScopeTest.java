@@ -0,0 +1,167 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.tests;
+
+import com.io7m.renderdoc_jffm.core.RenderDoc;
+import com.io7m.renderdoc_jffm.core.RenderDocConfiguration;
+import com.io7m.renderdoc_jffm.core.RenderDocDevicePointer;
+import com.io7m.renderdoc_jffm.core.RenderDocWindowHandle;
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class RenderDocFrameCaptureScopeTest
+{
+  /**
+   * Closing a scope ends the capture, and the scope object is reused.
+   */
+
+  @Test
+  public void testScopeEndsOnClose()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    final var device =
+      new RenderDocDevicePointer(MemorySegment.ofAddress(0x1000L));
+    final var window =
+      RenderDocWindowHandle.ofValue(0x2000L);
+
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var first = doc.startFrameCapture(device, window);
+      try (first) {
+        assertTrue(first.isOpen());
+        assertTrue(doc.isFrameCapturing());
+        assertEquals(0x1000L, functions.frameCaptureDevice().address());
+        assertEquals(0x2000L, functions.frameCaptureWindow().address());
+      }
+      assertFalse(first.isOpen());
+      assertTrue(first.succeeded());
+      assertEquals(1L, doc.numberOfCaptures());
+
+      final var second =
+        doc.startFrameCapture(RenderDocDevicePointer.ANY, RenderDocWindowHandle.ANY);
+      assertSame(first, second);
+      assertTrue(second.end());
+      second.close();
+      assertEquals(2L, functions.frameCaptureEnds());
+      assertEquals(2L, doc.numberOfCaptures());
+    }
+  }
+
+  /**
+   * Failed and discarded captures are reported.
+   */
+
+  @Test
+  public void testScopeFailureAndDiscard()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    final var any = RenderDocDevicePointer.ANY;
+    final var anyWindow = RenderDocWindowHandle.ANY;
+
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      functions.setEndFrameCaptureResult(0);
+      try (final var scope = doc.startFrameCapture(any, anyWindow)) {
+        assertFalse(scope.end());
+        assertFalse(scope.succeeded());
+      }
+
+      functions.setEndFrameCaptureResult(1);
+      try (final var scope = doc.startFrameCapture(any, anyWindow)) {
+        assertTrue(scope.discard());
+        assertFalse(scope.succeeded());
+      }
+      assertEquals(1L, functions.frameCaptureEnds());
+      assertEquals(1L, functions.frameCaptureDiscards());
+      assertEquals(0L, doc.numberOfCaptures());
+    }
+  }
+
+  /**
+   * Scopes cannot be nested.
+   */
+
+  @Test
+  public void testScopeNotNested()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    final var any = RenderDocDevicePointer.ANY;
+    final var anyWindow = RenderDocWindowHandle.ANY;
+
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      try (final var scope = doc.startFrameCapture(any, anyWindow)) {
+        assertThrows(IllegalStateException.class, () -> {
+          doc.startFrameCapture(any, anyWindow);
+        });
+        assertTrue(scope.isOpen());
+      }
+      assertEquals(1L, functions.frameCaptureStarts());
+    }
+  }
+
+  /**
+   * Opening and closing a scope every frame does not allocate.
+   */
+
+  @Test
+  public void testScopeDoesNotAllocate()
+    throws IOException
+  {
+    final var threads =
+      (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    final var functions = new RenderDocFakeFunctions();
+    final var any = RenderDocDevicePointer.ANY;
+    final var anyWindow = RenderDocWindowHandle.ANY;
+    final var frames = 1_000_000;
+
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var threadId = Thread.currentThread().threadId();
+      final var before = threads.getThreadAllocatedBytes(threadId);
+      var succeeded = 0;
+      for (int frame = 0; frame < frames; ++frame) {
+        try (final var scope = doc.startFrameCapture(any, anyWindow)) {
+          if (scope.end()) {
+            ++succeeded;
+          }
+        }
+      }
+      final var after = threads.getThreadAllocatedBytes(threadId);
+
+      assertEquals(frames, succeeded);
+      assertTrue(
+        after - before < frames / 16,
+        "Allocated %d bytes".formatted(Long.valueOf(after - before))
+      );
+    }
+  }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.tests;
+
+import com.io7m.renderdoc_jffm.core.RenderDoc;
+import com.io7m.renderdoc_jffm.core.RenderDocConfiguration;
+import com.io7m.renderdoc_jffm.core.RenderDocFrameTimeHistogram;
+import com.io7m.renderdoc_jffm.core.RenderDocFrameTimeTrigger;
+import com.io7m.renderdoc_jffm.core.RenderDocFrameTimeTriggerConfiguration;
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class RenderDocFrameTimeTriggerTest
+{
+  private static final long MILLISECOND = 1_000_000L;
+
+  /**
+   * Histogram quantiles are within the bucket precision of the true values.
+   */
+
+  @Test
+  public void testHistogramQuantiles()
+  {
+    final var histogram = RenderDocFrameTimeHistogram.create(2, 1000);
+    assertEquals(0L, histogram.quantile(0.5));
+
+    for (long value = 1L; value <= 1000L; ++value) {
+      histogram.record(value * MILLISECOND);
+    }
+
+    assertEquals(1000L, histogram.count());
+    final var median = histogram.quantile(0.5);
+    final var p99 = histogram.quantile(0.99);
+    assertTrue(median >= 500L * MILLISECOND);
+    assertTrue(median <= 563L * MILLISECOND);
+    assertTrue(p99 >= 990L * MILLISECOND);
+    assertTrue(p99 <= 1114L * MILLISECOND);
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      histogram.quantile(1.5);
+    });
+  }
+
+  /**
+   * Old epochs are discarded from the window.
+   */
+
+  @Test
+  public void testHistogramRolls()
+  {
+    final var histogram = RenderDocFrameTimeHistogram.create(2, 10);
+    for (int index = 0; index < 20; ++index) {
+      histogram.record(1000L * MILLISECOND);
+    }
+    for (int index = 0; index < 20; ++index) {
+      histogram.record(MILLISECOND);
+    }
+    assertEquals(20L, histogram.count());
+    assertTrue(histogram.quantile(1.0) < 2L * MILLISECOND);
+  }
+
+  /**
+   * A slow frame after the warmup triggers a capture, and further slow
+   * frames are ignored during the cooldown.
+   */
+
+  @Test
+  public void testTriggers()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    final var random = new Random(0x5eedL);
+
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var trigger =
+        RenderDocFrameTimeTrigger.create(
+          doc,
+          new RenderDocFrameTimeTriggerConfiguration(0.99, 2.0, 400, 100, 50)
+        );
+
+      assertFalse(trigger.recordFrameTime(500L * MILLISECOND));
+      for (int frame = 1; frame < 100; ++frame) {
+        assertFalse(trigger.recordFrameTime(normalFrame(random)));
+      }
+      for (int frame = 0; frame < 400; ++frame) {
+        assertFalse(trigger.recordFrameTime(normalFrame(random)));
+      }
+
+      assertTrue(trigger.thresholdNanos() < 40L * MILLISECOND);
+      assertTrue(trigger.recordFrameTime(50L * MILLISECOND));
+      assertEquals(1L, doc.numberOfCaptures());
+
+      for (int frame = 0; frame < 50; ++frame) {
+        assertFalse(trigger.recordFrameTime(50L * MILLISECOND));
+      }
+      assertTrue(trigger.recordFrameTime(200L * MILLISECOND));
+      assertEquals(2L, trigger.capturesTriggered());
+      assertEquals(552L, trigger.framesRecorded());
+    }
+  }
+
+  /**
+   * Frame times can be derived from frame boundary times.
+   */
+
+  @Test
+  public void testFrameBoundaries()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var trigger =
+        RenderDocFrameTimeTrigger.create(
+          doc,
+          new RenderDocFrameTimeTriggerConfiguration(0.99, 2.0, 100, 10, 0)
+        );
+
+      var time = 0L;
+      for (int frame = 0; frame <= 100; ++frame) {
+        trigger.onFrameBoundary(time);
+        time = time + 16L * MILLISECOND;
+      }
+      assertEquals(100L, trigger.framesRecorded());
+      assertEquals(0L, doc.numberOfCaptures());
+
+      trigger.onFrameBoundary(time + 100L * MILLISECOND);
+      assertEquals(1L, doc.numberOfCaptures());
+    }
+  }
+
+  /**
+   * With no warmup, the first frame is not compared against an empty
+   * histogram, and so does not trigger a capture.
+   */
+
+  @Test
+  public void testNoWarmup()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var trigger =
+        RenderDocFrameTimeTrigger.create(
+          doc,
+          new RenderDocFrameTimeTriggerConfiguration(0.99, 2.0, 100, 0, 0)
+        );
+
+      assertFalse(trigger.recordFrameTime(100L * MILLISECOND));
+      for (int frame = 0; frame < 10; ++frame) {
+        assertFalse(trigger.recordFrameTime(100L * MILLISECOND));
+      }
+      assertEquals(0L, doc.numberOfCaptures());
+
+      assertTrue(trigger.recordFrameTime(1000L * MILLISECOND));
+      assertEquals(1L, doc.numberOfCaptures());
+    }
+  }
+
+  /**
+   * Recording frame times does not allocate.
+   */
+
+  @Test
+  public void testDoesNotAllocate()
+    throws IOException
+  {
+    final var threads =
+      (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    final var functions = new RenderDocFakeFunctions();
+    final var frames = 1_000_000;
+
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var trigger =
+        RenderDocFrameTimeTrigger.create(
+          doc,
+          RenderDocFrameTimeTriggerConfiguration.defaults()
+        );
+
+      final var threadId = Thread.currentThread().threadId();
+      final var before = threads.getThreadAllocatedBytes(threadId);
+      for (int frame = 0; frame < frames; ++frame) {
+        trigger.recordFrameTime((16L + (frame & 3)) * MILLISECOND);
+      }
+      final var after = threads.getThreadAllocatedBytes(threadId);
+
+      assertTrue(
+        after - before < frames / 16,
+        "Allocated %d bytes".formatted(Long.valueOf(after - before))
+      );
+    }
+  }
+
+  private static long normalFrame(
+    final Random random)
+  {
+    return 16L * MILLISECOND + random.nextLong(2L * MILLISECOND);
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.tests;
+
+import com.io7m.renderdoc_jffm.core.RenderDoc;
+import com.io7m.renderdoc_jffm.core.RenderDocCaptureCoalescer;
+import com.io7m.renderdoc_jffm.core.RenderDocConfiguration;
+import com.io7m.renderdoc_jffm.core.RenderDocGcPauseTrigger;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class RenderDocGcPauseTriggerTest
+{
+  private static final long MILLISECOND = 1_000_000L;
+
+  /**
+   * A garbage collection with a zero threshold requests a capture of the
+   * next frame, commented with the pause details.
+   */
+
+  @Test
+  public void testPauseRequestsCapture()
+    throws Exception
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var coalescer =
+        RenderDocCaptureCoalescer.create(doc, Duration.ZERO);
+
+      try (final var trigger =
+             RenderDocGcPauseTrigger.create(coalescer, Duration.ZERO)) {
+        coalescer.onFrameBoundary(0L);
+
+        final var deadline = System.nanoTime() + 10_000L * MILLISECOND;
+        while (trigger.capturesRequested() == 0L) {
+          assertTrue(System.nanoTime() < deadline, "GC was not observed");
+          System.gc();
+          Thread.sleep(10L);
+        }
+
+        assertTrue(trigger.pausesObserved() >= 1L);
+        coalescer.onFrameBoundary(MILLISECOND);
+        assertEquals(1L, doc.numberOfCaptures());
+        coalescer.onFrameBoundary(2L * MILLISECOND);
+        coalescer.onFrameBoundary(3L * MILLISECOND);
+        assertTrue(
+          functions.captureFileComments()
+            .startsWith("Capture requested by:\n- GC pause: ")
+        );
+      }
+    }
+  }
+
+  /**
+   * Pauses shorter than the threshold are observed but request nothing.
+   */
+
+  @Test
+  public void testPauseBelowThreshold()
+    throws Exception
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var coalescer =
+        RenderDocCaptureCoalescer.create(doc, Duration.ZERO);
+
+      try (final var trigger =
+             RenderDocGcPauseTrigger.create(coalescer, Duration.ofDays(1L))) {
+        final var deadline = System.nanoTime() + 10_000L * MILLISECOND;
+        while (trigger.pausesObserved() == 0L) {
+          assertTrue(System.nanoTime() < deadline, "GC was not observed");
+          System.gc();
+          Thread.sleep(10L);
+        }
+
+        coalescer.onFrameBoundary(0L);
+        coalescer.onFrameBoundary(MILLISECOND);
+        assertEquals(0L, trigger.capturesRequested());
+        assertEquals(0L, doc.numberOfCaptures());
+      }
+    }
+  }
+}
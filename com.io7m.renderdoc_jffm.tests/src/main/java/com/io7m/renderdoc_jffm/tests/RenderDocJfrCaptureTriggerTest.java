@@ -0,0 +1,199 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.tests;
+
+import com.io7m.renderdoc_jffm.core.RenderDoc;
+import com.io7m.renderdoc_jffm.core.RenderDocCaptureCoalescer;
+import com.io7m.renderdoc_jffm.core.RenderDocConfiguration;
+import com.io7m.renderdoc_jffm.core.RenderDocJfrCaptureTrigger;
+import com.io7m.renderdoc_jffm.core.RenderDocJfrCaptureTriggerConfiguration;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Name;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class RenderDocJfrCaptureTriggerTest
+{
+  private static final long MILLISECOND = 1_000_000L;
+
+  @Name("com.io7m.renderdoc_jffm.tests.Stall")
+  static final class StallEvent extends Event
+  {
+    int size;
+
+    StallEvent()
+    {
+
+    }
+  }
+
+  @Name("com.io7m.renderdoc_jffm.tests.Periodic")
+  static final class PeriodicEvent extends Event
+  {
+    PeriodicEvent()
+    {
+
+    }
+  }
+
+  private static void commit(
+    final int size)
+  {
+    final var event = new StallEvent();
+    event.size = size;
+    event.commit();
+  }
+
+  /**
+   * Matching events request a single capture per cooldown period,
+   * commented with the event details.
+   */
+
+  @Test
+  public void testMatchingEventRequestsCapture()
+    throws Exception
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var coalescer =
+        RenderDocCaptureCoalescer.create(doc, Duration.ZERO);
+      final var configuration =
+        RenderDocJfrCaptureTriggerConfiguration.of(
+            "com.io7m.renderdoc_jffm.tests.Stall")
+          .withCooldown(Duration.ofDays(1L));
+
+      try (final var trigger =
+             RenderDocJfrCaptureTrigger.create(
+               coalescer,
+               configuration,
+               event -> event.getInt("size") > 10)) {
+
+        coalescer.onFrameBoundary(0L);
+
+        final var deadline = System.nanoTime() + 30_000L * MILLISECOND;
+        while (trigger.capturesRequested() == 0L) {
+          assertTrue(System.nanoTime() < deadline, "Event was not observed");
+          commit(5);
+          commit(20);
+          Thread.sleep(10L);
+        }
+
+        commit(30);
+        final var matched = trigger.eventsMatched();
+        while (trigger.eventsMatched() == matched) {
+          assertTrue(System.nanoTime() < deadline, "Event was not observed");
+          Thread.sleep(10L);
+        }
+
+        assertEquals(1L, trigger.capturesRequested());
+        assertTrue(trigger.eventsObserved() > trigger.eventsMatched());
+
+        coalescer.onFrameBoundary(MILLISECOND);
+        assertEquals(1L, doc.numberOfCaptures());
+        coalescer.onFrameBoundary(2L * MILLISECOND);
+        coalescer.onFrameBoundary(3L * MILLISECOND);
+        assertTrue(
+          functions.captureFileComments()
+            .startsWith(
+              "Capture requested by:\n"
+              + "- JFR event com.io7m.renderdoc_jffm.tests.Stall at ")
+        );
+      }
+    }
+  }
+
+  /**
+   * Periodic events are emitted at the configured period. Without a
+   * period, JFR emits them only at chunk boundaries.
+   */
+
+  @Test
+  public void testPeriodicEventRequestsCapture()
+    throws Exception
+  {
+    final Runnable hook = () -> new PeriodicEvent().commit();
+    FlightRecorder.addPeriodicEvent(PeriodicEvent.class, hook);
+
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var coalescer =
+        RenderDocCaptureCoalescer.create(doc, Duration.ZERO);
+      final var configuration =
+        RenderDocJfrCaptureTriggerConfiguration.of(
+            "com.io7m.renderdoc_jffm.tests.Periodic")
+          .withPeriod(Duration.ofMillis(100L));
+
+      try (final var trigger =
+             RenderDocJfrCaptureTrigger.create(
+               coalescer,
+               configuration,
+               event -> true)) {
+
+        final var deadline = System.nanoTime() + 30_000L * MILLISECOND;
+        while (trigger.eventsObserved() < 10L) {
+          assertTrue(System.nanoTime() < deadline, "Events were not observed");
+          Thread.sleep(10L);
+        }
+        assertEquals(1L, trigger.capturesRequested());
+      }
+    } finally {
+      FlightRecorder.removePeriodicEvent(hook);
+    }
+  }
+
+  /**
+   * Non-positive periods are rejected.
+   */
+
+  @Test
+  public void testNonPositivePeriod()
+  {
+    final var configuration =
+      RenderDocJfrCaptureTriggerConfiguration.of("jdk.CPULoad");
+
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> configuration.withPeriod(Duration.ZERO)
+    );
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> configuration.withPeriod(Duration.ofMillis(-1L))
+    );
+  }
+
+  /**
+   * Blank event names are rejected.
+   */
+
+  @Test
+  public void testBlankEventName()
+  {
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> RenderDocJfrCaptureTriggerConfiguration.of(" ")
+    );
+  }
+}
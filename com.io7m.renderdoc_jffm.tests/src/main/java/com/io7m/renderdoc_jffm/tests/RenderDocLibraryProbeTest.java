@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.tests;
+
+import com.io7m.renderdoc_jffm.core.RenderDoc;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public final class RenderDocLibraryProbeTest
+{
+  private static final Path MAPS =
+    Path.of("/proc/self/maps");
+
+  /**
+   * Probing for RenderDoc does not throw whether or not RenderDoc is
+   * present, and returns the same result each time.
+   */
+
+  @Test
+  public void testInjectedStable()
+  {
+    final var first = RenderDoc.isInjected();
+    for (int index = 0; index < 100; ++index) {
+      assertEquals(first, RenderDoc.isInjected());
+    }
+  }
+
+  /**
+   * Probing for RenderDoc does not itself load the library: if the probe
+   * reports that the library is absent, the library is still not mapped
+   * into the process afterwards.
+   */
+
+  @Test
+  public void testProbeDoesNotLoad()
+    throws IOException
+  {
+    assumeTrue(Files.isReadable(MAPS), "/proc/self/maps is unavailable");
+
+    final var mappedBefore = isRenderDocMapped();
+    final var injected = RenderDoc.isInjected();
+    assertEquals(mappedBefore, injected);
+
+    if (!injected) {
+      assertFalse(isRenderDocMapped());
+    }
+  }
+
+  private static boolean isRenderDocMapped()
+    throws IOException
+  {
+    try (var lines = Files.lines(MAPS)) {
+      return lines.anyMatch(line -> line.contains("librenderdoc"));
+    }
+  }
+}
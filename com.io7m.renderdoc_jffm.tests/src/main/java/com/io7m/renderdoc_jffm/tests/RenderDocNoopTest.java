@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.tests;
+
+import com.io7m.renderdoc_jffm.core.RenderDoc;
+import com.io7m.renderdoc_jffm.core.RenderDocDevicePointer;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionKey;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.AllowVSync;
+import com.io7m.renderdoc_jffm.core.RenderDocWindowHandle;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public final class RenderDocNoopTest
+{
+  /**
+   * When RenderDoc is not injected, the no-op implementation is returned.
+   */
+
+  @Test
+  public void testOpenOrNoop()
+    throws IOException
+  {
+    if (RenderDoc.isInjected()) {
+      return;
+    }
+    assertEquals(
+      RenderDoc.noop().getClass(),
+      RenderDoc.openOrNoop().getClass()
+    );
+  }
+
+  /**
+   * The no-op implementation does nothing.
+   */
+
+  @Test
+  public void testNoop()
+    throws IOException
+  {
+    try (final var doc = RenderDoc.noop()) {
+      doc.triggerCapture();
+      doc.setCaptureTitle("x");
+      doc.setCaptureFilePathTemplate(Path.of("/tmp/x"));
+      doc.setOption(new AllowVSync(true));
+
+      assertEquals(0L, doc.numberOfCaptures());
+      assertFalse(doc.isFrameCapturing());
+      assertEquals(Optional.empty(), doc.captureFilePathTemplate());
+      assertFalse(doc.setOptionU32(RenderDocOptionKey.ALLOW_VSYNC, 1));
+      assertEquals(new AllowVSync(false), doc.option(AllowVSync.class));
+      assertFalse(doc.applyOptionProfile(doc.optionProfile()));
+    }
+  }
+
+  /**
+   * The no-op implementation is a singleton, and its frame capture scopes
+   * never open, so that overlapping scopes never fail.
+   */
+
+  @Test
+  public void testNoopFrameCapture()
+  {
+    final var doc = RenderDoc.noop();
+    assertSame(doc, RenderDoc.noop());
+
+    try (final var outer = doc.startFrameCapture(
+      RenderDocDevicePointer.ANY,
+      RenderDocWindowHandle.ANY)) {
+      try (final var inner = doc.startFrameCapture(
+        RenderDocDevicePointer.ANY,
+        RenderDocWindowHandle.ANY)) {
+        assertFalse(inner.isOpen());
+        assertFalse(inner.end());
+      }
+      assertFalse(outer.isOpen());
+      assertFalse(outer.discard());
+      assertFalse(outer.succeeded());
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.tests;
+
+import com.io7m.renderdoc_jffm.core.RenderDoc;
+import com.io7m.renderdoc_jffm.core.RenderDocConfiguration;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionProfile;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.APIValidation;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.AllowFullscreen;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.AllowVSync;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.CaptureAllCmdLists;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.CaptureCallstacks;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.CaptureCallstacksOnlyActions;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.DebugOutputMute;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.DelayForDebugger;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.HookIntoChildren;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.RefAllResources;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.SoftMemoryLimit;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.VerifyBufferAccess;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class RenderDocOptionProfileTest
+{
+  private static final RenderDocOptionProfile CHEAP =
+    RenderDocOptionProfile.of(List.of(
+      new AllowVSync(true),
+      new AllowFullscreen(true),
+      new APIValidation(false),
+      new CaptureCallstacks(false),
+      new CaptureCallstacksOnlyActions(false),
+      new DelayForDebugger(0),
+      new VerifyBufferAccess(false),
+      new HookIntoChildren(false),
+      new RefAllResources(false),
+      new CaptureAllCmdLists(false),
+      new DebugOutputMute(true),
+      new SoftMemoryLimit(0)
+    ));
+
+  private static final RenderDocOptionProfile FULL =
+    CHEAP.with(new CaptureCallstacks(true))
+      .with(new RefAllResources(true));
+
+  /**
+   * Applying a profile only sets the options that differ.
+   */
+
+  @Test
+  public void testApplyDiffs()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      assertTrue(doc.applyOptionProfile(CHEAP));
+      assertEquals(CHEAP, doc.optionProfile());
+
+      final var setCalls = functions.optionSetCalls();
+      assertTrue(doc.applyOptionProfile(FULL));
+      assertEquals(setCalls + 2L, functions.optionSetCalls());
+      assertEquals(FULL, doc.optionProfile());
+      assertEquals(
+        new RefAllResources(true),
+        doc.option(RefAllResources.class)
+      );
+
+      assertTrue(doc.applyOptionProfile(FULL));
+      assertEquals(setCalls + 2L, functions.optionSetCalls());
+
+      assertTrue(doc.applyOptionProfile(CHEAP));
+      assertEquals(setCalls + 4L, functions.optionSetCalls());
+      assertEquals(CHEAP, doc.optionProfile());
+    }
+  }
+
+  /**
+   * A rejected value leaves the options as they were.
+   */
+
+  @Test
+  public void testApplyRollsBack()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      assertTrue(doc.applyOptionProfile(CHEAP));
+
+      functions.setOptionRejected(8);
+      assertFalse(doc.applyOptionProfile(FULL));
+      assertEquals(CHEAP, doc.optionProfile());
+      assertEquals(0, functions.optionU32(3));
+    }
+  }
+
+  /**
+   * Profiles must contain every option exactly once.
+   */
+
+  @Test
+  public void testIncomplete()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      RenderDocOptionProfile.of(List.of(new AllowVSync(true)));
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      RenderDocOptionProfile.of(
+        List.of(new AllowVSync(true), new AllowVSync(false))
+      );
+    });
+    assertEquals(
+      new CaptureCallstacks(true),
+      FULL.option(CaptureCallstacks.class)
+    );
+    assertEquals(CHEAP, RenderDocOptionProfile.of(CHEAP.options()));
+  }
+}
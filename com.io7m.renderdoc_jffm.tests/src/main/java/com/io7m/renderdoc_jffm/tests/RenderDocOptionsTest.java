@@ -0,0 +1,262 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.tests;
+
+import com.io7m.renderdoc_jffm.core.RenderDoc;
+import com.io7m.renderdoc_jffm.core.RenderDocConfiguration;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionKey;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.APIValidation;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.AllowFullscreen;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.AllowVSync;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.CaptureAllCmdLists;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.CaptureCallstacks;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.CaptureCallstacksOnlyActions;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.DebugOutputMute;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.DelayForDebugger;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.HookIntoChildren;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.RefAllResources;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.SoftMemoryLimit;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionType.VerifyBufferAccess;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static com.io7m.renderdoc_jffm.core.RenderDocOptionKey.ALLOW_FULLSCREEN;
+import static com.io7m.renderdoc_jffm.core.RenderDocOptionKey.SOFT_MEMORY_LIMIT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class RenderDocOptionsTest
+{
+  /**
+   * Each option key maps to its native RENDERDOC_CaptureOption value.
+   */
+
+  @Test
+  public void testKeysMapToNativeValues()
+    throws IOException
+  {
+    final var expected = new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 10, 11, 13};
+    final var keys = RenderDocOptionKey.values();
+    assertEquals(expected.length, keys.length);
+
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      for (int index = 0; index < keys.length; ++index) {
+        assertTrue(doc.setOptionU32(keys[index], 100 + index));
+        assertEquals(100 + index, functions.optionU32(expected[index]));
+        assertEquals(100 + index, doc.optionU32(keys[index]));
+      }
+
+      assertTrue(doc.setOptionF32(SOFT_MEMORY_LIMIT, 23.0f));
+      assertEquals(23.0f, doc.optionF32(SOFT_MEMORY_LIMIT));
+    }
+  }
+
+  /**
+   * The record-based API is a layer over the primitive API.
+   */
+
+  @Test
+  public void testRecordsUsePrimitiveKeys()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      doc.setOption(new AllowFullscreen(true));
+      doc.setOption(new SoftMemoryLimit(512));
+
+      assertEquals(1, doc.optionU32(ALLOW_FULLSCREEN));
+      assertEquals(512, doc.optionU32(SOFT_MEMORY_LIMIT));
+      assertEquals(new SoftMemoryLimit(512), doc.option(SoftMemoryLimit.class));
+    }
+  }
+
+  private static List<RenderDocOptionType> samples(
+    final RenderDocOptionKey key)
+  {
+    return switch (key) {
+      case ALLOW_VSYNC -> List.of(
+        new AllowVSync(true), new AllowVSync(false));
+      case ALLOW_FULLSCREEN -> List.of(
+        new AllowFullscreen(true), new AllowFullscreen(false));
+      case API_VALIDATION -> List.of(
+        new APIValidation(true), new APIValidation(false));
+      case CAPTURE_CALLSTACKS -> List.of(
+        new CaptureCallstacks(true), new CaptureCallstacks(false));
+      case CAPTURE_CALLSTACKS_ONLY_ACTIONS -> List.of(
+        new CaptureCallstacksOnlyActions(true),
+        new CaptureCallstacksOnlyActions(false));
+      case DELAY_FOR_DEBUGGER -> List.of(
+        new DelayForDebugger(30), new DelayForDebugger(0));
+      case VERIFY_BUFFER_ACCESS -> List.of(
+        new VerifyBufferAccess(true), new VerifyBufferAccess(false));
+      case HOOK_INTO_CHILDREN -> List.of(
+        new HookIntoChildren(true), new HookIntoChildren(false));
+      case REF_ALL_RESOURCES -> List.of(
+        new RefAllResources(true), new RefAllResources(false));
+      case CAPTURE_ALL_CMD_LISTS -> List.of(
+        new CaptureAllCmdLists(true), new CaptureAllCmdLists(false));
+      case DEBUG_OUTPUT_MUTE -> List.of(
+        new DebugOutputMute(true), new DebugOutputMute(false));
+      case SOFT_MEMORY_LIMIT -> List.of(
+        new SoftMemoryLimit(4096), new SoftMemoryLimit(0));
+    };
+  }
+
+  /**
+   * Every option type round-trips through the fake backend, and reading
+   * an option yields a value of the requested class.
+   */
+
+  @Test
+  public void testRoundTripAllOptions()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      for (final var key : RenderDocOptionKey.values()) {
+        for (final var sample : samples(key)) {
+          assertEquals(key.optionClass(), sample.getClass());
+
+          doc.setOption(sample);
+          final var result = doc.option(key.optionClass());
+          assertInstanceOf(key.optionClass(), result);
+          assertEquals(sample, result);
+        }
+      }
+    }
+  }
+
+  /**
+   * Setting one option does not affect any other option.
+   */
+
+  @Test
+  public void testOptionsAreIndependent()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      for (final var key : RenderDocOptionKey.values()) {
+        doc.setOption(samples(key).get(1));
+      }
+
+      for (final var key : RenderDocOptionKey.values()) {
+        doc.setOption(samples(key).get(0));
+        for (final var other : RenderDocOptionKey.values()) {
+          final var expected =
+            other.ordinal() <= key.ordinal()
+              ? samples(other).get(0)
+              : samples(other).get(1);
+          assertEquals(expected, doc.option(other.optionClass()));
+        }
+      }
+    }
+  }
+
+  /**
+   * Classes that are not option records are rejected.
+   */
+
+  @Test
+  public void testUnrecognizedClass()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      assertThrows(IllegalArgumentException.class, () -> {
+        doc.option(RenderDocOptionType.class);
+      });
+    }
+  }
+
+  /**
+   * Reading options that have been cached does not call into the backend,
+   * and refreshing picks up changes made outside of the API.
+   */
+
+  @Test
+  public void testReadsAreCached()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      doc.setOption(new SoftMemoryLimit(128));
+      doc.optionProfile();
+
+      final var getCalls = functions.optionGetCalls();
+      for (int index = 0; index < 100_000; ++index) {
+        for (final var key : RenderDocOptionKey.values()) {
+          doc.optionU32(key);
+          doc.optionF32(key);
+        }
+        doc.option(SoftMemoryLimit.class);
+      }
+      assertEquals(getCalls, functions.optionGetCalls());
+      assertEquals(128, doc.optionU32(SOFT_MEMORY_LIMIT));
+      assertEquals(128.0f, doc.optionF32(SOFT_MEMORY_LIMIT));
+
+      functions.setCaptureOptionU32(13, 256);
+      assertEquals(128, doc.optionU32(SOFT_MEMORY_LIMIT));
+      doc.refreshOptions();
+      assertEquals(256, doc.optionU32(SOFT_MEMORY_LIMIT));
+      assertEquals(new SoftMemoryLimit(256), doc.option(SoftMemoryLimit.class));
+    }
+  }
+
+  /**
+   * Opening does not read any options; each option is read from the backend
+   * the first time it is read, and profiles read the remaining options.
+   */
+
+  @Test
+  public void testReadsAreLazy()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    functions.setCaptureOptionU32(13, 64);
+
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      assertEquals(0L, functions.optionGetCalls());
+
+      assertEquals(64, doc.optionU32(SOFT_MEMORY_LIMIT));
+      assertEquals(2L, functions.optionGetCalls());
+      assertEquals(64.0f, doc.optionF32(SOFT_MEMORY_LIMIT));
+      assertEquals(64, doc.optionU32(SOFT_MEMORY_LIMIT));
+      assertEquals(2L, functions.optionGetCalls());
+
+      final var keyCount = RenderDocOptionKey.values().length;
+      assertEquals(64, doc.optionProfile().valueU32(SOFT_MEMORY_LIMIT));
+      assertEquals(2L * keyCount, functions.optionGetCalls());
+      doc.optionProfile();
+      assertEquals(2L * keyCount, functions.optionGetCalls());
+    }
+  }
+}
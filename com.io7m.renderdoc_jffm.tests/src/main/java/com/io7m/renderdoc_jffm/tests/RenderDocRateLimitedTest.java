@@ -0,0 +1,188 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.tests;
+
+import com.io7m.renderdoc_jffm.core.RenderDoc;
+import com.io7m.renderdoc_jffm.core.RenderDocConfiguration;
+import com.io7m.renderdoc_jffm.core.RenderDocRateLimitConfiguration;
+import com.io7m.renderdoc_jffm.core.RenderDocRateLimitStatistics;
+import com.io7m.renderdoc_jffm.core.RenderDocRateLimited;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class RenderDocRateLimitedTest
+{
+  private static final long SECOND = 1_000_000_000L;
+
+  /**
+   * Triggers beyond the token bucket's capacity are denied until tokens
+   * are replenished.
+   */
+
+  @Test
+  public void testRate(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var functions = new RenderDocFakeFunctions();
+    functions.setCapturePathPrefix(directory + "/capture_");
+    final var clock = new AtomicLong(0L);
+
+    try (final var doc =
+           RenderDocRateLimited.create(
+             RenderDoc.create(RenderDocConfiguration.defaults(), functions),
+             new RenderDocRateLimitConfiguration(1.0, 2, Long.MAX_VALUE, 0L),
+             clock::get
+           )) {
+      doc.setCaptureFilePathTemplate(directory.resolve("capture"));
+
+      assertTrue(doc.tryTriggerCapture());
+      doc.triggerCapture();
+      assertFalse(doc.tryTriggerCapture());
+      doc.triggerMultiFrameCapture(1);
+      assertEquals(2L, doc.numberOfCaptures());
+
+      final var ex =
+        assertThrows(ExecutionException.class, () -> {
+          doc.triggerCaptureAsync().get();
+        });
+      assertInstanceOf(IllegalStateException.class, ex.getCause());
+
+      clock.set(30L * SECOND);
+      assertFalse(doc.tryTriggerCapture());
+      clock.set(60L * SECOND);
+      assertTrue(doc.tryTriggerCapture());
+      assertEquals(3L, doc.numberOfCaptures());
+
+      assertEquals(
+        new RenderDocRateLimitStatistics(3L, 4L, 0L, 0L),
+        doc.statistics()
+      );
+    }
+  }
+
+  /**
+   * Triggers that would exceed the byte budget are denied.
+   */
+
+  @Test
+  public void testByteBudget(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var functions = new RenderDocFakeFunctions();
+    functions.setCapturePathPrefix(directory + "/capture_");
+    final var clock = new AtomicLong(0L);
+
+    try (final var doc =
+           RenderDocRateLimited.create(
+             RenderDoc.create(RenderDocConfiguration.defaults(), functions),
+             new RenderDocRateLimitConfiguration(1000.0, 10, 1000L, 0L),
+             clock::get
+           )) {
+      doc.setCaptureFilePathTemplate(directory.resolve("capture"));
+
+      assertTrue(doc.tryTriggerCapture());
+      Files.write(directory.resolve("capture_0.rdc"), new byte[400]);
+      assertTrue(doc.tryTriggerCapture());
+      Files.write(directory.resolve("capture_1.rdc"), new byte[300]);
+
+      assertFalse(doc.tryTriggerCapture());
+      assertEquals(2L, doc.numberOfCaptures());
+      assertEquals(
+        new RenderDocRateLimitStatistics(2L, 0L, 1L, 700L),
+        doc.statistics()
+      );
+
+      /*
+       * Deleted captures are only noticed when the captures are measured
+       * again, which happens at most once per second.
+       */
+
+      Files.delete(directory.resolve("capture_0.rdc"));
+      clock.set(SECOND / 2L);
+      assertFalse(doc.tryTriggerCapture());
+      clock.set(2L * SECOND);
+      assertTrue(doc.tryTriggerCapture());
+    }
+  }
+
+  /**
+   * Multi-frame captures larger than the burst size are rejected.
+   */
+
+  @Test
+  public void testMultiFrameExceedsBurst()
+    throws Exception
+  {
+    final var functions = new RenderDocFakeFunctions();
+
+    try (final var doc =
+           RenderDocRateLimited.create(
+             RenderDoc.create(RenderDocConfiguration.defaults(), functions),
+             RenderDocRateLimitConfiguration.defaults()
+           )) {
+      assertThrows(IllegalArgumentException.class, () -> {
+        doc.triggerMultiFrameCapture(4);
+      });
+      doc.triggerMultiFrameCapture(3);
+      assertEquals(3L, doc.numberOfCaptures());
+      assertEquals(0L, doc.statistics().deniedByRate());
+    }
+  }
+
+  /**
+   * Triggers are denied when the file store has too little free space.
+   */
+
+  @Test
+  public void testFreeSpace(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var functions = new RenderDocFakeFunctions();
+    functions.setCapturePathPrefix(directory + "/capture_");
+
+    try (final var doc =
+           RenderDocRateLimited.create(
+             RenderDoc.create(RenderDocConfiguration.defaults(), functions),
+             new RenderDocRateLimitConfiguration(
+               1000.0,
+               10,
+               Long.MAX_VALUE,
+               Long.MAX_VALUE / 2L
+             )
+           )) {
+      doc.setCaptureFilePathTemplate(directory.resolve("a/b/capture"));
+      assertFalse(doc.tryTriggerCapture());
+      assertEquals(0L, doc.numberOfCaptures());
+      assertEquals(1L, doc.statistics().deniedByBytes());
+    }
+  }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.tests;
+
+import com.io7m.renderdoc_jffm.core.RenderDoc;
+import com.io7m.renderdoc_jffm.core.RenderDocConfiguration;
+import com.io7m.renderdoc_jffm.core.RenderDocReservoirSampler;
+import com.io7m.renderdoc_jffm.core.RenderDocSamplingPolicies;
+import com.io7m.renderdoc_jffm.core.RenderDocSamplingTrigger;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class RenderDocSamplingTest
+{
+  private static final long MILLISECOND = 1_000_000L;
+
+  /**
+   * One-in-N sampling samples every Nth frame, starting with the first.
+   */
+
+  @Test
+  public void testOneIn()
+  {
+    final var policy = RenderDocSamplingPolicies.oneIn(3);
+    final var sampled = new ArrayList<Long>();
+    for (long frame = 0L; frame < 10L; ++frame) {
+      if (policy.sample(frame)) {
+        sampled.add(Long.valueOf(frame));
+      }
+    }
+    assertEquals(
+      List.of(0L, 3L, 6L, 9L),
+      sampled
+    );
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      RenderDocSamplingPolicies.oneIn(0);
+    });
+  }
+
+  /**
+   * Seeded sampling is deterministic, and samples approximately the given
+   * proportion of frames.
+   */
+
+  @Test
+  public void testSeeded()
+  {
+    final var a = RenderDocSamplingPolicies.seeded(42L, 0.1);
+    final var b = RenderDocSamplingPolicies.seeded(42L, 0.1);
+    final var c = RenderDocSamplingPolicies.seeded(43L, 0.1);
+
+    var count = 0;
+    var differences = 0;
+    for (long frame = 0L; frame < 100_000L; ++frame) {
+      final var sampled = a.sample(frame);
+      assertEquals(sampled, b.sample(frame));
+      if (sampled != c.sample(frame)) {
+        ++differences;
+      }
+      if (sampled) {
+        ++count;
+      }
+    }
+
+    assertTrue(count > 9_500 && count < 10_500, "Count " + count);
+    assertTrue(differences > 0);
+    assertFalse(RenderDocSamplingPolicies.seeded(1L, 0.0).sample(0L));
+    assertTrue(RenderDocSamplingPolicies.seeded(1L, 1.0).sample(0L));
+  }
+
+  /**
+   * A sampling trigger captures the sampled frames.
+   */
+
+  @Test
+  public void testTrigger()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var trigger =
+        RenderDocSamplingTrigger.create(
+          doc,
+          RenderDocSamplingPolicies.oneIn(10)
+        );
+
+      for (int frame = 0; frame < 100; ++frame) {
+        trigger.onFrameBoundary(frame * MILLISECOND);
+      }
+      assertEquals(10L, doc.numberOfCaptures());
+      assertEquals(10L, trigger.capturesTriggered());
+      assertEquals(100L, trigger.framesObserved());
+    }
+  }
+
+  /**
+   * Reservoir sampling keeps K captures per window, and discards the rest
+   * through the retention hook.
+   */
+
+  @Test
+  public void testReservoir()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    final var discarded = new HashSet<Long>();
+
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var sampler =
+        RenderDocReservoirSampler.create(
+          doc,
+          4,
+          Duration.ofSeconds(1L),
+          0x5eedL,
+          index -> {
+            assertTrue(discarded.add(Long.valueOf(index)));
+          }
+        );
+
+      for (int frame = 0; frame < 1000; ++frame) {
+        sampler.onFrameBoundary(frame * MILLISECOND);
+      }
+
+      final var captures = doc.numberOfCaptures();
+      assertEquals(captures, sampler.capturesTriggered());
+      assertTrue(captures > 4L && captures < 100L, "Captures " + captures);
+
+      for (int frame = 1000; frame < 1004; ++frame) {
+        sampler.onFrameBoundary(frame * MILLISECOND);
+      }
+      assertEquals(captures + 4L, doc.numberOfCaptures());
+
+      assertEquals(captures - 4L, sampler.capturesDiscarded());
+      assertEquals(captures - 4L, discarded.size());
+      for (final var index : discarded) {
+        assertTrue(index.longValue() < captures);
+      }
+    }
+  }
+
+  /**
+   * Captures made by other sources are never passed to the retention hook.
+   */
+
+  @Test
+  public void testReservoirForeignCaptures()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    final var discarded = new HashSet<Long>();
+    final var foreign = new HashSet<Long>();
+
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var sampler =
+        RenderDocReservoirSampler.create(
+          doc,
+          2,
+          Duration.ofSeconds(1L),
+          0x5eedL,
+          index -> {
+            assertTrue(discarded.add(Long.valueOf(index)));
+          }
+        );
+
+      /*
+       * The sampler's captures appear only after the frame in which they
+       * were triggered, and a capture from another source sometimes
+       * appears first.
+       */
+
+      functions.setCapturesDeferred(true);
+      for (int frame = 0; frame < 1000; ++frame) {
+        sampler.onFrameBoundary(frame * MILLISECOND);
+        if (frame % 7 == 0) {
+          foreign.add(Long.valueOf(doc.numberOfCaptures()));
+          functions.addCapture();
+        }
+        functions.completePendingCaptures();
+      }
+
+      assertTrue(sampler.capturesDiscarded() > 0L);
+      for (final var index : discarded) {
+        assertFalse(foreign.contains(index), "Foreign capture " + index);
+      }
+    }
+  }
+}
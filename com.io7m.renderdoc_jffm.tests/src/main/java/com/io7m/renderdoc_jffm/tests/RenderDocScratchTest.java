@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.tests;
+
+import com.io7m.renderdoc_jffm.core.RenderDoc;
+import com.io7m.renderdoc_jffm.core.RenderDocConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class RenderDocScratchTest
+{
+  private static final long SCRATCH_SIZE = 4096L;
+
+  private static RenderDocConfiguration configuration()
+  {
+    return RenderDocConfiguration.defaults()
+      .withScratchSize(SCRATCH_SIZE);
+  }
+
+  /**
+   * Millions of string-taking calls only ever use the same fixed region
+   * of native memory.
+   */
+
+  @Test
+  public void testStringArgumentsStayInScratch()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    final var iterations = 2_000_000;
+
+    try (final var doc = RenderDoc.create(configuration(), functions)) {
+      for (int index = 0; index < iterations; ++index) {
+        doc.setCaptureTitle("title-" + index);
+        doc.setCaptureFilePathTemplate(Path.of("/tmp/captures", "c" + index));
+        doc.setCaptureFileComments(
+          Path.of("/tmp/captures/capture.rdc"),
+          "comments-" + index
+        );
+      }
+
+      assertEquals(4L * iterations, functions.stringCalls());
+      assertTrue(
+        functions.stringAddressHighest() - functions.stringAddressLowest()
+        < SCRATCH_SIZE,
+        "String arguments must remain within the scratch buffer."
+      );
+
+      assertEquals(
+        "title-" + (iterations - 1),
+        functions.captureTitle()
+      );
+      assertEquals(
+        Paths.get("/tmp/captures", "c" + (iterations - 1)),
+        doc.captureFilePathTemplate().orElseThrow()
+      );
+      assertEquals(
+        "/tmp/captures/capture.rdc",
+        functions.captureFileCommentsPath()
+      );
+      assertEquals(
+        "comments-" + (iterations - 1),
+        functions.captureFileComments()
+      );
+    }
+  }
+
+  /**
+   * Comments can be applied to the most recent capture.
+   */
+
+  @Test
+  public void testLatestCaptureComments()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+
+    try (final var doc = RenderDoc.create(configuration(), functions)) {
+      doc.setLatestCaptureFileComments("Hello.");
+      assertNull(functions.captureFileCommentsPath());
+      assertEquals("Hello.", functions.captureFileComments());
+    }
+  }
+
+  /**
+   * Strings that cannot fit into the scratch buffer are allocated
+   * separately.
+   */
+
+  @Test
+  public void testStringTooLarge()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+
+    try (final var doc = RenderDoc.create(configuration(), functions)) {
+      final var text = "x".repeat((int) SCRATCH_SIZE * 4);
+      doc.setCaptureTitle(text);
+      assertEquals(text, functions.captureTitle());
+      doc.setCaptureFileComments(Path.of("/tmp/capture.rdc"), text);
+      assertEquals(text, functions.captureFileComments());
+
+      doc.setCaptureTitle("Still usable.");
+      assertEquals("Still usable.", functions.captureTitle());
+    }
+  }
+}
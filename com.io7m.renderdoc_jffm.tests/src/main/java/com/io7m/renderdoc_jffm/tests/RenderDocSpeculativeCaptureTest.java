@@ -0,0 +1,244 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.tests;
+
+import com.io7m.renderdoc_jffm.core.RenderDoc;
+import com.io7m.renderdoc_jffm.core.RenderDocConfiguration;
+import com.io7m.renderdoc_jffm.core.RenderDocDevicePointer;
+import com.io7m.renderdoc_jffm.core.RenderDocSpeculativeCapture;
+import com.io7m.renderdoc_jffm.core.RenderDocSpeculativeCaptureStatistics;
+import com.io7m.renderdoc_jffm.core.RenderDocWindowHandle;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class RenderDocSpeculativeCaptureTest
+{
+  private static final long SLOW = 20_000_000L;
+
+  /**
+   * Only slow frames are kept; every other speculative capture is
+   * discarded.
+   */
+
+  @Test
+  public void testKeepsSlowFrames()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var speculative =
+        RenderDocSpeculativeCapture.create(
+          doc,
+          RenderDocDevicePointer.ANY,
+          RenderDocWindowHandle.ANY,
+          2,
+          duration -> duration >= SLOW
+        );
+
+      for (int frame = 0; frame < 100; ++frame) {
+        speculative.frameStarted();
+        final var duration = frame % 10 == 0 ? SLOW : 1_000_000L;
+        final var kept = speculative.frameEnded(duration);
+        assertEquals(frame % 10 == 0, kept);
+        assertFalse(doc.isFrameCapturing());
+      }
+
+      assertEquals(
+        new RenderDocSpeculativeCaptureStatistics(100L, 50L, 10L, 40L, 0L),
+        speculative.statistics()
+      );
+      assertEquals(10L, doc.numberOfCaptures());
+      assertEquals(40L, functions.frameCaptureDiscards());
+    }
+  }
+
+  /**
+   * Captures that RenderDoc fails to write are counted as failures.
+   */
+
+  @Test
+  public void testFailures()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var speculative =
+        RenderDocSpeculativeCapture.create(
+          doc,
+          RenderDocDevicePointer.ANY,
+          RenderDocWindowHandle.ANY,
+          1,
+          duration -> true
+        );
+
+      functions.setEndFrameCaptureResult(0);
+      speculative.frameStarted();
+      assertFalse(speculative.frameEnded());
+      functions.setEndFrameCaptureResult(1);
+      speculative.frameStarted();
+      assertTrue(speculative.frameEnded());
+
+      assertEquals(
+        new RenderDocSpeculativeCaptureStatistics(2L, 2L, 1L, 0L, 1L),
+        speculative.statistics()
+      );
+    }
+  }
+
+  /**
+   * Statistics read from another thread while frames are running are
+   * always internally consistent.
+   */
+
+  @Test
+  public void testStatisticsConsistent()
+    throws Exception
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var speculative =
+        RenderDocSpeculativeCapture.create(
+          doc,
+          RenderDocDevicePointer.ANY,
+          RenderDocWindowHandle.ANY,
+          1,
+          duration -> duration >= SLOW
+        );
+
+      final var done =
+        new AtomicBoolean(false);
+      final var inconsistent =
+        new AtomicReference<RenderDocSpeculativeCaptureStatistics>();
+
+      final var reader = Thread.ofPlatform().start(() -> {
+        while (!done.get()) {
+          final var stats = speculative.statistics();
+          final var ended = stats.kept() + stats.discarded() + stats.failed();
+          if (ended > stats.started() || stats.started() > stats.frames()) {
+            inconsistent.compareAndSet(null, stats);
+          }
+        }
+      });
+
+      try {
+        for (int frame = 0; frame < 100_000; ++frame) {
+          speculative.frameStarted();
+          speculative.frameEnded(frame % 100 == 0 ? SLOW : 1_000_000L);
+        }
+      } finally {
+        done.set(true);
+        reader.join();
+      }
+
+      assertEquals(null, inconsistent.get());
+      assertEquals(
+        new RenderDocSpeculativeCaptureStatistics(
+          100_000L, 100_000L, 1_000L, 99_000L, 0L),
+        speculative.statistics()
+      );
+    }
+  }
+
+  /**
+   * Frames must be ended before the next frame starts, and the period
+   * must be positive.
+   */
+
+  @Test
+  public void testMisuse()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var speculative =
+        RenderDocSpeculativeCapture.create(
+          doc,
+          RenderDocDevicePointer.ANY,
+          RenderDocWindowHandle.ANY,
+          1,
+          duration -> true
+        );
+
+      speculative.frameStarted();
+      assertThrows(IllegalStateException.class, speculative::frameStarted);
+
+      assertThrows(IllegalArgumentException.class, () -> {
+        RenderDocSpeculativeCapture.create(
+          doc,
+          RenderDocDevicePointer.ANY,
+          RenderDocWindowHandle.ANY,
+          0,
+          duration -> true
+        );
+      });
+    }
+  }
+
+  /**
+   * A predicate that throws does not leave the frame capture open.
+   */
+
+  @Test
+  public void testPredicateFails()
+    throws IOException
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var speculative =
+        RenderDocSpeculativeCapture.create(
+          doc,
+          RenderDocDevicePointer.ANY,
+          RenderDocWindowHandle.ANY,
+          1,
+          duration -> {
+            if (duration == SLOW) {
+              throw new IllegalStateException("Predicate failed.");
+            }
+            return true;
+          }
+        );
+
+      speculative.frameStarted();
+      assertThrows(IllegalStateException.class, () -> {
+        speculative.frameEnded(SLOW);
+      });
+      assertFalse(doc.isFrameCapturing());
+      assertEquals(1L, functions.frameCaptureDiscards());
+
+      speculative.frameStarted();
+      assertTrue(speculative.frameEnded(1L));
+      assertEquals(
+        new RenderDocSpeculativeCaptureStatistics(2L, 2L, 1L, 1L, 0L),
+        speculative.statistics()
+      );
+    }
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.renderdoc_jffm.tests;
+
+import com.io7m.renderdoc_jffm.core.RenderDoc;
+import com.io7m.renderdoc_jffm.core.RenderDocConfiguration;
+import com.io7m.renderdoc_jffm.core.RenderDocDevicePointer;
+import com.io7m.renderdoc_jffm.core.RenderDocFrameCaptureScope;
+import com.io7m.renderdoc_jffm.core.RenderDocOptionKey;
+import com.io7m.renderdoc_jffm.core.RenderDocThreadingModel;
+import com.io7m.renderdoc_jffm.core.RenderDocWindowHandle;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class RenderDocThreadSafeTest
+{
+  private static final RenderDocConfiguration SHARED =
+    RenderDocConfiguration.defaults()
+      .withThreadingModel(RenderDocThreadingModel.SHARED);
+
+  /**
+   * A confined instance cannot pass strings from another thread.
+   */
+
+  @Test
+  public void testConfinedOtherThread()
+    throws Exception
+  {
+    final var functions = new RenderDocFakeFunctions();
+    try (final var doc =
+           RenderDoc.create(RenderDocConfiguration.defaults(), functions)) {
+      final var thread = Thread.ofPlatform().start(() -> {
+        assertThrows(WrongThreadException.class, () -> {
+          doc.setCaptureTitle("x");
+        });
+      });
+      thread.join();
+    }
+  }
+
+  /**
+   * A shared instance can be used from many threads at once, and
+   * serialises the calls that must be serialised.
+   */
+
+  @Test
+  public void testSharedStress()
+    throws Exception
+  {
+    final var functions = new RenderDocFakeConcurrentFunctions();
+    final var threadCount = 8;
+    final var iterations = 5_000;
+    final var triggers = new AtomicLong();
+    final var titles = new AtomicLong();
+    final var errors = new ConcurrentLinkedQueue<Throwable>();
+
+    try (final var doc = RenderDoc.create(SHARED, functions)) {
+      final var start = new CountDownLatch(1);
+      final var threads = new ArrayList<Thread>();
+      final var keys = RenderDocOptionKey.values();
+
+      for (int index = 0; index < threadCount; ++index) {
+        final var key = keys[index];
+        final var name = Integer.toString(index);
+        threads.add(Thread.ofPlatform().start(() -> {
+          try {
+            start.await();
+            for (int i = 0; i < iterations; ++i) {
+              switch (i % 5) {
+                case 0 -> {
+                  doc.setOptionU32(key, i);
+                  assertEquals(i, doc.optionU32(key));
+                }
+                case 1 -> {
+                  doc.setCaptureTitle(name + ":" + i);
+                  titles.incrementAndGet();
+                }
+                case 2 -> {
+                  doc.triggerCapture();
+                  triggers.incrementAndGet();
+                }
+                case 3 -> {
+                  doc.setCaptureFilePathTemplate(Path.of("/tmp/" + name));
+                }
+                default -> {
+                  doc.captureFilePathTemplate().orElseThrow();
+                  doc.optionProfile();
+                  doc.capturesSince((int) doc.numberOfCaptures() - 1);
+                }
+              }
+            }
+          } catch (final Throwable e) {
+            errors.add(e);
+          }
+        }));
+      }
+
+      start.countDown();
+      for (final var thread : threads) {
+        thread.join();
+      }
+
+      assertEquals(0, errors.size(), () -> errors.toString());
+      assertEquals(0L, functions.violations());
+      assertEquals(triggers.get(), doc.numberOfCaptures());
+      assertEquals(titles.get(), functions.captureTitleCount());
+      assertTrue(doc.captureFilePathTemplate().isPresent());
+    }
+  }
+
+  /**
+   * A shared instance can be closed from a thread other than the one that
+   * created it.
+   */
+
+  @Test
+  public void testSharedCloseOtherThread()
+    throws Exception
+  {
+    final var functions = new RenderDocFakeConcurrentFunctions();
+    final var doc = RenderDoc.create(SHARED, functions);
+    final var errors = new ConcurrentLinkedQueue<Throwable>();
+
+    final var thread = Thread.ofPlatform().start(() -> {
+      try {
+        doc.setCaptureTitle("x");
+        doc.close();
+      } catch (final IOException e) {
+        errors.add(e);
+      }
+    });
+    thread.join();
+
+    assertEquals(0, errors.size());
+    assertThrows(IllegalStateException.class, doc::triggerCapture);
+  }
+
+  /**
+   * A frame capture started on one thread can be ended on another.
+   */
+
+  @Test
+  public void testSharedFrameCaptureOtherThread()
+    throws Exception
+  {
+    final var functions = new RenderDocFakeConcurrentFunctions();
+    final var iterations = 10_000;
+    final var scopes = new SynchronousQueue<RenderDocFrameCaptureScope>();
+    final var ended = new SynchronousQueue<Boolean>();
+    final var errors = new ConcurrentLinkedQueue<Throwable>();
+
+    try (final var doc = RenderDoc.create(SHARED, functions)) {
+      final var thread = Thread.ofPlatform().start(() -> {
+        try {
+          for (int index = 0; index < iterations; ++index) {
+            final var scope = scopes.take();
+            ended.put(Boolean.valueOf(scope.end() && !scope.isOpen()));
+          }
+        } catch (final Throwable e) {
+          errors.add(e);
+        }
+      });
+
+      for (int index = 0; index < iterations; ++index) {
+        final var scope =
+          doc.startFrameCapture(
+            RenderDocDevicePointer.ANY,
+            RenderDocWindowHandle.ANY
+          );
+        scopes.put(scope);
+        assertTrue(ended.take().booleanValue());
+        assertTrue(scope.succeeded());
+        assertFalse(scope.isOpen());
+      }
+
+      thread.join();
+      assertEquals(0, errors.size(), () -> errors.toString());
+      assertEquals(iterations, doc.numberOfCaptures());
+    }
+  }
+}
@@ -26,6 +26,8 @@ open module com.io7m.renderdoc_jffm.tests
   requires org.junit.platform.engine;
   requires org.junit.platform.launcher;
   requires com.io7m.renderdoc_jffm.core;
+  requires jdk.jfr;
+  requires jdk.management;
   requires org.slf4j;
 
   exports com.io7m.renderdoc_jffm.tests;